@@ -0,0 +1,19 @@
+package com.hobart.lottery.config;
+
+import java.lang.annotation.*;
+
+/**
+ * 舱壁隔离
+ * 标注在耗时接口上，同一舱壁的接口共享并发上限（lottery.bulkhead.limits 中按名称配置），
+ * 超出上限的请求短暂排队，排队已满或等待超时时立即返回 503
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    /**
+     * 舱壁名称
+     */
+    String value();
+}
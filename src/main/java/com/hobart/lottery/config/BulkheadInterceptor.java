@@ -0,0 +1,110 @@
+package com.hobart.lottery.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 舱壁拦截器
+ * 进入标注了 {@link Bulkhead} 的接口前取得所属舱壁的许可，请求完成后释放（异步接口在异步处理结束后释放）；
+ * 未标注的接口（如按期号查询）不受影响，因此耗时接口饱和时廉价接口的延迟不变
+ */
+@Component
+@Slf4j
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private final LotteryConfig.BulkheadConfig config;
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    public BulkheadInterceptor(LotteryConfig config) {
+        this.config = config.getBulkhead();
+    }
+
+    /**
+     * 单个舱壁：并发许可与排队计数
+     */
+    private static final class Compartment {
+        final Semaphore permits;
+        final AtomicInteger waiting = new AtomicInteger();
+
+        Compartment(int limit) {
+            this.permits = new Semaphore(Math.max(1, limit), true);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // 异步请求的再次分派沿用首次分派取得的许可
+        if (!config.isEnabled() || request.getDispatcherType() == DispatcherType.ASYNC
+                || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Bulkhead bulkhead = method.getMethodAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            return true;
+        }
+
+        Compartment compartment = compartments.computeIfAbsent(bulkhead.value(),
+            name -> new Compartment(config.getLimits().getOrDefault(name, config.getDefaultLimit())));
+        if (acquire(compartment)) {
+            request.setAttribute(PERMIT_ATTRIBUTE, compartment);
+            return true;
+        }
+
+        log.warn("舱壁 {} 已饱和，拒绝请求 {}", bulkhead.value(), request.getRequestURI());
+        reject(response);
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Compartment compartment) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            compartment.permits.release();
+        }
+    }
+
+    private boolean acquire(Compartment compartment) {
+        if (compartment.permits.tryAcquire()) {
+            return true;
+        }
+        if (compartment.waiting.incrementAndGet() > config.getMaxQueue()) {
+            compartment.waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return compartment.permits.tryAcquire(config.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            compartment.waiting.decrementAndGet();
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"success\":false,\"message\":\"系统繁忙，请稍后重试\"}");
+    }
+}
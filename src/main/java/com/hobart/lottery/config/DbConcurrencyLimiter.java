@@ -0,0 +1,71 @@
+package com.hobart.lottery.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库并发许可
+ * 作为虚拟线程执行器的任务装饰器：任务在自己的线程中先取得许可再执行，
+ * 提交方不会被阻塞；各后台执行器共用同一组许可，合计不超过连接池可承受的并发数。
+ * 虚拟线程模式下请求线程另用一组许可（见 RequestDbLimitFilter），两组之和不超过连接池大小
+ */
+public class DbConcurrencyLimiter implements TaskDecorator {
+
+    private final int permits;
+    private final Semaphore semaphore;
+
+    public DbConcurrencyLimiter(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("数据库并发许可数必须大于 0: " + permits);
+        }
+        this.permits = permits;
+        this.semaphore = new Semaphore(permits, true);
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        return () -> {
+            acquire();
+            try {
+                task.run();
+            } finally {
+                release();
+            }
+        };
+    }
+
+    public void acquire() {
+        semaphore.acquireUninterruptibly();
+    }
+
+    /**
+     * 在限定时间内尝试取得许可
+     *
+     * @return 是否取得许可；等待中被中断时保留中断状态并返回 false
+     */
+    public boolean tryAcquire(long timeoutMs) {
+        try {
+            return semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    /**
+     * 当前空闲的许可数
+     */
+    public int getAvailable() {
+        return semaphore.availablePermits();
+    }
+}
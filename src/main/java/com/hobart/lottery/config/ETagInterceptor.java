@@ -0,0 +1,35 @@
+package com.hobart.lottery.config;
+
+import com.hobart.lottery.service.DataVersion;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * ETag 拦截器（注册在舱壁拦截器之前）
+ * 为标注了 {@link ETagVersion} 的接口写入 ETag，请求的 If-None-Match 与当前版本一致时直接返回 304
+ */
+@Component
+@RequiredArgsConstructor
+public class ETagInterceptor implements HandlerInterceptor {
+
+    private final DataVersion dataVersion;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        ETagVersion version = method.getMethodAnnotation(ETagVersion.class);
+        if (version == null) {
+            return true;
+        }
+        String tag = version.value() == ETagVersion.Source.LEARNING ? dataVersion.learningTag() : dataVersion.historyTag();
+        return !new ServletWebRequest(request, response).checkNotModified(tag);
+    }
+}
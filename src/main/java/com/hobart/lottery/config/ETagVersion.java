@@ -0,0 +1,26 @@
+package com.hobart.lottery.config;
+
+import java.lang.annotation.*;
+
+/**
+ * 条件请求
+ * 标注在只依赖某类数据版本的 GET 接口上，由 {@link ETagInterceptor} 按版本号生成 ETag；
+ * 客户端缓存仍有效时在舱壁之前直接返回 304，不占用舱壁许可，也不执行接口方法
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ETagVersion {
+
+    /**
+     * 响应依赖的数据
+     */
+    Source value() default Source.HISTORY;
+
+    enum Source {
+        /** 仅依赖开奖历史 */
+        HISTORY,
+        /** 依赖开奖历史与学习权重 */
+        LEARNING
+    }
+}
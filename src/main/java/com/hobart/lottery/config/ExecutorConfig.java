@@ -0,0 +1,186 @@
+package com.hobart.lottery.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 线程池与定时任务配置
+ * 开启 spring.threads.virtual.enabled 后，请求线程（Tomcat）与访问数据库的后台任务（批量验证、预测扇出）
+ * 改用虚拟线程，并发数由共享的数据库许可限制；回测等纯计算任务与入库流水线始终使用平台线程
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class ExecutorConfig {
+
+    /**
+     * 后台任务的数据库并发许可，默认占连接池的一半
+     */
+    @Bean
+    public DbConcurrencyLimiter dbConcurrencyLimiter(LotteryConfig config,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        return new DbConcurrencyLimiter(backgroundDbPermits(config, poolSize));
+    }
+
+    /**
+     * 请求线程的数据库并发许可（仅虚拟线程模式下由 RequestDbLimitFilter 使用），默认为连接池剩余部分；
+     * 许可数不为正（连接池过小或后台许可占满连接池）时启动失败，而不是静默放宽到 1
+     */
+    @Bean
+    public DbConcurrencyLimiter requestDbConcurrencyLimiter(LotteryConfig config,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        int configured = config.getThreads().getRequestDbConcurrency();
+        return new DbConcurrencyLimiter(configured > 0 ? configured : poolSize - backgroundDbPermits(config, poolSize));
+    }
+
+    private static int backgroundDbPermits(LotteryConfig config, int poolSize) {
+        int configured = config.getThreads().getDbConcurrency();
+        return configured > 0 ? configured : poolSize / 2;
+    }
+
+    /**
+     * 批量验证执行器，每个任务验证一期（各自独立事务）
+     */
+    @Bean
+    public AsyncTaskExecutor verificationExecutor(LotteryConfig config, Environment environment,
+                                                  DbConcurrencyLimiter dbConcurrencyLimiter) {
+        int parallelism = Math.max(1, config.getVerification().getBulkParallelism());
+        if (Threading.VIRTUAL.isActive(environment)) {
+            TaskDecorator perExecutor = new DbConcurrencyLimiter(parallelism);
+            return virtualExecutor("verify-", task -> perExecutor.decorate(dbConcurrencyLimiter.decorate(task)));
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("verify-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 预测/分析扇出执行器，各预测方法并行生成号码（读取分析数据，不写库）
+     */
+    @Bean
+    public AsyncTaskExecutor analysisExecutor(LotteryConfig config, Environment environment,
+                                              DbConcurrencyLimiter dbConcurrencyLimiter) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualExecutor("analysis-", dbConcurrencyLimiter);
+        }
+        int configured = config.getThreads().getFanOutParallelism();
+        int parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("analysis-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 重任务线程池，供耗时接口的异步版本使用；线程数与队列均有界，队列满时拒绝
+     */
+    @Bean
+    public ThreadPoolTaskExecutor heavyExecutor(LotteryConfig config) {
+        LotteryConfig.ThreadsConfig threads = config.getThreads();
+        int poolSize = Math.max(1, threads.getHeavyPoolSize());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(Math.max(0, threads.getHeavyQueueCapacity()));
+        executor.setThreadNamePrefix("heavy-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 流式生成线程池，单个任务可能持续数分钟，与重任务线程池隔离；不排队，线程占满时直接拒绝
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamExecutor(LotteryConfig config) {
+        int poolSize = Math.max(1, config.getPrediction().getStreamParallelism());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 开奖推送写入线程池，SSE 写入可能因慢客户端阻塞，不在开奖流水线线程上执行
+     */
+    @Bean
+    public ThreadPoolTaskExecutor pushExecutor(LotteryConfig config) {
+        LotteryConfig.PushConfig push = config.getPush();
+        int poolSize = Math.max(1, push.getPoolSize());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(Math.max(1, push.getMaxSubscribers()) * 2);
+        executor.setThreadNamePrefix("push-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 回测线程池，按期号分段并行回放历史（纯计算）
+     */
+    @Bean
+    public ThreadPoolTaskExecutor backtestExecutor(LotteryConfig config) {
+        int configured = config.getBacktest().getParallelism();
+        int parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("backtest-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 参数寻优线程池，各组参数以并行流分摊到各核
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool sweepPool(LotteryConfig config) {
+        int configured = config.getBacktest().getParallelism();
+        return new ForkJoinPool(configured > 0 ? configured : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 开奖入库后处理流水线，单线程保证各期按入库顺序学习
+     */
+    @Bean
+    public ThreadPoolTaskExecutor pipelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("draw-pipeline-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 每个任务一个虚拟线程，任务经装饰器取得许可后执行（提交方不阻塞）
+     */
+    private static SimpleAsyncTaskExecutor virtualExecutor(String prefix, TaskDecorator decorator) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(decorator);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 彩票系统配置
  * 将原来硬编码的魔法数字提取为可配置参数
@@ -25,6 +28,24 @@ public class LotteryConfig {
     /** 学习参数配置 */
     private LearningConfig learning = new LearningConfig();
     
+    /** 验证参数配置 */
+    private VerificationConfig verification = new VerificationConfig();
+    
+    /** 回测参数配置 */
+    private BacktestConfig backtest = new BacktestConfig();
+    
+    /** 线程与并发配置 */
+    private ThreadsConfig threads = new ThreadsConfig();
+    
+    /** 舱壁隔离配置 */
+    private BulkheadConfig bulkhead = new BulkheadConfig();
+    
+    /** 预测生成配置 */
+    private PredictionConfig prediction = new PredictionConfig();
+    
+    /** 开奖推送配置 */
+    private PushConfig push = new PushConfig();
+    
     /**
      * 号码区域配置
      */
@@ -68,6 +89,9 @@ public class LotteryConfig {
         
         /** 关联规则最小置信度 */
         private double minConfidence = 0.3;
+        
+        /** 分析结果缓存的最大条目数 */
+        private int cacheMaxEntries = 512;
     }
     
     /**
@@ -86,5 +110,161 @@ public class LotteryConfig {
         
         /** 初始权重（均等分配） */
         private double initialWeight = 0.2;
+        
+        /** 自适应预测的学习策略 */
+        private LearningStrategy strategy = LearningStrategy.EMA;
+        
+        /** THOMPSON 策略下与数据库同步后验统计的间隔（毫秒） */
+        private long banditSyncIntervalMs = 60000;
+        
+        /** 权重历史接口单次最多返回的期数 */
+        private int maxWeightHistoryIssues = 5000;
+    }
+    
+    /**
+     * 学习策略
+     */
+    public enum LearningStrategy {
+        /** 按 EMA 命中率归一化得到固定权重 */
+        EMA,
+        /** 每注按 Beta 后验做 Thompson 抽样得到权重组合 */
+        THOMPSON
+    }
+    
+    /**
+     * 验证参数配置
+     */
+    @Data
+    public static class VerificationConfig {
+        /** 批量验证的并发期数 */
+        private int bulkParallelism = 4;
+        
+        /** 流式验证每批写入的记录数 */
+        private int streamBatchSize = 1000;
+    }
+    
+    /**
+     * 回测参数配置
+     */
+    @Data
+    public static class BacktestConfig {
+        /** 并行线程数，0 表示使用 CPU 核数 */
+        private int parallelism = 0;
+        
+        /** 预热期数：历史不足该期数的期号不参与回测 */
+        private int warmupIssues = 100;
+        
+        /** 每期每方法默认生成的注数 */
+        private int ticketsPerIssue = 5;
+        
+        /** 随机基线模拟时每期默认模拟的注数 */
+        private long baselineTicketsPerIssue = 20000;
+        
+        /** 随机基线每期模拟注数上限（模拟量为期数 x 注数，需限制单次请求的计算量） */
+        private long maxBaselineTicketsPerIssue = 200000;
+        
+        /** 参数寻优单次最多评估的参数组合数，组合更多时随机抽取 */
+        private int maxSweepConfigs = 500;
+    }
+    
+    /**
+     * 线程与并发配置
+     * 虚拟线程模式（spring.threads.virtual.enabled=true）下后台任务不再受线程数限制，
+     * 改由数据库并发许可限制同时访问数据库的任务数，避免耗尽连接池
+     */
+    @Data
+    public static class ThreadsConfig {
+        /** 后台任务同时访问数据库的上限，0 表示连接池大小的一半 */
+        private int dbConcurrency = 0;
+        
+        /** 虚拟线程模式下同时访问数据库的请求上限，0 表示连接池中后台任务以外的部分 */
+        private int requestDbConcurrency = 0;
+        
+        /** 虚拟线程模式下请求取数据库许可的最长等待（毫秒），超时返回 503 */
+        private long requestDbMaxWaitMs = 1000;
+        
+        /** 预测/分析并行扇出的线程数（仅平台线程模式），0 表示使用 CPU 核数 */
+        private int fanOutParallelism = 0;
+        
+        /** 重任务（异步接口）线程数 */
+        private int heavyPoolSize = 4;
+        
+        /** 重任务排队上限，超出时直接拒绝 */
+        private int heavyQueueCapacity = 50;
+        
+        /** 重任务执行超时（毫秒，从任务开始执行时计算） */
+        private long heavyTimeoutMs = 30000;
+        
+        /** 重任务排队超时（毫秒），超时仍未开始的任务取消 */
+        private long heavyQueueTimeoutMs = 5000;
+    }
+    
+    /**
+     * 舱壁隔离配置
+     * 耗时接口按舱壁名称分组限制并发，饱和时快速拒绝，保护廉价接口的延迟
+     */
+    @Data
+    public static class BulkheadConfig {
+        /** 是否启用 */
+        private boolean enabled = true;
+        
+        /**
+         * 各舱壁的并发上限：association 关联挖掘，statistics 全量统计接口（页面不限），generation 预测生成，
+         * verification 单期验证，backtest 回测/寻优/随机基线，
+         * stream 流式生成，push 开奖推送订阅
+         */
+        private Map<String, Integer> limits = new HashMap<>(Map.of(
+            "association", 2,
+            "statistics", 4,
+            "generation", 2,
+            "verification", 2,
+            "backtest", 1,
+            "stream", 2,
+            "push", 100));
+        
+        /** 未配置的舱壁的并发上限 */
+        private int defaultLimit = 2;
+        
+        /** 每个舱壁最多排队的请求数，超出时立即拒绝 */
+        private int maxQueue = 8;
+        
+        /** 排队等待许可的最长时间（毫秒） */
+        private long maxWaitMs = 200;
+        
+        /** 单次预测生成允许的最大注数 */
+        private int maxGenerateCount = 100;
+    }
+    
+    /**
+     * 预测生成配置
+     */
+    @Data
+    public static class PredictionConfig {
+        /** 流式生成每批保存的注数 */
+        private int streamBatchSize = 200;
+        
+        /** 流式生成单次允许的最大注数（每种方法） */
+        private int maxStreamCount = 100000;
+        
+        /** 流式生成的连接超时（毫秒） */
+        private long streamTimeoutMs = 600000;
+        
+        /** 同时进行的流式生成数（独立线程池） */
+        private int streamParallelism = 2;
+    }
+    
+    /**
+     * 开奖推送（SSE）配置
+     */
+    @Data
+    public static class PushConfig {
+        /** 同时订阅的客户端上限 */
+        private int maxSubscribers = 100;
+        
+        /** 单次推送写入超时（毫秒），超时或积压超过一条推送的客户端被断开 */
+        private long sendTimeoutMs = 5000;
+        
+        /** 推送写入线程数 */
+        private int poolSize = 2;
     }
 }
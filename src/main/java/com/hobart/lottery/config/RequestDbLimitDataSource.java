@@ -0,0 +1,33 @@
+package com.hobart.lottery.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 虚拟线程模式下的数据源包装
+ * 取连接前先为当前请求取得数据库许可（见 RequestDbLimitFilter），后台任务线程不受影响
+ */
+public class RequestDbLimitDataSource extends DelegatingDataSource {
+
+    private final RequestDbLimitFilter limitFilter;
+
+    public RequestDbLimitDataSource(DataSource target, RequestDbLimitFilter limitFilter) {
+        super(target);
+        this.limitFilter = limitFilter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        limitFilter.acquireForCurrentRequest();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        limitFilter.acquireForCurrentRequest();
+        return super.getConnection(username, password);
+    }
+}
@@ -0,0 +1,107 @@
+package com.hobart.lottery.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * 请求数据库并发许可（虚拟线程模式）
+ * 虚拟线程下 Tomcat 不再以线程数限制并发请求，这里限制同时访问数据库的请求数不超过为请求线程预留的连接数。
+ * 许可不在请求进入时获取，而是在请求线程第一次取数据库连接时（见 RequestDbLimitDataSource）获取，
+ * 请求结束时释放；命中缓存、仪表盘快照或 304 的请求不取连接，也就不占许可。
+ * 限定时间内取不到许可时返回 503；异步接口在请求线程返回时即释放许可，后台部分由执行器各自的许可限制
+ */
+@Slf4j
+public class RequestDbLimitFilter extends OncePerRequestFilter {
+
+    private final DbConcurrencyLimiter limiter;
+    private final long maxWaitMs;
+
+    /** 当前线程正在处理的请求的许可状态，后台任务线程上为空 */
+    private final ThreadLocal<Lease> currentLease = new ThreadLocal<>();
+
+    public RequestDbLimitFilter(DbConcurrencyLimiter limiter, long maxWaitMs) {
+        this.limiter = limiter;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * 单个请求的许可状态
+     */
+    private static final class Lease {
+        final HttpServletResponse response;
+        boolean acquired;
+        boolean rejected;
+
+        Lease(HttpServletResponse response) {
+            this.response = response;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/css/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Lease lease = new Lease(response);
+        currentLease.set(lease);
+        try {
+            chain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            // 取不到许可导致的失败统一答复 503，其他异常照常抛出
+            if (!lease.rejected || response.isCommitted()) {
+                throw e;
+            }
+            reject(response);
+        } finally {
+            currentLease.remove();
+            if (lease.acquired) {
+                limiter.release();
+            }
+        }
+    }
+
+    /**
+     * 请求线程取数据库连接前调用：本请求首次取连接时获取许可，非请求线程直接放行
+     *
+     * @throws SQLTransientConnectionException 限定时间内取不到许可
+     */
+    public void acquireForCurrentRequest() throws SQLTransientConnectionException {
+        Lease lease = currentLease.get();
+        if (lease == null || lease.acquired) {
+            return;
+        }
+        if (!limiter.tryAcquire(maxWaitMs)) {
+            lease.rejected = true;
+            // 接口自行捕获异常并返回结果时，响应状态仍为 503
+            if (!lease.response.isCommitted()) {
+                lease.response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                lease.response.setHeader("Retry-After", "1");
+            }
+            log.warn("请求数据库许可等待超过 {}ms，拒绝请求", maxWaitMs);
+            throw new SQLTransientConnectionException("数据库繁忙，请稍后重试");
+        }
+        lease.acquired = true;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.resetBuffer();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"success\":false,\"message\":\"系统繁忙，请稍后重试\"}");
+    }
+}
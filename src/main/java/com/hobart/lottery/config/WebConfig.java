@@ -0,0 +1,70 @@
+package com.hobart.lottery.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Web MVC 配置
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ETagInterceptor eTagInterceptor;
+    private final BulkheadInterceptor bulkheadInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 缓存命中的条件请求直接返回 304，不占用舱壁许可
+        registry.addInterceptor(eTagInterceptor);
+        registry.addInterceptor(bulkheadInterceptor);
+    }
+
+    /**
+     * 请求数据库并发许可，由虚拟线程模式下包装后的数据源在取连接时使用
+     */
+    @Bean
+    public RequestDbLimitFilter requestDbLimitFilter(DbConcurrencyLimiter requestDbConcurrencyLimiter,
+                                                     LotteryConfig config) {
+        return new RequestDbLimitFilter(requestDbConcurrencyLimiter, config.getThreads().getRequestDbMaxWaitMs());
+    }
+
+    /**
+     * 虚拟线程模式下限制同时访问数据库的请求数，平台线程模式下由 Tomcat 线程池限制，不注册
+     */
+    @Bean
+    public FilterRegistrationBean<RequestDbLimitFilter> requestDbLimitFilterRegistration(
+            RequestDbLimitFilter requestDbLimitFilter, Environment environment) {
+        FilterRegistrationBean<RequestDbLimitFilter> registration = new FilterRegistrationBean<>(requestDbLimitFilter);
+        registration.setEnabled(Threading.VIRTUAL.isActive(environment));
+        return registration;
+    }
+
+    /**
+     * 虚拟线程模式下包装数据源，请求线程取连接时才占用请求许可
+     */
+    @Bean
+    public static BeanPostProcessor requestDbLimitDataSourcePostProcessor(
+            Environment environment, ObjectProvider<RequestDbLimitFilter> requestDbLimitFilter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof RequestDbLimitDataSource)
+                        && Threading.VIRTUAL.isActive(environment)) {
+                    return new RequestDbLimitDataSource(dataSource, requestDbLimitFilter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,26 +1,37 @@
 package com.hobart.lottery.controller;
 
+import com.hobart.lottery.config.Bulkhead;
+import com.hobart.lottery.config.ETagVersion;
 import com.hobart.lottery.domain.model.AssociationRule;
 import com.hobart.lottery.domain.model.NumberZone;
 import com.hobart.lottery.dto.FrequencyDTO;
 import com.hobart.lottery.dto.MissingDTO;
 import com.hobart.lottery.dto.SameNumberDTO;
 import com.hobart.lottery.service.AnalysisService;
-import com.hobart.lottery.service.analysis.AssociationAnalyzer;
+import com.hobart.lottery.service.DrawPushService;
+import com.hobart.lottery.service.HeavyTaskService;
+import com.hobart.lottery.service.analysis.AnalysisCache;
+import com.hobart.lottery.service.analysis.ColumnarTrendEncoder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 数据分析控制器
+ * 数据 API 以开奖历史版本作为 ETag，历史未变时条件请求直接返回 304，不再重新计算
  */
 @Controller
 @RequestMapping("/analysis")
@@ -28,7 +39,10 @@ import java.util.Map;
 public class AnalysisController {
 
     private final AnalysisService analysisService;
-    private final AssociationAnalyzer associationAnalyzer;
+    private final AnalysisCache analysisCache;
+    private final HeavyTaskService heavyTaskService;
+    private final DrawPushService drawPushService;
+    private final ColumnarTrendEncoder columnarTrendEncoder;
 
     /**
      * 频率分析页面
@@ -48,16 +62,25 @@ public class AnalysisController {
     }
 
     /**
-     * 频率数据API
+     * 频率数据API（传入 asOfIssue 时返回截至该期的统计）
      */
     @GetMapping("/api/frequency")
+    @ETagVersion
+    @Bulkhead("statistics")
     @ResponseBody
-    public Map<String, Object> getFrequencyData(@RequestParam(defaultValue = "0") Integer recentCount) {
+    public Map<String, Object> getFrequencyData(
+            @RequestParam(defaultValue = "0") Integer recentCount,
+            @RequestParam(required = false) String asOfIssue) {
         Integer count = recentCount > 0 ? recentCount : null;
         
         Map<String, Object> result = new HashMap<>();
-        result.put("front", analysisService.calculateFrontFrequency(count));
-        result.put("back", analysisService.calculateBackFrequency(count));
+        if (asOfIssue != null) {
+            result.put("front", analysisService.calculateFrontFrequency(count, asOfIssue));
+            result.put("back", analysisService.calculateBackFrequency(count, asOfIssue));
+        } else {
+            result.put("front", analysisService.calculateFrontFrequency(count));
+            result.put("back", analysisService.calculateBackFrequency(count));
+        }
         
         return result;
     }
@@ -77,14 +100,21 @@ public class AnalysisController {
     }
 
     /**
-     * 遗漏数据API
+     * 遗漏数据API（传入 asOfIssue 时返回截至该期的统计）
      */
     @GetMapping("/api/missing")
+    @ETagVersion
+    @Bulkhead("statistics")
     @ResponseBody
-    public Map<String, Object> getMissingData() {
+    public Map<String, Object> getMissingData(@RequestParam(required = false) String asOfIssue) {
         Map<String, Object> result = new HashMap<>();
-        result.put("front", analysisService.calculateFrontMissing());
-        result.put("back", analysisService.calculateBackMissing());
+        if (asOfIssue != null) {
+            result.put("front", analysisService.calculateFrontMissing(asOfIssue));
+            result.put("back", analysisService.calculateBackMissing(asOfIssue));
+        } else {
+            result.put("front", analysisService.calculateFrontMissing());
+            result.put("back", analysisService.calculateBackMissing());
+        }
         
         return result;
     }
@@ -105,11 +135,40 @@ public class AnalysisController {
      * 走势数据API
      */
     @GetMapping("/api/trend")
+    @ETagVersion
+    @Bulkhead("statistics")
     @ResponseBody
     public List<Map<String, Object>> getTrendData(@RequestParam(defaultValue = "30") Integer limit) {
         return analysisService.getTrendData(limit);
     }
 
+    /**
+     * 走势数据API（列式二进制，格式见 ColumnarTrendEncoder）
+     */
+    @GetMapping(value = "/api/trend/binary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @ETagVersion
+    @Bulkhead("statistics")
+    public ResponseEntity<byte[]> getTrendBinary(@RequestParam(defaultValue = "30") Integer limit) {
+        return ResponseEntity.ok(columnarTrendEncoder.encodeTrend(limit));
+    }
+
+    /**
+     * 单个号码走势API（出现位图，格式见 ColumnarTrendEncoder）
+     */
+    @GetMapping(value = "/api/numberTrend/binary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @ETagVersion
+    @Bulkhead("statistics")
+    public ResponseEntity<byte[]> getNumberTrendBinary(
+            @RequestParam Integer number,
+            @RequestParam(defaultValue = "front") String zone,
+            @RequestParam(defaultValue = "30") Integer limit) {
+        NumberZone numberZone = "back".equalsIgnoreCase(zone) ? NumberZone.BACK : NumberZone.FRONT;
+        if (number < numberZone.getMin() || number > numberZone.getMax()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(columnarTrendEncoder.encodeNumberTrend(numberZone, number, limit));
+    }
+
     /**
      * 综合统计页面
      */
@@ -145,18 +204,36 @@ public class AnalysisController {
      * 同号统计数据API
      */
     @GetMapping("/api/same")
+    @ETagVersion
+    @Bulkhead("statistics")
     @ResponseBody
     public List<SameNumberDTO> getSameNumberData() {
         return analysisService.findSameNumbers();
     }
 
+    /**
+     * 同号统计数据API（异步版本）：在重任务线程池中执行，不占用请求线程
+     */
+    @GetMapping("/api/same/async")
+    @Bulkhead("statistics")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> getSameNumberDataAsync() {
+        return heavyTaskService.submit("同号统计", () -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("data", analysisService.findSameNumbers());
+            return result;
+        });
+    }
+
     /**
      * 关联分析页面
      */
     @GetMapping("/association")
+    @Bulkhead("association")
     public String association(Model model, @RequestParam(defaultValue = "front") String zone) {
         NumberZone numberZone = "back".equalsIgnoreCase(zone) ? NumberZone.BACK : NumberZone.FRONT;
-        List<AssociationRule> rules = associationAnalyzer.mineAssociations(numberZone);
+        List<AssociationRule> rules = analysisService.mineAssociations(numberZone, null);
         
         model.addAttribute("rules", rules);
         model.addAttribute("zone", zone);
@@ -169,35 +246,97 @@ public class AnalysisController {
      * 关联分析数据API
      */
     @GetMapping("/api/association")
+    @ETagVersion
+    @Bulkhead("association")
     @ResponseBody
     public Map<String, Object> getAssociationData(
             @RequestParam(defaultValue = "front") String zone,
-            @RequestParam(defaultValue = "50") Integer topN) {
+            @RequestParam(defaultValue = "50") Integer topN,
+            @RequestParam(required = false) String asOfIssue) {
         NumberZone numberZone = "back".equalsIgnoreCase(zone) ? NumberZone.BACK : NumberZone.FRONT;
-        return associationAnalyzer.getAssociationNetwork(numberZone, topN);
+        return analysisService.getAssociationNetwork(numberZone, topN, asOfIssue);
+    }
+
+    /**
+     * 关联分析数据API（异步版本）：关联挖掘在重任务线程池中执行，不占用请求线程
+     */
+    @GetMapping("/api/association/async")
+    @Bulkhead("association")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> getAssociationDataAsync(
+            @RequestParam(defaultValue = "front") String zone,
+            @RequestParam(defaultValue = "50") Integer topN,
+            @RequestParam(required = false) String asOfIssue) {
+        NumberZone numberZone = "back".equalsIgnoreCase(zone) ? NumberZone.BACK : NumberZone.FRONT;
+        return heavyTaskService.submit("关联分析", () -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("data", analysisService.getAssociationNetwork(numberZone, topN, asOfIssue));
+            return result;
+        });
     }
 
     /**
      * 获取与指定号码关联的号码
      */
     @GetMapping("/api/related")
+    @Bulkhead("association")
     @ResponseBody
     public List<Integer> getRelatedNumbers(
             @RequestParam Integer number,
             @RequestParam(defaultValue = "front") String zone,
-            @RequestParam(defaultValue = "5") Integer topN) {
+            @RequestParam(defaultValue = "5") Integer topN,
+            @RequestParam(required = false) String asOfIssue) {
         NumberZone numberZone = "back".equalsIgnoreCase(zone) ? NumberZone.BACK : NumberZone.FRONT;
-        return associationAnalyzer.getRelatedNumbers(number, numberZone, topN);
+        return analysisService.getRelatedNumbers(number, numberZone, topN, asOfIssue);
     }
 
     /**
      * 连续期关联分析数据API
      */
     @GetMapping("/api/sequential")
+    @Bulkhead("association")
     @ResponseBody
     public List<AssociationRule> getSequentialAssociations(
-            @RequestParam(defaultValue = "front") String zone) {
+            @RequestParam(defaultValue = "front") String zone,
+            @RequestParam(required = false) String asOfIssue) {
+        NumberZone numberZone = "back".equalsIgnoreCase(zone) ? NumberZone.BACK : NumberZone.FRONT;
+        return analysisService.mineSequentialAssociations(numberZone, asOfIssue);
+    }
+
+    /**
+     * 号码共现矩阵API（列式二进制，格式见 ColumnarTrendEncoder）
+     */
+    @GetMapping(value = "/api/cooccurrence/binary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @ETagVersion
+    @Bulkhead("statistics")
+    public ResponseEntity<byte[]> getCoOccurrenceBinary(
+            @RequestParam(defaultValue = "front") String zone,
+            @RequestParam(required = false) String asOfIssue) {
         NumberZone numberZone = "back".equalsIgnoreCase(zone) ? NumberZone.BACK : NumberZone.FRONT;
-        return associationAnalyzer.mineSequentialAssociations(numberZone);
+        return ResponseEntity.ok(columnarTrendEncoder.encodeCoOccurrence(numberZone, asOfIssue));
+    }
+
+    /**
+     * 分析结果缓存的命中统计
+     */
+    @GetMapping("/api/cache/stats")
+    @ResponseBody
+    public Map<String, Object> getCacheStats() {
+        return analysisCache.getStats();
+    }
+
+    /**
+     * 订阅新开奖推送（SSE）：新开奖处理完成后推送频率、遗漏、走势与权重的增量
+     * 舱壁许可在连接期间一直占用，订阅数超出上限时返回 503
+     */
+    @GetMapping(value = "/api/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Bulkhead("push")
+    public ResponseEntity<SseEmitter> stream() {
+        SseEmitter emitter = drawPushService.subscribe();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 }
@@ -1,6 +1,10 @@
 package com.hobart.lottery.controller;
 
+import com.hobart.lottery.config.Bulkhead;
+import com.hobart.lottery.config.ETagVersion;
+import com.hobart.lottery.config.LotteryConfig;
 import com.hobart.lottery.entity.MethodWeight;
+import com.hobart.lottery.entity.MethodWeightHistory;
 import com.hobart.lottery.service.learning.AdaptivePredictor;
 import com.hobart.lottery.service.learning.WeightAdjuster;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +13,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +28,7 @@ public class LearningController {
 
     private final WeightAdjuster weightAdjuster;
     private final AdaptivePredictor adaptivePredictor;
+    private final LotteryConfig lotteryConfig;
 
     /**
      * 权重展示页面
@@ -45,8 +51,10 @@ public class LearningController {
 
     /**
      * 获取权重概览数据（用于图表）
+     * 以学习版本作为 ETag，权重未变时条件请求返回 304
      */
     @GetMapping("/api/weights/chart")
+    @ETagVersion(ETagVersion.Source.LEARNING)
     @ResponseBody
     public Map<String, Object> getWeightsChartData() {
         List<MethodWeight> weights = weightAdjuster.getAllMethodWeights();
@@ -74,6 +82,53 @@ public class LearningController {
         return result;
     }
 
+    /**
+     * 获取权重历史（用于绘制权重演变曲线）
+     * 按列返回：issues 为期号轴，methods 下每个方法的 weights/hitRates 与之一一对应，缺失的期为 null；
+     * limit 需在 1 到 learning.max-weight-history-issues 之间
+     */
+    @GetMapping("/api/weights/history")
+    @ResponseBody
+    public Map<String, Object> getWeightHistory(
+            @RequestParam(required = false) String fromIssue,
+            @RequestParam(required = false) String toIssue,
+            @RequestParam(defaultValue = "1000") Integer limit) {
+        int maxIssues = lotteryConfig.getLearning().getMaxWeightHistoryIssues();
+        if (limit < 1 || limit > maxIssues) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "limit 需在 1 到 " + maxIssues + " 之间");
+            return result;
+        }
+        List<MethodWeightHistory> rows = weightAdjuster.getWeightHistory(fromIssue, toIssue, limit);
+        
+        // 期号 -> 列下标
+        Map<String, Integer> issueIndex = new LinkedHashMap<>();
+        for (MethodWeightHistory row : rows) {
+            issueIndex.putIfAbsent(row.getIssue(), issueIndex.size());
+        }
+        int size = issueIndex.size();
+        
+        Map<String, Map<String, Object[]>> methods = new LinkedHashMap<>();
+        for (MethodWeightHistory row : rows) {
+            Map<String, Object[]> series = methods.computeIfAbsent(row.getMethodCode(), k -> {
+                Map<String, Object[]> columns = new LinkedHashMap<>();
+                columns.put("weights", new Object[size]);
+                columns.put("hitRates", new Object[size]);
+                return columns;
+            });
+            int idx = issueIndex.get(row.getIssue());
+            series.get("weights")[idx] = row.getWeight() != null ? row.getWeight().doubleValue() : null;
+            series.get("hitRates")[idx] = row.getHitRate() != null ? row.getHitRate().doubleValue() : null;
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("issues", issueIndex.keySet());
+        result.put("methods", methods);
+        return result;
+    }
+
     /**
      * 重置所有权重
      */
@@ -96,10 +151,12 @@ public class LearningController {
      * 如需保存预测记录并参与验证，请使用 /prediction/generate?method=ADAPTIVE
      */
     @GetMapping("/api/predict")
+    @Bulkhead("generation")
     @ResponseBody
     public Map<String, Object> adaptivePredict(@RequestParam(defaultValue = "1") Integer count) {
         Map<String, Object> result = new HashMap<>();
-        result.put("predictions", adaptivePredictor.predictMultiple(count));
+        int limited = Math.min(count, lotteryConfig.getBulkhead().getMaxGenerateCount());
+        result.put("predictions", adaptivePredictor.predictMultiple(limited));
         result.put("weights", adaptivePredictor.getCurrentWeights());
         result.put("notice", "此为预览，如需保存记录请前往预测页面选择'自适应预测'方法");
         
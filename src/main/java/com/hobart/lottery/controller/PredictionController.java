@@ -1,16 +1,31 @@
 package com.hobart.lottery.controller;
 
+import com.hobart.lottery.config.Bulkhead;
+import com.hobart.lottery.config.LotteryConfig;
 import com.hobart.lottery.dto.PredictionResultDTO;
+import com.hobart.lottery.service.HeavyTaskService;
 import com.hobart.lottery.service.LotteryService;
 import com.hobart.lottery.service.PredictionService;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
+import com.hobart.lottery.service.backtest.BacktestReport;
+import com.hobart.lottery.service.backtest.BacktestService;
+import com.hobart.lottery.service.backtest.SweepService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 预测控制器
@@ -22,6 +37,10 @@ public class PredictionController {
 
     private final PredictionService predictionService;
     private final LotteryService lotteryService;
+    private final BacktestService backtestService;
+    private final SweepService sweepService;
+    private final HeavyTaskService heavyTaskService;
+    private final LotteryConfig lotteryConfig;
 
     /**
      * 预测页面
@@ -37,13 +56,105 @@ public class PredictionController {
      * 生成预测：全部生成（每种方法 count 注），并自动为每种方法推荐一注最可能预测。
      */
     @PostMapping("/generate")
+    @Bulkhead("generation")
     @ResponseBody
     public Map<String, Object> generate(
             @RequestParam(defaultValue = "5") Integer count,
             @RequestParam(required = false) String targetIssue) {
+        return generateResult(count, targetIssue);
+    }
+
+    /**
+     * 生成预测（异步版本）：在重任务线程池中执行，不占用请求线程
+     */
+    @PostMapping("/generate/async")
+    @Bulkhead("generation")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> generateAsync(
+            @RequestParam(defaultValue = "5") Integer count,
+            @RequestParam(required = false) String targetIssue) {
+        return heavyTaskService.submit("生成预测", () -> generateResult(count, targetIssue));
+    }
+
+    /**
+     * 流式生成预测（Server-Sent Events）：每生成一注推送一个 ticket 事件，全部保存后推送 done 事件。
+     * 预测分批在后台保存，适合大批量生成；客户端断开后停止生成。
+     * done 事件给出请求、实际生成与已保存的注数，去重补不足时实际生成数少于请求数；预测方法不存在时返回 400
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Bulkhead("stream")
+    public ResponseEntity<SseEmitter> generateStream(
+            @RequestParam(defaultValue = "100") Integer count,
+            @RequestParam(required = false) String method,
+            @RequestParam(required = false) String targetIssue) {
+        if (method != null && !method.isEmpty() && !"ALL".equalsIgnoreCase(method)
+                && parseEnum(PredictMethod.class, method) == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        LotteryConfig.PredictionConfig config = lotteryConfig.getPrediction();
+        SseEmitter emitter = new SseEmitter(config.getStreamTimeoutMs());
+
+        if (count > config.getMaxStreamCount()) {
+            return ResponseEntity.ok(failedStream(emitter, "单次最多流式生成 " + config.getMaxStreamCount() + " 注"));
+        }
+        String issue = targetIssue == null || targetIssue.isEmpty() ? lotteryService.generateNextIssue() : targetIssue;
+
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+
+        boolean accepted = heavyTaskService.tryExecuteStream(() -> {
+            try {
+                PredictionService.StreamResult result = predictionService.generateStreaming(count, method, issue, dto -> {
+                    if (closed.get()) {
+                        throw new IllegalStateException("客户端已断开");
+                    }
+                    try {
+                        emitter.send(SseEmitter.event().name("ticket").data(dto));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(Map.of(
+                    "targetIssue", issue,
+                    "requested", result.requested(),
+                    "emitted", result.emitted(),
+                    "saved", result.saved())));
+                emitter.complete();
+            } catch (Exception e) {
+                if (closed.get() || e instanceof UncheckedIOException) {
+                    emitter.complete();
+                } else {
+                    failedStream(emitter, "生成失败: " + e.getMessage());
+                }
+            }
+        });
+        return ResponseEntity.ok(accepted ? emitter : failedStream(emitter, "系统繁忙，请稍后重试"));
+    }
 
+    /**
+     * 推送 error 事件并结束流
+     */
+    private static SseEmitter failedStream(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("success", false, "message", message)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private Map<String, Object> generateResult(Integer count, String targetIssue) {
         Map<String, Object> result = new HashMap<>();
 
+        int maxCount = lotteryConfig.getBulkhead().getMaxGenerateCount();
+        if (count > maxCount) {
+            result.put("success", false);
+            result.put("message", "单次最多生成 " + maxCount + " 注");
+            return result;
+        }
+
         try {
             Map<String, Object> data = predictionService.generateAllThenRecommend(count, targetIssue);
             @SuppressWarnings("unchecked")
@@ -94,4 +205,113 @@ public class PredictionController {
     public List<PredictionResultDTO> getRecent(@RequestParam(defaultValue = "20") Integer limit) {
         return predictionService.getRecentPredictions(limit);
     }
+
+    /**
+     * 历史回测：在每期开奖前的历史视图上生成预测并按中奖规则计分
+     */
+    @PostMapping("/api/backtest")
+    @Bulkhead("backtest")
+    @ResponseBody
+    public Map<String, Object> backtest(
+            @RequestParam(required = false) List<String> methods,
+            @RequestParam(required = false) Integer tickets,
+            @RequestParam(required = false) String fromIssue,
+            @RequestParam(required = false) String toIssue) {
+        Map<String, Object> result = new HashMap<>();
+
+        List<PredictMethod> selected = new ArrayList<>();
+        if (methods != null) {
+            for (String method : methods) {
+                PredictMethod parsed = parseEnum(PredictMethod.class, method);
+                if (parsed == null) {
+                    result.put("success", false);
+                    result.put("message", "未知的预测方法: " + method);
+                    return result;
+                }
+                selected.add(parsed);
+            }
+        }
+
+        int maxTickets = lotteryConfig.getBulkhead().getMaxGenerateCount();
+        if (tickets != null && (tickets < 1 || tickets > maxTickets)) {
+            result.put("success", false);
+            result.put("message", "每期注数需在 1 到 " + maxTickets + " 之间");
+            return result;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            BacktestReport report = backtestService.run(selected, tickets, fromIssue, toIssue);
+            result.put("success", true);
+            result.put("report", report.toMap());
+            result.put("elapsedMs", System.currentTimeMillis() - start);
+            result.put("message", "回测完成，共 " + report.getIssues() + " 期");
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "回测失败: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * 参数寻优：在历史上回放评估分析/学习参数组合，未传的参数取当前配置值
+     */
+    @PostMapping("/api/sweep")
+    @Bulkhead("backtest")
+    @ResponseBody
+    public Map<String, Object> sweep(
+            @RequestParam(required = false) List<Integer> hotColdPeriod,
+            @RequestParam(required = false) List<Integer> missingPeriod,
+            @RequestParam(required = false) List<Integer> associationPeriod,
+            @RequestParam(required = false) List<Double> minSupport,
+            @RequestParam(required = false) List<Double> minConfidence,
+            @RequestParam(required = false) List<Double> emaAlpha,
+            @RequestParam(defaultValue = "0") Integer maxConfigs,
+            @RequestParam(defaultValue = "0") Long seed,
+            @RequestParam(defaultValue = "HOT_HITS") String objective,
+            @RequestParam(defaultValue = "20") Integer topN) {
+        Map<String, Object> result = new HashMap<>();
+
+        SweepService.Objective order = parseEnum(SweepService.Objective.class, objective);
+        if (order == null) {
+            result.put("success", false);
+            result.put("message", "未知的排序目标: " + objective);
+            return result;
+        }
+        if (maxConfigs < 0) {
+            result.put("success", false);
+            result.put("message", "maxConfigs 不能为负数");
+            return result;
+        }
+
+        try {
+            List<SweepService.Params> grid = sweepService.expandGrid(hotColdPeriod, missingPeriod,
+                associationPeriod, minSupport, minConfidence, emaAlpha, maxConfigs, seed);
+
+            long start = System.currentTimeMillis();
+            List<SweepService.Result> results = sweepService.run(grid, order);
+            result.put("success", true);
+            result.put("configs", grid.size());
+            result.put("elapsedMs", System.currentTimeMillis() - start);
+            result.put("results", results.size() > topN ? results.subList(0, topN) : results);
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "参数寻优失败: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * 按名称（忽略大小写）查找枚举值，不存在时返回 null
+     */
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name) {
+        for (E value : type.getEnumConstants()) {
+            if (value.name().equalsIgnoreCase(name)) {
+                return value;
+            }
+        }
+        return null;
+    }
 }
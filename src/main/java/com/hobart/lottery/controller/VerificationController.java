@@ -1,10 +1,21 @@
 package com.hobart.lottery.controller;
 
+import com.hobart.lottery.config.Bulkhead;
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.domain.model.TicketMask;
 import com.hobart.lottery.dto.AccuracyStatsDTO;
 import com.hobart.lottery.dto.PredictionResultDTO;
 import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.service.BulkVerificationProgress;
+import com.hobart.lottery.service.BulkVerificationService;
+import com.hobart.lottery.service.HeavyTaskService;
 import com.hobart.lottery.service.LotteryService;
+import com.hobart.lottery.service.StreamingVerificationService;
 import com.hobart.lottery.service.VerificationService;
+import com.hobart.lottery.service.backtest.RandomBaselineService;
+import com.hobart.lottery.service.index.PredictionHitIndex;
+import com.hobart.lottery.service.index.PredictionIndexService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 验证控制器
@@ -24,6 +36,15 @@ public class VerificationController {
 
     private final VerificationService verificationService;
     private final LotteryService lotteryService;
+    private final BulkVerificationService bulkVerificationService;
+    private final StreamingVerificationService streamingVerificationService;
+    private final PredictionIndexService predictionIndexService;
+    private final RandomBaselineService randomBaselineService;
+    private final HeavyTaskService heavyTaskService;
+    private final LotteryConfig lotteryConfig;
+
+    /** 反查高命中预测单次返回的最大条数 */
+    private static final int MAX_HITS_LIMIT = 10000;
 
     /**
      * 验证页面
@@ -45,8 +66,23 @@ public class VerificationController {
      * 执行验证
      */
     @PostMapping("/execute")
+    @Bulkhead("verification")
     @ResponseBody
     public Map<String, Object> executeVerification(@RequestParam String issue) {
+        return verificationResult(issue);
+    }
+
+    /**
+     * 执行验证（异步版本）：在重任务线程池中执行，不占用请求线程
+     */
+    @PostMapping("/execute/async")
+    @Bulkhead("verification")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> executeVerificationAsync(@RequestParam String issue) {
+        return heavyTaskService.submit("验证", () -> verificationResult(issue));
+    }
+
+    private Map<String, Object> verificationResult(String issue) {
         Map<String, Object> result = new HashMap<>();
         
         try {
@@ -76,6 +112,70 @@ public class VerificationController {
         return result;
     }
 
+    /**
+     * 流式验证（单期预测量极大时使用，不返回逐条明细，只返回中奖等级分布）
+     */
+    @PostMapping("/executeStreaming")
+    @Bulkhead("verification")
+    @ResponseBody
+    public Map<String, Object> executeStreaming(@RequestParam String issue) {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            if (!verificationService.hasDrawResult(issue)) {
+                result.put("success", false);
+                result.put("message", "期号 " + issue + " 还没有开奖结果，无法验证");
+                return result;
+            }
+
+            Map<String, Object> report = streamingVerificationService.verify(issue, null).toMap();
+            result.put("success", true);
+            result.put("report", report);
+            result.put("message", "成功验证 " + report.get("processed") + " 条预测记录");
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "验证失败: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * 批量验证所有已开奖的待验证期号（后台执行）
+     */
+    @PostMapping("/executeAll")
+    @ResponseBody
+    public Map<String, Object> executeAll() {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            Map<String, Object> progress = bulkVerificationService.start().toMap();
+            result.put("success", true);
+            result.put("progress", progress);
+            result.put("message", "批量验证已启动，共 " + progress.get("totalIssues") + " 期可验证");
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "批量验证启动失败: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * 获取批量验证进度
+     */
+    @GetMapping("/api/bulkProgress")
+    @ResponseBody
+    public Map<String, Object> bulkProgress() {
+        Map<String, Object> result = new HashMap<>();
+        BulkVerificationProgress progress = bulkVerificationService.getCurrent();
+        result.put("exists", progress != null);
+        if (progress != null) {
+            result.put("progress", progress.toMap());
+        }
+        return result;
+    }
+
     /**
      * 准确率统计页面
      */
@@ -95,6 +195,96 @@ public class VerificationController {
         return verificationService.getAllAccuracyStats();
     }
 
+    /**
+     * 各方法准确率与随机投注基线的显著性比较（蒙特卡洛模拟）
+     */
+    @GetMapping("/api/stats/baseline")
+    @Bulkhead("backtest")
+    @ResponseBody
+    public Map<String, Object> baseline(
+            @RequestParam(required = false) Long ticketsPerIssue,
+            @RequestParam(defaultValue = "20240101") Long seed) {
+        Map<String, Object> result = new HashMap<>();
+
+        long maxTickets = lotteryConfig.getBacktest().getMaxBaselineTicketsPerIssue();
+        if (ticketsPerIssue != null && (ticketsPerIssue < 1 || ticketsPerIssue > maxTickets)) {
+            result.put("success", false);
+            result.put("message", "每期模拟注数需在 1 到 " + maxTickets + " 之间");
+            return result;
+        }
+
+        try {
+            result.putAll(randomBaselineService.compare(ticketsPerIssue, seed));
+            result.put("success", true);
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "随机基线模拟失败: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * 全量重建准确率统计（统计字段初始化或修复时使用）
+     */
+    @PostMapping("/api/stats/rebuild")
+    @ResponseBody
+    public Map<String, Object> rebuildStats() {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            verificationService.updateAccuracyStats();
+            result.put("success", true);
+            result.put("message", "准确率统计已重建");
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "重建失败: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * 反查高命中预测：通过倒排索引找出前区命中数不少于 minFront 的预测
+     * 未传 front/back 时使用该期开奖结果；limit 限制在 0 到 MAX_HITS_LIMIT 之间
+     */
+    @GetMapping("/api/hits")
+    @ResponseBody
+    public Map<String, Object> findHits(
+            @RequestParam String issue,
+            @RequestParam(defaultValue = "4") Integer minFront,
+            @RequestParam(required = false) int[] front,
+            @RequestParam(required = false) int[] back,
+            @RequestParam(defaultValue = "1000") Integer limit) {
+        Map<String, Object> result = new HashMap<>();
+
+        long drawMask;
+        if (front != null || back != null) {
+            if (!TicketMask.isValid(front, NumberZone.FRONT) || !TicketMask.isValid(back, NumberZone.BACK)) {
+                result.put("success", false);
+                result.put("message", "号码不合法：前区需 5 个 1-35 的不重复号码，后区需 2 个 1-12 的不重复号码");
+                return result;
+            }
+            drawMask = TicketMask.pack(front, back);
+        } else {
+            LotteryResult lr = lotteryService.getByIssue(issue);
+            if (lr == null) {
+                result.put("success", false);
+                result.put("message", "期号 " + issue + " 还没有开奖结果，请传入 front/back 号码");
+                return result;
+            }
+            drawMask = TicketMask.pack(lr);
+        }
+
+        int max = Math.max(0, Math.min(limit, MAX_HITS_LIMIT));
+        List<PredictionHitIndex.Hit> hits = predictionIndexService.findByFrontHits(issue, drawMask, minFront);
+        result.put("success", true);
+        result.put("total", hits.size());
+        result.put("hits", hits.size() > max ? hits.subList(0, max) : hits);
+
+        return result;
+    }
+
     /**
      * 检查期号是否有开奖结果
      */
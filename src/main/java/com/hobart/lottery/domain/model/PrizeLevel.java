@@ -0,0 +1,71 @@
+package com.hobart.lottery.domain.model;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 中奖等级（大乐透官方规则）
+ * 按命中数组合查表判定，供验证、回测等高频计分场景使用
+ */
+@Getter
+public enum PrizeLevel {
+
+    NONE(0, "未中奖"),
+    FIRST(1, "一等奖"),
+    SECOND(2, "二等奖"),
+    THIRD(3, "三等奖"),
+    FOURTH(4, "四等奖"),
+    FIFTH(5, "五等奖"),
+    SIXTH(6, "六等奖"),
+    SEVENTH(7, "七等奖");
+
+    /** 等级序号，0 表示未中奖 */
+    private final int level;
+    /** 显示名称 */
+    private final String displayName;
+
+    /** [前区命中数][后区命中数] -> 等级 */
+    private static final PrizeLevel[][] TABLE = new PrizeLevel[6][3];
+
+    static {
+        for (PrizeLevel[] row : TABLE) {
+            Arrays.fill(row, NONE);
+        }
+        TABLE[5][2] = FIRST;
+        TABLE[5][1] = SECOND;
+        TABLE[5][0] = THIRD;
+        TABLE[4][2] = THIRD;
+        TABLE[4][1] = FOURTH;
+        TABLE[4][0] = FIFTH;
+        TABLE[3][2] = FIFTH;
+        TABLE[3][1] = SIXTH;
+        TABLE[2][2] = SIXTH;
+        TABLE[3][0] = SEVENTH;
+        TABLE[2][1] = SEVENTH;
+        TABLE[1][2] = SEVENTH;
+        TABLE[0][2] = SEVENTH;
+    }
+
+    PrizeLevel(int level, String displayName) {
+        this.level = level;
+        this.displayName = displayName;
+    }
+
+    /**
+     * 根据命中数判定中奖等级
+     */
+    public static PrizeLevel of(int frontHit, int backHit) {
+        if (frontHit < 0 || frontHit > 5 || backHit < 0 || backHit > 2) {
+            return NONE;
+        }
+        return TABLE[frontHit][backHit];
+    }
+
+    /**
+     * 是否中奖
+     */
+    public boolean isWinning() {
+        return this != NONE;
+    }
+}
@@ -0,0 +1,112 @@
+package com.hobart.lottery.domain.model;
+
+import com.hobart.lottery.entity.LotteryResult;
+
+/**
+ * 号码位掩码工具
+ * 一注号码压缩为一个 long：第 0-34 位表示前区 1-35，第 40-51 位表示后区 1-12，
+ * 命中数即两注掩码按位与后的 bitCount
+ */
+public final class TicketMask {
+
+    /** 后区号码起始位 */
+    public static final int BACK_SHIFT = 40;
+
+    /** 前区位段 */
+    public static final long FRONT_BITS = (1L << 35) - 1;
+
+    /** 后区位段 */
+    public static final long BACK_BITS = ((1L << 12) - 1) << BACK_SHIFT;
+
+    private TicketMask() {
+    }
+
+    /**
+     * 前区号码掩码
+     */
+    public static long frontMask(int[] balls) {
+        long mask = 0;
+        for (int ball : balls) {
+            mask |= 1L << (ball - 1);
+        }
+        return mask;
+    }
+
+    /**
+     * 后区号码掩码（已左移到后区位段）
+     */
+    public static long backMask(int[] balls) {
+        long mask = 0;
+        for (int ball : balls) {
+            mask |= 1L << (BACK_SHIFT + ball - 1);
+        }
+        return mask;
+    }
+
+    /**
+     * 号码个数、范围正确且互不重复（外部传入的号码压缩前校验，越界号码会置错位）
+     */
+    public static boolean isValid(int[] balls, NumberZone zone) {
+        if (balls == null || balls.length != zone.getCount()) {
+            return false;
+        }
+        long seen = 0;
+        for (int ball : balls) {
+            if (ball < zone.getMin() || ball > zone.getMax() || (seen & 1L << ball) != 0) {
+                return false;
+            }
+            seen |= 1L << ball;
+        }
+        return true;
+    }
+
+    /**
+     * 压缩一注号码
+     */
+    public static long pack(int[] front, int[] back) {
+        return frontMask(front) | backMask(back);
+    }
+
+    /**
+     * 压缩一期开奖号码
+     */
+    public static long pack(LotteryResult result) {
+        return pack(result.getFrontBallArray(), result.getBackBallArray());
+    }
+
+    /**
+     * 前区命中数
+     */
+    public static int frontHits(long ticket, long draw) {
+        return Long.bitCount(ticket & draw & FRONT_BITS);
+    }
+
+    /**
+     * 后区命中数
+     */
+    public static int backHits(long ticket, long draw) {
+        return Long.bitCount(ticket & draw & BACK_BITS);
+    }
+
+    /**
+     * 判断掩码中是否包含指定区域的号码
+     */
+    public static boolean contains(long mask, NumberZone zone, int number) {
+        int bit = zone == NumberZone.FRONT ? number - 1 : BACK_SHIFT + number - 1;
+        return (mask >>> bit & 1L) != 0;
+    }
+
+    /**
+     * 还原指定区域的号码（升序）
+     */
+    public static int[] balls(long mask, NumberZone zone) {
+        long bits = zone == NumberZone.FRONT ? mask & FRONT_BITS : (mask & BACK_BITS) >>> BACK_SHIFT;
+        int[] balls = new int[Long.bitCount(bits)];
+        int i = 0;
+        while (bits != 0) {
+            balls[i++] = Long.numberOfTrailingZeros(bits) + 1;
+            bits &= bits - 1;
+        }
+        return balls;
+    }
+}
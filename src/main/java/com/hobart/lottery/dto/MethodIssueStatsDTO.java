@@ -0,0 +1,42 @@
+package com.hobart.lottery.dto;
+
+import lombok.Data;
+
+/**
+ * 按期汇总的方法命中统计DTO
+ * 先求每期内各注的平均值，再在期之间平均；同一期的多注面对同一个开奖结果，
+ * 不是独立样本，显著性检验以期为单位
+ */
+@Data
+public class MethodIssueStatsDTO {
+
+    /**
+     * 预测方法
+     */
+    private String predictMethod;
+
+    /**
+     * 已验证的期数
+     */
+    private Integer issues;
+
+    /**
+     * 已验证的注数
+     */
+    private Integer tickets;
+
+    /**
+     * 每期前区平均命中数的期间平均
+     */
+    private Double frontAvgHit;
+
+    /**
+     * 每期后区平均命中数的期间平均
+     */
+    private Double backAvgHit;
+
+    /**
+     * 每期中奖注数占比的期间平均
+     */
+    private Double winRate;
+}
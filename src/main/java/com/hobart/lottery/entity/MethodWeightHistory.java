@@ -0,0 +1,56 @@
+package com.hobart.lottery.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 方法权重历史实体
+ * 每期验证学习后各方法的权重快照，每期每方法一行
+ */
+@Data
+@TableName("prediction_method_weight_history")
+public class MethodWeightHistory {
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 验证的期号
+     */
+    private String issue;
+    
+    /**
+     * 方法代码
+     */
+    private String methodCode;
+    
+    /**
+     * 该期学习后的权重
+     */
+    private BigDecimal weight;
+    
+    /**
+     * 该期学习后的命中率（EMA）
+     */
+    private BigDecimal hitRate;
+    
+    /**
+     * 截至该期的总预测次数
+     */
+    private Integer totalPredictions;
+    
+    /**
+     * 截至该期的命中次数
+     */
+    private Integer totalHits;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+}
@@ -39,6 +39,16 @@ public class PredictionAccuracy {
      */
     private BigDecimal backAvgHit;
 
+    /**
+     * 前区命中数累计（用于增量计算平均值）
+     */
+    private Long frontHitSum;
+
+    /**
+     * 后区命中数累计（用于增量计算平均值）
+     */
+    private Long backHitSum;
+
     /**
      * 一等奖次数
      */
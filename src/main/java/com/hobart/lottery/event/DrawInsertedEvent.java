@@ -0,0 +1,18 @@
+package com.hobart.lottery.event;
+
+import com.hobart.lottery.entity.LotteryResult;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 新开奖结果入库事件
+ */
+@Getter
+@RequiredArgsConstructor
+public class DrawInsertedEvent {
+
+    /**
+     * 已保存（含统计字段）的开奖结果
+     */
+    private final LotteryResult result;
+}
@@ -0,0 +1,56 @@
+package com.hobart.lottery.event;
+
+import com.hobart.lottery.dto.PredictionResultDTO;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.service.DashboardService;
+import com.hobart.lottery.service.DrawPushService;
+import com.hobart.lottery.service.VerificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * 开奖入库后的自动处理流水线
+ * 在独立的单线程池中按入库顺序执行，不占用请求线程：
+ * 验证该期预测 -> 更新准确率统计 -> 更新方法权重 -> 预热首页快照 -> 向订阅客户端推送增量
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DrawInsertedListener {
+
+    private final VerificationService verificationService;
+    private final DashboardService dashboardService;
+    private final DrawPushService drawPushService;
+
+    @Async("pipelineExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrawInserted(DrawInsertedEvent event) {
+        LotteryResult result = event.getResult();
+        log.info("期号 {} 开奖结果已入库，开始自动处理", result.getIssue());
+
+        try {
+            // 验证内部会增量更新准确率统计和方法权重
+            List<PredictionResultDTO> verified = verificationService.verifyPredictions(result);
+            log.info("期号 {} 自动验证完成，共 {} 条预测", result.getIssue(), verified.size());
+        } catch (Exception e) {
+            log.error("期号 {} 自动验证失败: {}", result.getIssue(), e.getMessage(), e);
+        }
+
+        try {
+            dashboardService.getSnapshot();
+        } catch (Exception e) {
+            log.warn("期号 {} 首页快照预热失败: {}", result.getIssue(), e.getMessage());
+        }
+
+        try {
+            drawPushService.publish(result);
+        } catch (Exception e) {
+            log.warn("期号 {} 增量推送失败: {}", result.getIssue(), e.getMessage());
+        }
+    }
+}
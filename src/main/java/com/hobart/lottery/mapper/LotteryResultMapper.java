@@ -3,8 +3,10 @@ package com.hobart.lottery.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hobart.lottery.entity.LotteryResult;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,4 +32,12 @@ public interface LotteryResultMapper extends BaseMapper<LotteryResult> {
      */
     @Select("SELECT * FROM lottery_results WHERE issue = #{issue}")
     LotteryResult selectByIssue(String issue);
+
+    /**
+     * 根据期号批量查询
+     */
+    @Select("<script>SELECT * FROM lottery_results WHERE issue IN " +
+            "<foreach collection='issues' item='issue' open='(' separator=',' close=')'>#{issue}</foreach>" +
+            "</script>")
+    List<LotteryResult> selectByIssues(@Param("issues") Collection<String> issues);
 }
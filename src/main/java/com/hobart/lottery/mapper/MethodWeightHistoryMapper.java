@@ -0,0 +1,43 @@
+package com.hobart.lottery.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hobart.lottery.entity.MethodWeightHistory;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 方法权重历史 Mapper
+ */
+@Mapper
+public interface MethodWeightHistoryMapper extends BaseMapper<MethodWeightHistory> {
+    
+    /**
+     * 把当前权重表整体复制为某期的快照（一条 INSERT ... SELECT）
+     * 同一期分多批学习时覆盖为最后一批后的状态
+     */
+    @Insert("INSERT INTO prediction_method_weight_history " +
+            "(issue, method_code, weight, hit_rate, total_predictions, total_hits) " +
+            "SELECT * FROM (SELECT #{issue} AS issue, method_code, weight, hit_rate, total_predictions, total_hits " +
+            "FROM prediction_method_weight) src " +
+            "ON DUPLICATE KEY UPDATE weight = src.weight, hit_rate = src.hit_rate, " +
+            "total_predictions = src.total_predictions, total_hits = src.total_hits")
+    int snapshotCurrent(@Param("issue") String issue);
+    
+    /**
+     * 按期号范围查询（不传范围时取最近的记录），按期号降序
+     * 
+     * @param limit 最多返回的行数
+     */
+    @Select("<script>SELECT issue, method_code, weight, hit_rate, total_predictions, total_hits " +
+            "FROM prediction_method_weight_history WHERE 1 = 1 " +
+            "<if test='fromIssue != null'>AND issue &gt;= #{fromIssue} </if>" +
+            "<if test='toIssue != null'>AND issue &lt;= #{toIssue} </if>" +
+            "ORDER BY issue DESC, method_code LIMIT #{limit}</script>")
+    List<MethodWeightHistory> selectRange(@Param("fromIssue") String fromIssue,
+                                          @Param("toIssue") String toIssue,
+                                          @Param("limit") int limit);
+}
@@ -3,8 +3,11 @@ package com.hobart.lottery.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hobart.lottery.entity.MethodWeight;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -24,4 +27,48 @@ public interface MethodWeightMapper extends BaseMapper<MethodWeight> {
      */
     @Select("SELECT * FROM prediction_method_weight ORDER BY weight DESC")
     List<MethodWeight> selectAllOrderByWeight();
+    
+    /**
+     * 按主键顺序锁定全部权重行，保证并发学习的事务加锁顺序一致、不会死锁
+     */
+    @Select("SELECT id FROM prediction_method_weight ORDER BY id FOR UPDATE")
+    List<Long> lockAll();
+    
+    /**
+     * 原子累加一批验证结果
+     * 连续 n 次 EMA 展开为 hit_rate * (1-α)^n + contribution，由数据库基于当前值计算，不会丢失并发更新
+     * 
+     * @param decay (1-α)^n
+     * @param contribution 本批命中序列从 0 起算的 EMA 值
+     */
+    @Update("UPDATE prediction_method_weight SET " +
+            "total_predictions = IFNULL(total_predictions, 0) + #{count}, " +
+            "total_hits = IFNULL(total_hits, 0) + #{hits}, " +
+            "hit_rate = ROUND(IFNULL(hit_rate, 0) * #{decay} + #{contribution}, 4), " +
+            "updated_at = NOW() " +
+            "WHERE method_code = #{methodCode}")
+    int applyOutcomes(@Param("methodCode") String methodCode, @Param("count") int count, @Param("hits") int hits,
+                      @Param("decay") double decay, @Param("contribution") double contribution);
+    
+    /**
+     * 按命中率归一化全部权重（命中率总和为 0 时使用默认权重）
+     */
+    @Update("UPDATE prediction_method_weight w " +
+            "JOIN (SELECT IFNULL(SUM(hit_rate), 0) AS total FROM prediction_method_weight) t " +
+            "SET w.weight = IF(t.total > 0, ROUND(IFNULL(w.hit_rate, 0) / t.total, 4), #{defaultWeight}), " +
+            "w.updated_at = NOW()")
+    int normalizeWeights(@Param("defaultWeight") double defaultWeight);
+    
+    /**
+     * 更新单个方法的权重
+     */
+    @Update("UPDATE prediction_method_weight SET weight = #{weight}, updated_at = NOW() WHERE method_code = #{methodCode}")
+    int updateWeight(@Param("methodCode") String methodCode, @Param("weight") BigDecimal weight);
+    
+    /**
+     * 重置全部权重与统计
+     */
+    @Update("UPDATE prediction_method_weight SET weight = #{initialWeight}, hit_rate = 0, " +
+            "total_predictions = 0, total_hits = 0, updated_at = NOW()")
+    int resetAll(@Param("initialWeight") double initialWeight);
 }
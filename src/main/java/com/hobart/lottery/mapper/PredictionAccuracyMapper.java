@@ -2,8 +2,10 @@ package com.hobart.lottery.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hobart.lottery.entity.PredictionAccuracy;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 
@@ -24,4 +26,53 @@ public interface PredictionAccuracyMapper extends BaseMapper<PredictionAccuracy>
      */
     @Select("SELECT * FROM prediction_accuracy ORDER BY front_avg_hit DESC")
     List<PredictionAccuracy> selectAllStats();
+
+    /**
+     * 累加一批验证结果的增量（不存在则插入）
+     * 平均命中数由累计命中数 / 总次数重新得出，MySQL 按顺序求值，使用的是累加后的值
+     */
+    @Insert("INSERT INTO prediction_accuracy (predict_method, total_predictions, front_hit_sum, back_hit_sum, " +
+            "front_avg_hit, back_avg_hit, prize_count_1, prize_count_2, prize_count_3, prize_count_4, " +
+            "prize_count_5, prize_count_6, prize_count_7) " +
+            "VALUES (#{predictMethod}, #{totalPredictions}, #{frontHitSum}, #{backHitSum}, " +
+            "#{frontAvgHit}, #{backAvgHit}, #{prizeCount1}, #{prizeCount2}, #{prizeCount3}, #{prizeCount4}, " +
+            "#{prizeCount5}, #{prizeCount6}, #{prizeCount7}) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "total_predictions = IFNULL(total_predictions, 0) + #{totalPredictions}, " +
+            "front_hit_sum = IFNULL(front_hit_sum, 0) + #{frontHitSum}, " +
+            "back_hit_sum = IFNULL(back_hit_sum, 0) + #{backHitSum}, " +
+            "front_avg_hit = ROUND(front_hit_sum / total_predictions, 2), " +
+            "back_avg_hit = ROUND(back_hit_sum / total_predictions, 2), " +
+            "prize_count_1 = IFNULL(prize_count_1, 0) + #{prizeCount1}, " +
+            "prize_count_2 = IFNULL(prize_count_2, 0) + #{prizeCount2}, " +
+            "prize_count_3 = IFNULL(prize_count_3, 0) + #{prizeCount3}, " +
+            "prize_count_4 = IFNULL(prize_count_4, 0) + #{prizeCount4}, " +
+            "prize_count_5 = IFNULL(prize_count_5, 0) + #{prizeCount5}, " +
+            "prize_count_6 = IFNULL(prize_count_6, 0) + #{prizeCount6}, " +
+            "prize_count_7 = IFNULL(prize_count_7, 0) + #{prizeCount7}")
+    int upsertDelta(PredictionAccuracy delta);
+
+    /**
+     * 清零所有方法的统计（全量重建前调用，已没有已验证记录的方法不会保留旧值）
+     */
+    @Update("UPDATE prediction_accuracy SET total_predictions = 0, front_hit_sum = 0, back_hit_sum = 0, " +
+            "front_avg_hit = 0, back_avg_hit = 0, prize_count_1 = 0, prize_count_2 = 0, prize_count_3 = 0, " +
+            "prize_count_4 = 0, prize_count_5 = 0, prize_count_6 = 0, prize_count_7 = 0")
+    int resetAll();
+
+    /**
+     * 从预测记录表按方法汇总已验证记录（用于全量重建统计，按方法排序以保持与增量写入一致的加锁顺序）
+     */
+    @Select("SELECT predict_method, COUNT(*) AS total_predictions, " +
+            "IFNULL(SUM(front_hit_count), 0) AS front_hit_sum, " +
+            "IFNULL(SUM(back_hit_count), 0) AS back_hit_sum, " +
+            "SUM(prize_level = '一等奖') AS prize_count_1, " +
+            "SUM(prize_level = '二等奖') AS prize_count_2, " +
+            "SUM(prize_level = '三等奖') AS prize_count_3, " +
+            "SUM(prize_level = '四等奖') AS prize_count_4, " +
+            "SUM(prize_level = '五等奖') AS prize_count_5, " +
+            "SUM(prize_level = '六等奖') AS prize_count_6, " +
+            "SUM(prize_level = '七等奖') AS prize_count_7 " +
+            "FROM prediction_records WHERE is_verified = 1 GROUP BY predict_method ORDER BY predict_method")
+    List<PredictionAccuracy> aggregateVerifiedRecords();
 }
@@ -1,9 +1,14 @@
 package com.hobart.lottery.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hobart.lottery.dto.MethodIssueStatsDTO;
 import com.hobart.lottery.entity.PredictionRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -19,6 +24,65 @@ public interface PredictionRecordMapper extends BaseMapper<PredictionRecord> {
     @Select("SELECT * FROM prediction_records WHERE target_issue = #{targetIssue} AND is_verified = 0")
     List<PredictionRecord> selectUnverifiedByIssue(String targetIssue);
 
+    /**
+     * 查询并锁定某期号的未验证预测记录（验证时使用）
+     * 同一期被并发验证时，后到的事务等待前者提交后读到最新状态，不会重复计入统计
+     */
+    @Select("SELECT * FROM prediction_records WHERE target_issue = #{targetIssue} AND is_verified = 0 FOR UPDATE")
+    List<PredictionRecord> lockUnverifiedByIssue(String targetIssue);
+
+    /**
+     * 从一批记录中锁定仍未验证的记录，返回其 id（流式验证写回前认领）
+     */
+    @Select("<script>SELECT id FROM prediction_records WHERE is_verified = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " FOR UPDATE</script>")
+    List<Long> lockUnverifiedIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 写回单条记录的验证结果（仅当记录仍未验证时）
+     *
+     * @return 实际更新的行数，0 表示已被其他验证任务处理
+     */
+    @Update("UPDATE prediction_records SET front_hit_count = #{frontHitCount}, back_hit_count = #{backHitCount}, " +
+            "prize_level = #{prizeLevel}, is_verified = 1, verified_at = #{verifiedAt} " +
+            "WHERE id = #{id} AND is_verified = 0")
+    int markVerifiedIfPending(PredictionRecord record);
+
+    /**
+     * 流式读取某期号的未验证预测记录（仅号码列）
+     * fetchSize = Integer.MIN_VALUE 使 MySQL 驱动逐行返回，须在事务内消费完毕；
+     * 读取期间该连接不能执行其他语句，写入需使用另一连接
+     */
+    @Select("SELECT id, predict_method, front_ball1, front_ball2, front_ball3, front_ball4, front_ball5, " +
+            "back_ball1, back_ball2 FROM prediction_records WHERE target_issue = #{targetIssue} AND is_verified = 0")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<PredictionRecord> scanUnverifiedByIssue(String targetIssue);
+
+    /**
+     * 流式读取某期号的所有预测记录（仅号码列），用于建立倒排索引
+     */
+    @Select("SELECT id, predict_method, front_ball1, front_ball2, front_ball3, front_ball4, front_ball5, " +
+            "back_ball1, back_ball2 FROM prediction_records WHERE target_issue = #{targetIssue}")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<PredictionRecord> scanByTargetIssue(String targetIssue);
+
+    /**
+     * 批量标记命中结果相同的一组记录为已验证（仅更新仍未验证的记录）
+     */
+    @Update("<script>UPDATE prediction_records SET front_hit_count = #{frontHit}, back_hit_count = #{backHit}, " +
+            "prize_level = #{prizeLevel}, is_verified = 1, verified_at = NOW() WHERE is_verified = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markVerified(@Param("ids") List<Long> ids, @Param("frontHit") int frontHit,
+                     @Param("backHit") int backHit, @Param("prizeLevel") String prizeLevel);
+
+    /**
+     * 查询所有存在未验证记录的期号（倒序）
+     */
+    @Select("SELECT DISTINCT target_issue FROM prediction_records WHERE is_verified = 0 ORDER BY target_issue DESC")
+    List<String> selectUnverifiedIssues();
+
     /**
      * 查询某期号的所有预测记录
      */
@@ -42,4 +106,15 @@ public interface PredictionRecordMapper extends BaseMapper<PredictionRecord> {
      */
     @Select("SELECT COUNT(*) FROM prediction_records WHERE predict_method = #{method}")
     int countByMethod(String method);
+
+    /**
+     * 各方法按期汇总的命中统计（先期内平均，再期间平均）
+     */
+    @Select("SELECT predict_method, COUNT(*) AS issues, SUM(tickets) AS tickets, " +
+            "AVG(front_avg) AS front_avg_hit, AVG(back_avg) AS back_avg_hit, AVG(win_rate) AS win_rate FROM (" +
+            "SELECT predict_method, COUNT(*) AS tickets, AVG(front_hit_count) AS front_avg, " +
+            "AVG(back_hit_count) AS back_avg, AVG(prize_level <> '未中奖') AS win_rate " +
+            "FROM prediction_records WHERE is_verified = 1 GROUP BY predict_method, target_issue) t " +
+            "GROUP BY predict_method")
+    List<MethodIssueStatsDTO> selectIssueStatsByMethod();
 }
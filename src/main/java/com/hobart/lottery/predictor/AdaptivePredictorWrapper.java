@@ -13,7 +13,7 @@ public class AdaptivePredictorWrapper extends BasePredictor {
     private final AdaptivePredictor adaptivePredictor;
 
     public AdaptivePredictorWrapper(AdaptivePredictor adaptivePredictor) {
-        super(null); // 不需要 AnalysisService，AdaptivePredictor 内部已有
+        super(null); // 不需要数据来源，AdaptivePredictor 内部已有
         this.adaptivePredictor = adaptivePredictor;
     }
 
@@ -1,7 +1,6 @@
 package com.hobart.lottery.predictor;
 
 import com.hobart.lottery.domain.model.NumberZone;
-import com.hobart.lottery.service.AnalysisService;
 
 import java.util.*;
 
@@ -12,8 +11,8 @@ import java.util.*;
  */
 public class BalancedPredictor extends BasePredictor {
 
-    public BalancedPredictor(AnalysisService analysisService) {
-        super(analysisService);
+    public BalancedPredictor(PredictionDataSource dataSource) {
+        super(dataSource);
     }
 
     @Override
@@ -29,10 +28,10 @@ public class BalancedPredictor extends BasePredictor {
     @Override
     public int[][] predict() {
         // 获取热号和冷号
-        List<Integer> hotFront = analysisService.getHotFrontNumbers(12);
-        List<Integer> coldFront = analysisService.getColdFrontNumbers(12);
-        List<Integer> hotBack = analysisService.getHotBackNumbers(4);
-        List<Integer> coldBack = analysisService.getColdBackNumbers(4);
+        List<Integer> hotFront = dataSource.getHotNumbers(NumberZone.FRONT, 12);
+        List<Integer> coldFront = dataSource.getColdNumbers(NumberZone.FRONT, 12);
+        List<Integer> hotBack = dataSource.getHotNumbers(NumberZone.BACK, 4);
+        List<Integer> coldBack = dataSource.getColdNumbers(NumberZone.BACK, 4);
         
         // 温号 = 全部号码 - 热号 - 冷号
         Set<Integer> hotSet = new HashSet<>(hotFront);
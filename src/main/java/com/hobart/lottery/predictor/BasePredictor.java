@@ -1,6 +1,5 @@
 package com.hobart.lottery.predictor;
 
-import com.hobart.lottery.service.AnalysisService;
 import lombok.Getter;
 
 import java.util.*;
@@ -11,11 +10,11 @@ import java.util.*;
 @Getter
 public abstract class BasePredictor {
 
-    protected final AnalysisService analysisService;
+    protected final PredictionDataSource dataSource;
     protected final Random random = new Random();
 
-    public BasePredictor(AnalysisService analysisService) {
-        this.analysisService = analysisService;
+    public BasePredictor(PredictionDataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     /**
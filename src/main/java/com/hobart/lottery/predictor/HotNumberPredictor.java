@@ -1,7 +1,6 @@
 package com.hobart.lottery.predictor;
 
 import com.hobart.lottery.domain.model.NumberZone;
-import com.hobart.lottery.service.AnalysisService;
 
 import java.util.List;
 
@@ -11,8 +10,8 @@ import java.util.List;
  */
 public class HotNumberPredictor extends BasePredictor {
 
-    public HotNumberPredictor(AnalysisService analysisService) {
-        super(analysisService);
+    public HotNumberPredictor(PredictionDataSource dataSource) {
+        super(dataSource);
     }
 
     @Override
@@ -28,9 +27,9 @@ public class HotNumberPredictor extends BasePredictor {
     @Override
     public int[][] predict() {
         // 获取前区热号（取前15个作为候选池）
-        List<Integer> hotFront = analysisService.getHotFrontNumbers(15);
+        List<Integer> hotFront = dataSource.getHotNumbers(NumberZone.FRONT, 15);
         // 获取后区热号（取前6个作为候选池）
-        List<Integer> hotBack = analysisService.getHotBackNumbers(6);
+        List<Integer> hotBack = dataSource.getHotNumbers(NumberZone.BACK, 6);
         
         // 从热号中随机选择
         int[] front = selectFromCandidates(hotFront, 5, 
@@ -2,8 +2,6 @@ package com.hobart.lottery.predictor;
 
 import com.hobart.lottery.domain.model.NumberZone;
 import com.hobart.lottery.entity.LotteryResult;
-import com.hobart.lottery.service.AnalysisService;
-import com.hobart.lottery.service.LotteryService;
 
 import java.util.*;
 
@@ -13,11 +11,8 @@ import java.util.*;
  */
 public class MLPredictor extends BasePredictor {
 
-    private final LotteryService lotteryService;
-
-    public MLPredictor(AnalysisService analysisService, LotteryService lotteryService) {
-        super(analysisService);
-        this.lotteryService = lotteryService;
+    public MLPredictor(PredictionDataSource dataSource) {
+        super(dataSource);
     }
 
     @Override
@@ -32,7 +27,7 @@ public class MLPredictor extends BasePredictor {
 
     @Override
     public int[][] predict() {
-        List<LotteryResult> results = lotteryService.getRecentResults(100);
+        List<LotteryResult> results = dataSource.getRecentResults(100);
         
         // 基于历史模式的特征分析
         Map<Integer, Double> frontScores = calculateMLScores(results, NumberZone.FRONT);
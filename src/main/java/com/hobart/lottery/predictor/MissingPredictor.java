@@ -1,7 +1,6 @@
 package com.hobart.lottery.predictor;
 
 import com.hobart.lottery.domain.model.NumberZone;
-import com.hobart.lottery.service.AnalysisService;
 
 import java.util.List;
 
@@ -11,8 +10,8 @@ import java.util.List;
  */
 public class MissingPredictor extends BasePredictor {
 
-    public MissingPredictor(AnalysisService analysisService) {
-        super(analysisService);
+    public MissingPredictor(PredictionDataSource dataSource) {
+        super(dataSource);
     }
 
     @Override
@@ -28,9 +27,9 @@ public class MissingPredictor extends BasePredictor {
     @Override
     public int[][] predict() {
         // 获取遗漏到期的前区号码（取前15个作为候选池）
-        List<Integer> missingFront = analysisService.getMissingDueFrontNumbers(15);
+        List<Integer> missingFront = dataSource.getMissingDueNumbers(NumberZone.FRONT, 15);
         // 获取遗漏到期的后区号码（取前6个作为候选池）
-        List<Integer> missingBack = analysisService.getMissingDueBackNumbers(6);
+        List<Integer> missingBack = dataSource.getMissingDueNumbers(NumberZone.BACK, 6);
         
         // 从候选中随机选择
         int[] front = selectFromCandidates(missingFront, 5, 
@@ -0,0 +1,45 @@
+package com.hobart.lottery.predictor;
+
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.entity.LotteryResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预测器使用的历史数据来源
+ * 在线预测由 AnalysisService 提供（全部历史），回测由某期之前的时间点视图提供，
+ * 同一套预测器代码因此可以在任意历史时间点上运行
+ */
+public interface PredictionDataSource {
+
+    /**
+     * 热号（近期出现频率最高，结果按号码升序）
+     */
+    List<Integer> getHotNumbers(NumberZone zone, int count);
+
+    /**
+     * 冷号（近期出现频率最低，结果按号码升序）
+     */
+    List<Integer> getColdNumbers(NumberZone zone, int count);
+
+    /**
+     * 遗漏值接近平均遗漏的号码（结果按号码升序）
+     */
+    List<Integer> getMissingDueNumbers(NumberZone zone, int count);
+
+    /**
+     * 当前遗漏值最大的号码（结果按号码升序）
+     */
+    List<Integer> getHighMissingNumbers(NumberZone zone, int count);
+
+    /**
+     * 号码综合评分（频率与遗漏各占一半）
+     */
+    Map<Integer, Double> getNumberScores(NumberZone zone);
+
+    /**
+     * 最近 N 期开奖结果（最新的在前）
+     */
+    List<LotteryResult> getRecentResults(int limit);
+}
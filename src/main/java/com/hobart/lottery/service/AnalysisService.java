@@ -1,8 +1,12 @@
 package com.hobart.lottery.service;
 
+import com.hobart.lottery.domain.model.AssociationRule;
+import com.hobart.lottery.domain.model.NumberZone;
 import com.hobart.lottery.dto.FrequencyDTO;
 import com.hobart.lottery.dto.MissingDTO;
 import com.hobart.lottery.dto.SameNumberDTO;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.predictor.PredictionDataSource;
 import com.hobart.lottery.service.analysis.AnalysisFacade;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -15,12 +19,14 @@ import java.util.Map;
  * 
  * 委托给 AnalysisFacade，保持向后兼容
  * 新代码建议直接使用 AnalysisFacade 或各个专门的 Analyzer
+ * 同时作为在线预测的数据来源（基于全部历史）
  */
 @Service
 @RequiredArgsConstructor
-public class AnalysisService {
+public class AnalysisService implements PredictionDataSource {
 
     private final AnalysisFacade analysisFacade;
+    private final LotteryService lotteryService;
 
     // 前区号码范围 1-35（保留常量以保持兼容）
     public static final int FRONT_MIN = 1;
@@ -57,6 +63,20 @@ public class AnalysisService {
         return analysisFacade.calculateBackFrequency(recentCount);
     }
 
+    /**
+     * 计算截至某期（含）的前区号码频率
+     */
+    public List<FrequencyDTO> calculateFrontFrequency(Integer recentCount, String asOfIssue) {
+        return analysisFacade.calculateFrontFrequency(recentCount, asOfIssue);
+    }
+
+    /**
+     * 计算截至某期（含）的后区号码频率
+     */
+    public List<FrequencyDTO> calculateBackFrequency(Integer recentCount, String asOfIssue) {
+        return analysisFacade.calculateBackFrequency(recentCount, asOfIssue);
+    }
+
     /**
      * 计算前区号码遗漏
      */
@@ -71,6 +91,20 @@ public class AnalysisService {
         return analysisFacade.calculateBackMissing();
     }
 
+    /**
+     * 计算截至某期（含）的前区号码遗漏
+     */
+    public List<MissingDTO> calculateFrontMissing(String asOfIssue) {
+        return analysisFacade.calculateFrontMissing(asOfIssue);
+    }
+
+    /**
+     * 计算截至某期（含）的后区号码遗漏
+     */
+    public List<MissingDTO> calculateBackMissing(String asOfIssue) {
+        return analysisFacade.calculateBackMissing(asOfIssue);
+    }
+
     /**
      * 获取热号（近30期出现频率最高的号码）
      */
@@ -161,4 +195,72 @@ public class AnalysisService {
     public List<SameNumberDTO> findSameNumbers() {
         return analysisFacade.findSameNumbers();
     }
+
+    /**
+     * 挖掘号码关联规则（传入 asOfIssue 时截至该期）
+     */
+    public List<AssociationRule> mineAssociations(NumberZone zone, String asOfIssue) {
+        return asOfIssue != null
+            ? analysisFacade.mineAssociations(zone, asOfIssue)
+            : analysisFacade.mineAssociations(zone);
+    }
+
+    /**
+     * 获取与指定号码关联度最高的号码（传入 asOfIssue 时截至该期）
+     */
+    public List<Integer> getRelatedNumbers(int number, NumberZone zone, int topN, String asOfIssue) {
+        return asOfIssue != null
+            ? analysisFacade.getRelatedNumbers(number, zone, topN, asOfIssue)
+            : analysisFacade.getRelatedNumbers(number, zone, topN);
+    }
+
+    /**
+     * 获取关联网络数据（传入 asOfIssue 时截至该期）
+     */
+    public Map<String, Object> getAssociationNetwork(NumberZone zone, int topN, String asOfIssue) {
+        return asOfIssue != null
+            ? analysisFacade.getAssociationNetwork(zone, topN, asOfIssue)
+            : analysisFacade.getAssociationNetwork(zone, topN);
+    }
+
+    /**
+     * 挖掘连续期关联（传入 asOfIssue 时截至该期）
+     */
+    public List<AssociationRule> mineSequentialAssociations(NumberZone zone, String asOfIssue) {
+        return asOfIssue != null
+            ? analysisFacade.mineSequentialAssociations(zone, asOfIssue)
+            : analysisFacade.mineSequentialAssociations(zone);
+    }
+
+    // ==================== 预测数据来源 ====================
+
+    @Override
+    public List<Integer> getHotNumbers(NumberZone zone, int count) {
+        return analysisFacade.getHotNumbers(zone, count);
+    }
+
+    @Override
+    public List<Integer> getColdNumbers(NumberZone zone, int count) {
+        return analysisFacade.getColdNumbers(zone, count);
+    }
+
+    @Override
+    public List<Integer> getMissingDueNumbers(NumberZone zone, int count) {
+        return analysisFacade.getMissingDueNumbers(zone, count);
+    }
+
+    @Override
+    public List<Integer> getHighMissingNumbers(NumberZone zone, int count) {
+        return analysisFacade.getHighMissingNumbers(zone, count);
+    }
+
+    @Override
+    public Map<Integer, Double> getNumberScores(NumberZone zone) {
+        return analysisFacade.getNumberScores(zone);
+    }
+
+    @Override
+    public List<LotteryResult> getRecentResults(int limit) {
+        return lotteryService.getRecentResults(limit);
+    }
 }
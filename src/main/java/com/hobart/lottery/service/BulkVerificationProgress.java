@@ -0,0 +1,103 @@
+package com.hobart.lottery.service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量验证进度
+ * 由各验证线程并发更新，控制器按需读取快照
+ */
+public class BulkVerificationProgress {
+
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+
+    /** 存在未验证记录的期数 */
+    private final int pendingIssues;
+    /** 已开奖、可验证的期数 */
+    private final int totalIssues;
+
+    private final AtomicInteger completedIssues = new AtomicInteger();
+    private final AtomicInteger verifiedRecords = new AtomicInteger();
+    private final AtomicInteger prizeRecords = new AtomicInteger();
+
+    /** 尚未开奖而跳过的期号 */
+    private final List<String> skippedIssues;
+    /** 验证失败的期号 -> 错误信息 */
+    private final Map<String, String> failedIssues = new ConcurrentHashMap<>();
+    /** 已验证但权重学习失败的期号 -> 错误信息 */
+    private final Map<String, String> learningFailedIssues = new ConcurrentHashMap<>();
+    /** 提交验证任务失败的错误信息（此时只验证已提交的期号） */
+    private volatile String startError;
+
+    public BulkVerificationProgress(int pendingIssues, int totalIssues, List<String> skippedIssues) {
+        this.pendingIssues = pendingIssues;
+        this.totalIssues = totalIssues;
+        this.skippedIssues = List.copyOf(skippedIssues);
+    }
+
+    /**
+     * 记录一期验证成功
+     */
+    public void issueCompleted(String issue, int records, int prizes) {
+        failedIssues.remove(issue);
+        verifiedRecords.addAndGet(records);
+        prizeRecords.addAndGet(prizes);
+        completedIssues.incrementAndGet();
+    }
+
+    /**
+     * 记录一期验证失败
+     */
+    public void issueFailed(String issue, Throwable error) {
+        failedIssues.put(issue, error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+    }
+
+    /**
+     * 记录一期权重学习失败
+     */
+    public void learningFailed(String issue, Throwable error) {
+        learningFailedIssues.put(issue, error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+    }
+
+    /**
+     * 记录验证任务提交失败
+     */
+    public void startFailed(Throwable error) {
+        startError = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    public void finish() {
+        finishedAt = LocalDateTime.now();
+    }
+
+    public boolean isRunning() {
+        return finishedAt == null;
+    }
+
+    public Set<String> getFailedIssues() {
+        return new TreeSet<>(failedIssues.keySet());
+    }
+
+    /**
+     * 进度快照（用于接口返回）
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("running", isRunning());
+        map.put("startedAt", startedAt.toString());
+        map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        map.put("pendingIssues", pendingIssues);
+        map.put("totalIssues", totalIssues);
+        map.put("completedIssues", completedIssues.get());
+        map.put("failedIssues", new TreeMap<>(failedIssues));
+        map.put("learningFailedIssues", new TreeMap<>(learningFailedIssues));
+        map.put("startError", startError);
+        map.put("skippedIssues", skippedIssues);
+        map.put("verifiedRecords", verifiedRecords.get());
+        map.put("prizeRecords", prizeRecords.get());
+        return map;
+    }
+}
@@ -0,0 +1,164 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.entity.PredictionRecord;
+import com.hobart.lottery.service.learning.WeightAdjuster;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 批量验证服务
+ * 一次性验证所有已开奖的待验证期号：各期并发计分、独立事务，
+ * 全部计分完成后再按期号升序逐期更新方法权重（EMA 与权重快照依赖学习顺序，且避免并发事务争用权重行）
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkVerificationService {
+
+    private final VerificationService verificationService;
+    private final LotteryService lotteryService;
+    private final WeightAdjuster weightAdjuster;
+    private final AsyncTaskExecutor verificationExecutor;
+
+    private volatile BulkVerificationProgress current;
+
+    /** 启动锁（启动时查询待验证期号，不用 synchronized 以免钉住虚拟线程的载体线程） */
+    private final ReentrantLock startLock = new ReentrantLock();
+
+    /**
+     * 启动批量验证（异步执行）
+     * 已有任务在运行时直接返回该任务的进度
+     *
+     * @return 本次任务进度
+     */
+    public BulkVerificationProgress start() {
+        startLock.lock();
+        try {
+            return startLocked();
+        } finally {
+            startLock.unlock();
+        }
+    }
+
+    private BulkVerificationProgress startLocked() {
+        if (current != null && current.isRunning()) {
+            return current;
+        }
+
+        // 查询失败时直接抛出，此时尚未发布新进度，current 仍是上一次的结果
+        List<String> pending = verificationService.getUnverifiedIssues();
+        Map<String, LotteryResult> draws = lotteryService.getByIssues(pending).stream()
+                .collect(Collectors.toMap(LotteryResult::getIssue, Function.identity(), (a, b) -> a));
+
+        List<LotteryResult> ready = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (String issue : pending) {
+            LotteryResult draw = draws.get(issue);
+            if (draw != null) {
+                ready.add(draw);
+            } else {
+                skipped.add(issue);
+            }
+        }
+
+        BulkVerificationProgress progress = new BulkVerificationProgress(pending.size(), ready.size(), skipped);
+        log.info("开始批量验证: 待验证 {} 期，已开奖 {} 期", pending.size(), ready.size());
+
+        // 期号 -> 本次验证写入的记录，计分完成后按期号顺序学习
+        Map<String, List<PredictionRecord>> scored = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> tasks = new ArrayList<>(ready.size());
+        RuntimeException submitFailure = null;
+        try {
+            for (LotteryResult draw : ready) {
+                tasks.add(CompletableFuture.runAsync(() -> scoreIssue(draw, progress, scored), verificationExecutor));
+            }
+        } catch (RuntimeException e) {
+            // 执行器拒绝等提交失败：已提交的期号照常计分、学习并结束进度，其余期号留待下次验证
+            log.error("批量验证任务提交失败，已提交 {}/{} 期", tasks.size(), ready.size(), e);
+            progress.startFailed(e);
+            submitFailure = e;
+        }
+        // 任务提交之后才发布进度，提交失败的进度也会随已提交任务的完成而结束，不会一直显示运行中
+        current = progress;
+
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).whenComplete((v, e) -> {
+            try {
+                retryFailed(draws, progress, scored);
+                learnInOrder(scored, progress);
+            } finally {
+                progress.finish();
+                log.info("批量验证结束: {}", progress.toMap());
+            }
+        });
+
+        if (submitFailure != null) {
+            throw submitFailure;
+        }
+        return progress;
+    }
+
+    /**
+     * 获取最近一次批量验证的进度
+     */
+    public BulkVerificationProgress getCurrent() {
+        return current;
+    }
+
+    private void scoreIssue(LotteryResult draw, BulkVerificationProgress progress,
+                            Map<String, List<PredictionRecord>> scored) {
+        try {
+            List<PredictionRecord> verified = verificationService.scorePredictions(draw);
+            scored.put(draw.getIssue(), verified);
+            int prizes = (int) verified.stream()
+                    .filter(p -> p.getPrizeLevel() != null && !p.getPrizeLevel().equals("未中奖"))
+                    .count();
+            progress.issueCompleted(draw.getIssue(), verified.size(), prizes);
+        } catch (Exception e) {
+            log.warn("期号 {} 验证失败: {}", draw.getIssue(), e.getMessage());
+            progress.issueFailed(draw.getIssue(), e);
+        }
+    }
+
+    /**
+     * 并发阶段失败的期号（如锁冲突回滚）顺序重试一次
+     */
+    private void retryFailed(Map<String, LotteryResult> draws, BulkVerificationProgress progress,
+                             Map<String, List<PredictionRecord>> scored) {
+        for (String issue : progress.getFailedIssues()) {
+            log.info("重试验证期号 {}", issue);
+            scoreIssue(draws.get(issue), progress, scored);
+        }
+    }
+
+    /**
+     * 按期号升序逐期学习，每期一个事务；失败时重试一次，仍失败则记入进度（该期验证结果已提交，不再重复计分）
+     */
+    private void learnInOrder(Map<String, List<PredictionRecord>> scored, BulkVerificationProgress progress) {
+        for (Map.Entry<String, List<PredictionRecord>> entry : new TreeMap<>(scored).entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            try {
+                weightAdjuster.adjustWeightsBatch(entry.getValue());
+            } catch (Exception first) {
+                log.warn("期号 {} 权重学习失败，重试一次: {}", entry.getKey(), first.getMessage());
+                try {
+                    weightAdjuster.adjustWeightsBatch(entry.getValue());
+                } catch (Exception e) {
+                    log.error("期号 {} 权重学习失败: {}", entry.getKey(), e.getMessage(), e);
+                    progress.learningFailed(entry.getKey(), e);
+                }
+            }
+        }
+    }
+}
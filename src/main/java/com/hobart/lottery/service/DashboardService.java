@@ -0,0 +1,101 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.dto.AccuracyStatsDTO;
+import com.hobart.lottery.entity.LotteryResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 首页数据服务
+ * 首页所需数据按（开奖历史版本, 准确率统计版本）组装成一份不可变快照常驻内存，
+ * 数据未变化时首页浏览不访问数据库；开奖入库流水线处理完成后主动预热
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardService {
+
+    private final LotteryService lotteryService;
+    private final AnalysisService analysisService;
+    private final VerificationService verificationService;
+    private final DataVersion dataVersion;
+
+    private volatile Snapshot current;
+
+    /** 重建锁：不用 synchronized，重建期间的数据库访问不会在虚拟线程模式下钉住载体线程 */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * 首页快照
+     */
+    public record Snapshot(long historyVersion, long accuracyVersion,
+                           LotteryResult latest,
+                           List<LotteryResult> recentResults,
+                           long totalCount,
+                           Map<String, Integer> oddEvenStats,
+                           Map<String, Integer> sumStats,
+                           List<AccuracyStatsDTO> accuracyStats,
+                           String nextIssue) {
+    }
+
+    /**
+     * 获取当前快照，数据版本变化后首次访问时重建
+     */
+    public Snapshot getSnapshot() {
+        long historyVersion = dataVersion.history();
+        long accuracyVersion = dataVersion.accuracy();
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.historyVersion() == historyVersion
+                && snapshot.accuracyVersion() == accuracyVersion) {
+            return snapshot;
+        }
+
+        rebuildLock.lock();
+        try {
+            snapshot = current;
+            historyVersion = dataVersion.history();
+            accuracyVersion = dataVersion.accuracy();
+            if (snapshot == null || snapshot.historyVersion() != historyVersion
+                    || snapshot.accuracyVersion() != accuracyVersion) {
+                snapshot = build(historyVersion, accuracyVersion);
+                current = snapshot;
+            }
+            return snapshot;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 启动完成后预热
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            getSnapshot();
+        } catch (Exception e) {
+            log.warn("首页快照预热失败: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot build(long historyVersion, long accuracyVersion) {
+        LotteryResult latest = lotteryService.getLatestResult();
+        return new Snapshot(historyVersion, accuracyVersion,
+            latest,
+            List.copyOf(lotteryService.getRecentResults(10)),
+            lotteryService.count(),
+            Collections.unmodifiableMap(new LinkedHashMap<>(analysisService.getOddEvenStats())),
+            Collections.unmodifiableMap(new LinkedHashMap<>(analysisService.getFrontSumStats())),
+            List.copyOf(verificationService.getAllAccuracyStats()),
+            LotteryService.nextIssueAfter(latest));
+    }
+}
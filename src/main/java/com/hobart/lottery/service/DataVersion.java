@@ -0,0 +1,93 @@
+package com.hobart.lottery.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据版本号
+ * 开奖历史每次增删时递增，依赖历史数据的预计算结果以版本号判断是否过期；
+ * 学习权重每次更新时递增学习版本，准确率统计每次更新时递增统计版本。
+ * 历史与学习版本同时用于生成 HTTP 缓存的 ETag。
+ * 版本号只在进程内递增，其他实例写库不会使其变化，依赖它的缓存只适用于单实例部署
+ */
+@Component
+public class DataVersion {
+
+    /** 启动时刻，写入 ETag 避免重启后版本号归零与旧 ETag 撞车 */
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong history = new AtomicLong();
+    private final AtomicLong learning = new AtomicLong();
+    private final AtomicLong accuracy = new AtomicLong();
+
+    /**
+     * 当前开奖历史版本
+     */
+    public long history() {
+        return history.get();
+    }
+
+    /**
+     * 当前学习权重版本
+     */
+    public long learning() {
+        return learning.get();
+    }
+
+    /**
+     * 当前准确率统计版本
+     */
+    public long accuracy() {
+        return accuracy.get();
+    }
+
+    /**
+     * 开奖历史已变更；处于事务中时提交后再递增一次，避免提交前按旧数据重建的结果被当作最新
+     */
+    public void historyChanged() {
+        bump(history);
+    }
+
+    /**
+     * 学习权重已变更（提交后同样再递增一次）
+     */
+    public void learningChanged() {
+        bump(learning);
+    }
+
+    /**
+     * 准确率统计已变更（提交后同样再递增一次）
+     */
+    public void accuracyChanged() {
+        bump(accuracy);
+    }
+
+    /**
+     * 仅依赖开奖历史的响应的 ETag
+     */
+    public String historyTag() {
+        return "h" + Long.toString(epoch, 36) + "-" + history.get();
+    }
+
+    /**
+     * 依赖开奖历史与学习权重的响应的 ETag
+     */
+    public String learningTag() {
+        return historyTag() + "-l" + learning.get();
+    }
+
+    private static void bump(AtomicLong version) {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
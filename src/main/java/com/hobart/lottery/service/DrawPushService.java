@@ -0,0 +1,280 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.service.analysis.TrendAnalyzer;
+import com.hobart.lottery.service.index.DrawHistoryIndex;
+import com.hobart.lottery.service.index.HistoryIndexService;
+import com.hobart.lottery.service.index.HistoryView;
+import com.hobart.lottery.service.learning.WeightAdjuster;
+import com.hobart.lottery.config.LotteryConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 开奖推送服务
+ * 客户端通过 SSE 订阅，新开奖入库并处理完成后推送一次增量（draw 事件），代替轮询各分析接口：
+ * 热号窗口内出现次数有变化的号码、全部号码的当前遗漏、新的一行走势数据、有变化的方法权重。
+ * 增量基于开奖历史索引的前缀计数得出，不重新执行完整分析。
+ * 补录的历史期号（不是最新一期）无法增量推送，改为推送 resync 事件通知客户端重新拉取。
+ * 写入在推送线程池中进行，不阻塞开奖流水线；写入期间到达的事件排队一条，写入超时或积压超过一条的慢客户端直接断开
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DrawPushService {
+
+    /** 订阅超时，超时后客户端（EventSource）自动重连 */
+    private static final long SUBSCRIPTION_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final HistoryIndexService historyIndexService;
+    private final WeightAdjuster weightAdjuster;
+    private final ThreadPoolTaskExecutor pushExecutor;
+    private final LotteryConfig config;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * 订阅者：同一时刻最多一条写入在进行，另有最多一条事件等待写入
+     */
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        final AtomicReference<SseEmitter.SseEventBuilder> pending = new AtomicReference<>();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    /** 上次推送时的方法权重，用于计算权重变化 */
+    private volatile Map<String, Double> lastWeights;
+
+    /**
+     * 订阅推送，订阅后立即收到 hello 事件（当前最新期号）作为增量的基准
+     *
+     * @return 订阅数已达上限时返回 null
+     */
+    public synchronized SseEmitter subscribe() {
+        if (subscribers.size() >= config.getPush().getMaxSubscribers()) {
+            log.warn("开奖推送订阅已达上限 {}", config.getPush().getMaxSubscribers());
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        // 处理器返回前的发送只是缓存，不会阻塞请求线程
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        Map<String, Object> hello = new LinkedHashMap<>();
+        hello.put("latestIssue", index.size() > 0 ? index.issue(index.size() - 1) : null);
+        try {
+            emitter.send(SseEmitter.event().name("hello").data(hello));
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * 推送一期开奖的增量（在开奖流水线中、验证与学习完成后调用）
+     */
+    public void publish(LotteryResult result) {
+        if (subscribers.isEmpty()) {
+            lastWeights = null;
+            return;
+        }
+
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        int position = index.size() - 1;
+        if (position < 0 || !index.issue(position).equals(result.getIssue())) {
+            broadcast("resync", Map.of("issue", result.getIssue()));
+            return;
+        }
+
+        HistoryView before = historyIndexService.viewAt(index, position);
+        HistoryView after = historyIndexService.viewAt(index, position + 1);
+        int hotColdPeriod = historyIndexService.hotColdPeriod();
+
+        Map<String, Object> frequency = new LinkedHashMap<>();
+        Map<String, Object> missing = new LinkedHashMap<>();
+        for (NumberZone zone : NumberZone.values()) {
+            frequency.put(zone.getCode(), frequencyDelta(index, position, zone, before, after, hotColdPeriod));
+            missing.put(zone.getCode(), after.currentMissing(zone));
+        }
+        frequency.put("period", hotColdPeriod);
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("issue", result.getIssue());
+        delta.put("previousIssue", position > 0 ? index.issue(position - 1) : null);
+        delta.put("trend", TrendAnalyzer.trendRow(index.draw(position)));
+        delta.put("frequency", frequency);
+        delta.put("missing", missing);
+        delta.put("weights", weightsDelta());
+        broadcast("draw", delta);
+        log.info("期号 {} 增量已提交推送给 {} 个订阅者", result.getIssue(), subscribers.size());
+    }
+
+    /**
+     * 心跳：定期发送注释行，及时清理已断开的订阅并防止代理断开空闲连接。
+     * 有写入在进行的订阅者跳过本次心跳：连接并不空闲，写入是否卡住由该次写入的超时判断
+     */
+    @Scheduled(fixedDelay = 25000)
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sending.compareAndSet(false, true)) {
+                write(subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+
+    /**
+     * 单区增量：热号窗口内出现次数变化的号码 -> 新次数，以及本期开出号码 -> 全部历史出现次数
+     */
+    private Map<String, Object> frequencyDelta(DrawHistoryIndex index, int position, NumberZone zone,
+                                               HistoryView before, HistoryView after, int period) {
+        int[] oldCounts = before.frequencyCounts(zone, period);
+        int[] newCounts = after.frequencyCounts(zone, period);
+        Map<Integer, Integer> changed = new TreeMap<>();
+        for (int i = 0; i < newCounts.length; i++) {
+            if (newCounts[i] != oldCounts[i]) {
+                changed.put(zone.getMin() + i, newCounts[i]);
+            }
+        }
+
+        Map<Integer, Integer> totals = new TreeMap<>();
+        long draw = index.mask(position);
+        for (int num = zone.getMin(); num <= zone.getMax(); num++) {
+            int bit = DrawHistoryIndex.bit(zone, num);
+            if ((draw >>> bit & 1L) != 0) {
+                totals.put(num, index.count(bit, 0, position + 1));
+            }
+        }
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("recent", changed);
+        map.put("total", totals);
+        return map;
+    }
+
+    /**
+     * 与上次推送相比变化的方法权重（首次推送时返回全部）
+     */
+    private Map<String, Double> weightsDelta() {
+        Map<String, Double> current = new LinkedHashMap<>();
+        weightAdjuster.getWeightSnapshot().toMap()
+            .forEach((code, weight) -> current.put(code, Math.round(weight * 10000.0) / 10000.0));
+
+        Map<String, Double> previous = lastWeights;
+        lastWeights = current;
+        if (previous == null) {
+            return current;
+        }
+        Map<String, Double> changed = new LinkedHashMap<>();
+        current.forEach((code, weight) -> {
+            if (!weight.equals(previous.get(code))) {
+                changed.put(code, weight);
+            }
+        });
+        return changed;
+    }
+
+    private void broadcast(String name, Object data) {
+        for (Subscriber subscriber : subscribers) {
+            send(subscriber, SseEmitter.event().name(name).data(data));
+        }
+    }
+
+    /**
+     * 写入一条事件；上一条仍未写完时排队等待，已有一条在排队（积压超过一条）的订阅者被断开
+     */
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            write(subscriber, event);
+            return;
+        }
+        if (!subscriber.pending.compareAndSet(null, event)) {
+            drop(subscriber, "积压的推送超过一条");
+            return;
+        }
+        // 排队前进行中的写入可能已经结束，此时由这里接着写
+        drainPending(subscriber);
+    }
+
+    /**
+     * 没有写入在进行时写出排队的事件
+     */
+    private void drainPending(Subscriber subscriber) {
+        while (subscriber.pending.get() != null && subscriber.sending.compareAndSet(false, true)) {
+            SseEmitter.SseEventBuilder next = subscriber.pending.getAndSet(null);
+            if (next != null) {
+                write(subscriber, next);
+                return;
+            }
+            subscriber.sending.set(false);
+        }
+    }
+
+    /**
+     * 在推送线程池中写入一条事件（调用方已占用 sending）；线程池已满或写入超时的订阅者被断开
+     */
+    private void write(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        Future<?> write;
+        try {
+            write = pushExecutor.submit(() -> {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber);
+                } finally {
+                    subscriber.sending.set(false);
+                    if (subscribers.contains(subscriber)) {
+                        drainPending(subscriber);
+                    } else {
+                        // 写入期间已被断开的订阅者，写入结束后关闭连接
+                        subscriber.emitter.complete();
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            subscriber.sending.set(false);
+            drop(subscriber, "推送线程池已满");
+            subscriber.emitter.complete();
+            return;
+        }
+
+        long timeoutMs = config.getPush().getSendTimeoutMs();
+        CompletableFuture.delayedExecutor(timeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!write.isDone()) {
+                drop(subscriber, "写入超过 " + timeoutMs + " ms");
+                write.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * 断开慢客户端：只移出订阅列表，连接在进行中的写入结束后关闭，不在此等待
+     */
+    private void drop(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            log.warn("断开开奖推送订阅者: {}", reason);
+        }
+    }
+}
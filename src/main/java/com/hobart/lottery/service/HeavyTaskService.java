@@ -0,0 +1,109 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.config.LotteryConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 重任务执行服务
+ * 关联挖掘、批量生成、验证等耗时接口的异步版本在独立的有界线程池中执行，Servlet 线程立即释放；
+ * 队列已满时直接返回繁忙；排队超时的任务被取消、不再执行；
+ * 执行超时从任务开始时计算，超时后返回超时提示（已开始的任务继续在后台执行完毕）
+ */
+@Service
+@Slf4j
+public class HeavyTaskService {
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+
+    private final ThreadPoolTaskExecutor heavyExecutor;
+    private final ThreadPoolTaskExecutor streamExecutor;
+    private final long timeoutMs;
+    private final long queueTimeoutMs;
+
+    public HeavyTaskService(ThreadPoolTaskExecutor heavyExecutor, ThreadPoolTaskExecutor streamExecutor,
+                            LotteryConfig config) {
+        this.heavyExecutor = heavyExecutor;
+        this.streamExecutor = streamExecutor;
+        this.timeoutMs = config.getThreads().getHeavyTimeoutMs();
+        this.queueTimeoutMs = config.getThreads().getHeavyQueueTimeoutMs();
+    }
+
+    /**
+     * 提交重任务，结果为统一的 success/message 格式
+     *
+     * @param action 任务名称（用于提示信息）
+     * @param task 任务，返回接口响应
+     */
+    public CompletableFuture<Map<String, Object>> submit(String action, Supplier<Map<String, Object>> task) {
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Future<?> queued;
+        try {
+            queued = heavyExecutor.submit(() -> {
+                if (!state.compareAndSet(QUEUED, RUNNING)) {
+                    return;
+                }
+                result.completeOnTimeout(failure(action + "超时，任务仍在后台执行，请稍后刷新查看结果"),
+                    timeoutMs, TimeUnit.MILLISECONDS);
+                Map<String, Object> response;
+                try {
+                    response = task.get();
+                } catch (Exception e) {
+                    response = failure(action + "失败: " + e.getMessage());
+                }
+                if (!result.complete(response)) {
+                    log.warn("{}任务超过 {} ms 才完成", action, timeoutMs);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("{}任务被拒绝: 重任务队列已满", action);
+            return CompletableFuture.completedFuture(failure("系统繁忙，" + action + "任务排队已满，请稍后重试"));
+        }
+
+        // 排队超时仍未开始的任务取消，不再执行
+        CompletableFuture.delayedExecutor(queueTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (state.compareAndSet(QUEUED, ABANDONED)) {
+                queued.cancel(false);
+                log.warn("{}任务排队超过 {} ms，已取消", action, queueTimeoutMs);
+                result.complete(failure("系统繁忙，" + action + "任务排队超时未执行，请稍后重试"));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 提交自行管理结果的长时间流式任务，在独立的流式线程池中执行，不占用重任务线程
+     *
+     * @return 流式线程已全部占用被拒绝时返回 false
+     */
+    public boolean tryExecuteStream(Runnable task) {
+        try {
+            streamExecutor.execute(task);
+            return true;
+        } catch (TaskRejectedException e) {
+            log.warn("流式任务被拒绝: 流式线程已全部占用");
+            return false;
+        }
+    }
+
+    private static Map<String, Object> failure(String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("message", message);
+        return result;
+    }
+}
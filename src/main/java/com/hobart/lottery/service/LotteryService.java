@@ -2,17 +2,27 @@ package com.hobart.lottery.service;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.event.DrawInsertedEvent;
 import com.hobart.lottery.mapper.LotteryResultMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * 大乐透数据服务
  */
 @Service
+@RequiredArgsConstructor
 public class LotteryService extends ServiceImpl<LotteryResultMapper, LotteryResult> {
 
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersion dataVersion;
+
     /**
      * 获取最近N期开奖结果
      */
@@ -34,6 +44,16 @@ public class LotteryService extends ServiceImpl<LotteryResultMapper, LotteryResu
         return baseMapper.selectByIssue(issue);
     }
 
+    /**
+     * 根据期号批量查询
+     */
+    public List<LotteryResult> getByIssues(Collection<String> issues) {
+        if (issues == null || issues.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return baseMapper.selectByIssues(issues);
+    }
+
     /**
      * 获取所有开奖结果
      */
@@ -45,7 +65,13 @@ public class LotteryService extends ServiceImpl<LotteryResultMapper, LotteryResu
      * 生成下一期期号
      */
     public String generateNextIssue() {
-        LotteryResult latest = getLatestResult();
+        return nextIssueAfter(getLatestResult());
+    }
+
+    /**
+     * 根据最新一期推算下一期期号（已持有最新一期时使用，避免重复查询）
+     */
+    public static String nextIssueAfter(LotteryResult latest) {
         if (latest == null) {
             return "26001";
         }
@@ -56,6 +82,7 @@ public class LotteryService extends ServiceImpl<LotteryResultMapper, LotteryResu
 
     /**
      * 保存开奖结果并自动计算统计字段
+     * 保存后发布 {@link DrawInsertedEvent}，由后台流水线完成验证与学习
      */
     public void saveWithCalculation(LotteryResult result) {
         int[] front = {result.getFrontBall1(), result.getFrontBall2(), 
@@ -122,5 +149,19 @@ public class LotteryService extends ServiceImpl<LotteryResultMapper, LotteryResu
         
         // 保存
         save(result);
+        dataVersion.historyChanged();
+        eventPublisher.publishEvent(new DrawInsertedEvent(result));
+    }
+
+    /**
+     * 删除开奖结果
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (removed) {
+            dataVersion.historyChanged();
+        }
+        return removed;
     }
 }
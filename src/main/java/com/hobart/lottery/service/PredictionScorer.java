@@ -1,6 +1,7 @@
 package com.hobart.lottery.service;
 
 import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.service.index.HistoryIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,6 +18,10 @@ import java.util.*;
 public class PredictionScorer {
 
     private final LotteryService lotteryService;
+    private final HistoryIndexService historyIndexService;
+
+    /** 用于分析模式特征的历史期数 */
+    private static final int PATTERN_PERIOD = 100;
 
     /**
      * 从多注预测中选择最优的一注
@@ -26,15 +31,28 @@ public class PredictionScorer {
      * @return 最优预测的索引
      */
     public int selectBestPrediction(List<int[][]> predictions) {
-        if (predictions == null || predictions.isEmpty()) {
+        if (predictions == null || predictions.size() <= 1) {
             return 0;
         }
-        if (predictions.size() == 1) {
+
+        // 获取历史数据用于分析
+        return selectBest(predictions, lotteryService.getRecentResults(PATTERN_PERIOD));
+    }
+
+    /**
+     * 基于截至某期（含）的历史模式选择最优的一注（历史取自开奖历史索引）
+     *
+     * @param asOfIssue 截止期号，null 表示最新
+     */
+    public int selectBestPrediction(List<int[][]> predictions, String asOfIssue) {
+        if (predictions == null || predictions.size() <= 1) {
             return 0;
         }
 
-        // 获取历史数据用于分析
-        List<LotteryResult> history = lotteryService.getRecentResults(100);
+        return selectBest(predictions, historyIndexService.viewAsOf(asOfIssue).getRecentResults(PATTERN_PERIOD));
+    }
+
+    private int selectBest(List<int[][]> predictions, List<LotteryResult> history) {
         if (history.isEmpty()) {
             return 0;
         }
@@ -1,19 +1,31 @@
 package com.hobart.lottery.service;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.TicketMask;
 import com.hobart.lottery.dto.PredictionResultDTO;
 import com.hobart.lottery.entity.PredictionRecord;
 import com.hobart.lottery.mapper.PredictionRecordMapper;
 import com.hobart.lottery.predictor.*;
+import com.hobart.lottery.service.index.PredictionIndexService;
 import com.hobart.lottery.service.learning.AdaptivePredictor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 预测服务
+ * 多方法生成时各方法的号码计算并行扇出到分析执行器；全部计算完成后才开启事务、按方法顺序保存，
+ * 调用线程等待扇出任务期间不占用数据库连接
  */
 @Service
 @RequiredArgsConstructor
@@ -23,6 +35,10 @@ public class PredictionService extends ServiceImpl<PredictionRecordMapper, Predi
     private final LotteryService lotteryService;
     private final AdaptivePredictor adaptivePredictor;
     private final PredictionScorer predictionScorer;
+    private final PredictionIndexService predictionIndexService;
+    private final AsyncTaskExecutor analysisExecutor;
+    private final LotteryConfig lotteryConfig;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * 预测方法枚举
@@ -52,16 +68,20 @@ public class PredictionService extends ServiceImpl<PredictionRecordMapper, Predi
      * @param targetIssue 目标期号
      * @return Map 含 "allPredictions"（全部 DTO）、"recommendations"（每种方法推荐的一注 DTO）
      */
-    @Transactional
     public Map<String, Object> generateAllThenRecommend(int count, String targetIssue) {
-        if (targetIssue == null || targetIssue.isEmpty()) {
-            targetIssue = lotteryService.generateNextIssue();
-        }
+        String issue = targetIssue == null || targetIssue.isEmpty() ? lotteryService.generateNextIssue() : targetIssue;
         List<PredictionResultDTO> allPredictions = new ArrayList<>();
         List<PredictionResultDTO> recommendations = new ArrayList<>();
 
-        for (PredictMethod pm : PredictMethod.values()) {
-            List<PredictionResultDTO> methodResults = generateByMethod(count, pm.name(), targetIssue);
+        Map<String, List<int[][]>> predicted = predictAll(count);
+        Map<String, List<PredictionResultDTO>> saved = inTransaction(() -> {
+            Map<String, List<PredictionResultDTO>> byMethod = new LinkedHashMap<>();
+            for (PredictMethod pm : PredictMethod.values()) {
+                byMethod.put(pm.name(), saveAll(pm.name(), predicted.get(pm.name()), issue));
+            }
+            return byMethod;
+        });
+        for (List<PredictionResultDTO> methodResults : saved.values()) {
             allPredictions.addAll(methodResults);
             if (methodResults.isEmpty()) {
                 continue;
@@ -87,26 +107,25 @@ public class PredictionService extends ServiceImpl<PredictionRecordMapper, Predi
      * @param targetIssue 目标期号
      * @return 预测结果列表
      */
-    @Transactional
     public List<PredictionResultDTO> generateAndSavePredictions(int count, String method, String targetIssue) {
-        List<PredictionResultDTO> results = new ArrayList<>();
-        
-        if (targetIssue == null || targetIssue.isEmpty()) {
-            targetIssue = lotteryService.generateNextIssue();
-        }
+        String issue = targetIssue == null || targetIssue.isEmpty() ? lotteryService.generateNextIssue() : targetIssue;
         
         if (method == null || method.isEmpty() || "ALL".equalsIgnoreCase(method)) {
             // 使用所有方法，每种方法生成 count 注
-            for (PredictMethod pm : PredictMethod.values()) {
-                List<PredictionResultDTO> methodResults = generateByMethod(count, pm.name(), targetIssue);
-                results.addAll(methodResults);
-            }
-        } else {
-            // 使用指定方法
-            results = generateByMethod(count, method.toUpperCase(), targetIssue);
+            Map<String, List<int[][]>> predicted = predictAll(count);
+            return inTransaction(() -> {
+                List<PredictionResultDTO> results = new ArrayList<>();
+                for (PredictMethod pm : PredictMethod.values()) {
+                    results.addAll(saveAll(pm.name(), predicted.get(pm.name()), issue));
+                }
+                return results;
+            });
         }
         
-        return results;
+        // 使用指定方法
+        String code = method.toUpperCase();
+        List<int[][]> predictions = predict(code, count);
+        return inTransaction(() -> saveAll(code, predictions, issue));
     }
 
     /**
@@ -117,110 +136,223 @@ public class PredictionService extends ServiceImpl<PredictionRecordMapper, Predi
      * @param targetIssue 目标期号
      * @return 每种方法的最优预测结果
      */
-    @Transactional
     public List<PredictionResultDTO> generateBestPredictions(int candidateCount, String targetIssue) {
-        List<PredictionResultDTO> results = new ArrayList<>();
-        
-        if (targetIssue == null || targetIssue.isEmpty()) {
-            targetIssue = lotteryService.generateNextIssue();
-        }
+        String issue = targetIssue == null || targetIssue.isEmpty() ? lotteryService.generateNextIssue() : targetIssue;
         
+        // 选出各方法最优的一注（读取分析数据，在事务外完成）
+        Map<String, int[][]> best = new LinkedHashMap<>();
+        predictAll(candidateCount).forEach((method, candidates) -> {
+            if (!candidates.isEmpty()) {
+                best.put(method, candidates.get(predictionScorer.selectBestPrediction(candidates)));
+            }
+        });
+        return inTransaction(() -> {
+            List<PredictionResultDTO> results = new ArrayList<>();
+            best.forEach((method, prediction) -> results.add(saveOne(method, prediction, issue)));
+            return results;
+        });
+    }
+
+    /**
+     * 在事务中执行保存（号码计算在事务外完成）
+     */
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    /**
+     * 所有方法并行生成号码（只读计算），按方法代码返回
+     */
+    private Map<String, List<int[][]>> predictAll(int count) {
+        Map<String, CompletableFuture<List<int[][]>>> tasks = new LinkedHashMap<>();
         for (PredictMethod pm : PredictMethod.values()) {
-            PredictionResultDTO best = generateBestByMethod(candidateCount, pm.name(), targetIssue);
-            if (best != null) {
-                results.add(best);
+            tasks.put(pm.name(), CompletableFuture.supplyAsync(() -> predict(pm.name(), count), analysisExecutor));
+        }
+
+        Map<String, List<int[][]>> predicted = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<int[][]>>> task : tasks.entrySet()) {
+            try {
+                predicted.put(task.getKey(), task.getValue().join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
             }
         }
-        
-        return results;
+        return predicted;
     }
 
     /**
-     * 使用指定方法生成多注预测，并选择最优的一注保存
+     * 使用指定方法生成号码（不保存）
      */
-    private PredictionResultDTO generateBestByMethod(int candidateCount, String method, String targetIssue) {
+    private List<int[][]> predict(String method, int count) {
         BasePredictor predictor = createPredictor(method);
-        if (predictor == null) {
-            return null;
-        }
-        
-        // 生成候选预测
-        List<int[][]> candidates = predictor.predictMultiple(candidateCount);
-        if (candidates.isEmpty()) {
-            return null;
-        }
-        
-        // 选择最优的一注
-        int bestIndex = predictionScorer.selectBestPrediction(candidates);
-        int[][] bestPrediction = candidates.get(bestIndex);
-        
-        // 保存最优预测到数据库
-        PredictionRecord record = new PredictionRecord();
-        record.setTargetIssue(targetIssue);
-        record.setPredictMethod(method);
-        record.setFrontBallArray(bestPrediction[0]);
-        record.setBackBallArray(bestPrediction[1]);
-        record.setIsVerified(0);
-        
+        return predictor != null ? predictor.predictMultiple(count) : Collections.emptyList();
+    }
+
+    /**
+     * 保存选出的最优一注
+     */
+    private PredictionResultDTO saveOne(String method, int[][] prediction, String targetIssue) {
+        PredictionRecord record = newRecord(method, prediction, targetIssue);
         save(record);
+        predictionIndexService.invalidate(targetIssue);
         
-        // 转换为DTO
-        PredictionResultDTO dto = new PredictionResultDTO();
-        dto.setId(record.getId());
-        dto.setTargetIssue(targetIssue);
-        dto.setPredictMethod(method);
-        dto.setMethodName(PredictionResultDTO.getMethodDisplayName(method));
-        dto.setFrontBalls(bestPrediction[0]);
-        dto.setBackBalls(bestPrediction[1]);
-        dto.setFrontBallsStr(record.getFrontBalls());
-        dto.setBackBallsStr(record.getBackBalls());
-        dto.setVerified(false);
-        
-        return dto;
+        return toDto(record, prediction);
     }
 
     /**
-     * 使用指定方法生成预测
+     * 保存一个方法生成的全部预测
      */
-    private List<PredictionResultDTO> generateByMethod(int count, String method, String targetIssue) {
-        BasePredictor predictor = createPredictor(method);
-        if (predictor == null) {
+    private List<PredictionResultDTO> saveAll(String method, List<int[][]> predictions, String targetIssue) {
+        if (predictions.isEmpty()) {
             return Collections.emptyList();
         }
-        
-        List<int[][]> predictions = predictor.predictMultiple(count);
         List<PredictionResultDTO> results = new ArrayList<>();
         
         for (int[][] prediction : predictions) {
-            // 创建记录
-            PredictionRecord record = new PredictionRecord();
-            record.setTargetIssue(targetIssue);
-            record.setPredictMethod(method);
-            record.setFrontBallArray(prediction[0]);
-            record.setBackBallArray(prediction[1]);
-            record.setIsVerified(0);
-            
-            // 保存到数据库
+            PredictionRecord record = newRecord(method, prediction, targetIssue);
             save(record);
-            
-            // 转换为DTO
-            PredictionResultDTO dto = new PredictionResultDTO();
-            dto.setId(record.getId());
-            dto.setTargetIssue(targetIssue);
-            dto.setPredictMethod(method);
-            dto.setMethodName(PredictionResultDTO.getMethodDisplayName(method));
-            dto.setFrontBalls(prediction[0]);
-            dto.setBackBalls(prediction[1]);
-            dto.setFrontBallsStr(record.getFrontBalls());
-            dto.setBackBallsStr(record.getBackBalls());
-            dto.setVerified(false);
-            
-            results.add(dto);
+            results.add(toDto(record, prediction));
         }
+        predictionIndexService.invalidate(targetIssue);
         
         return results;
     }
 
+    /**
+     * 流式生成预测：按批生成并逐注回调，每批在后台保存。
+     * 同一时刻最多一批在保存、一批在生成；每种方法在各批之间共用一个去重集合（每注一个 long），
+     * 与一次性生成一样不会出现重复的号码，除去重集合外内存占用与总注数无关；
+     * 回调抛出异常（如客户端断开）时停止生成，已回调的预测仍会保存
+     *
+     * @param count 每种方法生成的注数
+     * @param method 预测方法，null 或 ALL 表示所有方法
+     * @param targetIssue 目标期号
+     * @param sink 逐注回调（此时预测尚未保存，没有 id）
+     * @return 请求、实际生成与已保存的注数
+     * @throws IllegalArgumentException 预测方法不存在
+     */
+    public StreamResult generateStreaming(int count, String method, String targetIssue,
+                                          Consumer<PredictionResultDTO> sink) {
+        List<String> methods = method == null || method.isEmpty() || "ALL".equalsIgnoreCase(method)
+            ? Arrays.stream(PredictMethod.values()).map(Enum::name).toList()
+            : List.of(method.toUpperCase());
+        List<BasePredictor> predictors = new ArrayList<>(methods.size());
+        for (String m : methods) {
+            BasePredictor predictor = createPredictor(m);
+            if (predictor == null) {
+                throw new IllegalArgumentException("未知的预测方法: " + method);
+            }
+            predictors.add(predictor);
+        }
+        int batchSize = Math.max(1, lotteryConfig.getPrediction().getStreamBatchSize());
+
+        AtomicInteger saved = new AtomicInteger();
+        int emittedTotal = 0;
+        CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+        List<PredictionRecord> batch = new ArrayList<>(batchSize);
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < methods.size(); i++) {
+                String m = methods.get(i);
+                BasePredictor predictor = predictors.get(i);
+                Set<Long> seen = new HashSet<>();
+                for (int remaining = count; remaining > 0; ) {
+                    int n = Math.min(batchSize - batch.size(), remaining);
+                    // 与之前各批重复的号码丢弃后补足，多次补不足时（号码空间接近用尽）放弃差额，由结果中的实际生成数反映
+                    int emitted = 0;
+                    for (int round = 0; emitted < n && round < 10; round++) {
+                        List<int[][]> generated = predictor.predictMultiple(n - emitted);
+                        if (generated.isEmpty()) {
+                            break;
+                        }
+                        for (int[][] prediction : generated) {
+                            if (!seen.add(TicketMask.pack(prediction[0], prediction[1]))) {
+                                continue;
+                            }
+                            PredictionRecord record = newRecord(m, prediction, targetIssue);
+                            batch.add(record);
+                            sink.accept(toDto(record, prediction));
+                            emitted++;
+                        }
+                    }
+                    emittedTotal += emitted;
+                    remaining -= n;
+                    if (batch.size() >= batchSize) {
+                        pending = persistAfter(pending, batch, saved);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // 等待最后一批保存；生成已失败时保存失败作为被抑制的异常附加，不覆盖原因
+            try {
+                persistAfter(pending, batch, saved).join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    throw e;
+                }
+                if (e != failure) {
+                    failure.addSuppressed(e);
+                }
+            } finally {
+                predictionIndexService.invalidate(targetIssue);
+            }
+        }
+        return new StreamResult(count * methods.size(), emittedTotal, saved.get());
+    }
+
+    /**
+     * 流式生成的结果；号码空间接近用尽时去重补不足，实际生成的注数会少于请求的注数
+     *
+     * @param requested 请求的注数（每种方法的注数 × 方法数）
+     * @param emitted 实际生成并回调的注数
+     * @param saved 已保存的注数
+     */
+    public record StreamResult(int requested, int emitted, int saved) {
+    }
+
+    /**
+     * 等上一批保存完成后，在后台保存本批
+     */
+    private CompletableFuture<Void> persistAfter(CompletableFuture<Void> previous, List<PredictionRecord> batch,
+                                                 AtomicInteger saved) {
+        previous.join();
+        if (batch.isEmpty()) {
+            return previous;
+        }
+        return CompletableFuture.runAsync(() -> {
+            saveBatch(batch);
+            saved.addAndGet(batch.size());
+        }, analysisExecutor);
+    }
+
+    private static PredictionRecord newRecord(String method, int[][] prediction, String targetIssue) {
+        PredictionRecord record = new PredictionRecord();
+        record.setTargetIssue(targetIssue);
+        record.setPredictMethod(method);
+        record.setFrontBallArray(prediction[0]);
+        record.setBackBallArray(prediction[1]);
+        record.setIsVerified(0);
+        return record;
+    }
+
+    private static PredictionResultDTO toDto(PredictionRecord record, int[][] prediction) {
+        PredictionResultDTO dto = new PredictionResultDTO();
+        dto.setId(record.getId());
+        dto.setTargetIssue(record.getTargetIssue());
+        dto.setPredictMethod(record.getPredictMethod());
+        dto.setMethodName(PredictionResultDTO.getMethodDisplayName(record.getPredictMethod()));
+        dto.setFrontBalls(prediction[0]);
+        dto.setBackBalls(prediction[1]);
+        dto.setFrontBallsStr(record.getFrontBalls());
+        dto.setBackBallsStr(record.getBackBalls());
+        dto.setVerified(false);
+        return dto;
+    }
+
     /**
      * 创建预测器
      */
@@ -229,7 +361,7 @@ public class PredictionService extends ServiceImpl<PredictionRecordMapper, Predi
             case "HOT" -> new HotNumberPredictor(analysisService);
             case "MISSING" -> new MissingPredictor(analysisService);
             case "BALANCED" -> new BalancedPredictor(analysisService);
-            case "ML" -> new MLPredictor(analysisService, lotteryService);
+            case "ML" -> new MLPredictor(analysisService);
             case "ADAPTIVE" -> new AdaptivePredictorWrapper(adaptivePredictor);
             default -> null;
         };
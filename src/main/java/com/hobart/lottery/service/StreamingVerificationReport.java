@@ -0,0 +1,64 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.domain.model.PrizeLevel;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 流式验证报告
+ * 随批次推进累计已处理记录数和各中奖等级的分布
+ */
+@Getter
+public class StreamingVerificationReport {
+
+    private final String issue;
+    private long processed;
+    private int batches;
+    private boolean finished;
+
+    /** 按 PrizeLevel 序号统计的记录数 */
+    private final long[] histogram = new long[PrizeLevel.values().length];
+
+    public StreamingVerificationReport(String issue) {
+        this.issue = issue;
+    }
+
+    void record(PrizeLevel level) {
+        histogram[level.ordinal()]++;
+        processed++;
+    }
+
+    void batchWritten() {
+        batches++;
+    }
+
+    void finish() {
+        finished = true;
+    }
+
+    /**
+     * 中奖等级 -> 记录数
+     */
+    public Map<String, Long> getPrizeHistogram() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (PrizeLevel level : PrizeLevel.values()) {
+            map.put(level.getDisplayName(), histogram[level.ordinal()]);
+        }
+        return map;
+    }
+
+    /**
+     * 报告快照（用于接口返回）
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("issue", issue);
+        map.put("processed", processed);
+        map.put("batches", batches);
+        map.put("finished", finished);
+        map.put("histogram", getPrizeHistogram());
+        return map;
+    }
+}
@@ -0,0 +1,145 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.PrizeLevel;
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.entity.PredictionAccuracy;
+import com.hobart.lottery.entity.PredictionRecord;
+import com.hobart.lottery.mapper.PredictionRecordMapper;
+import com.hobart.lottery.service.learning.WeightAdjuster;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 流式验证服务
+ * 用于单期预测量极大（百万级）的场景：游标逐行读取未验证记录，按位掩码计分，
+ * 每满一批即在独立事务中写回结果、累加准确率统计并更新权重，内存占用与记录总数无关
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingVerificationService {
+
+    private final PredictionRecordMapper predictionRecordMapper;
+    private final LotteryService lotteryService;
+    private final VerificationService verificationService;
+    private final WeightAdjuster weightAdjuster;
+    private final PlatformTransactionManager transactionManager;
+    private final LotteryConfig config;
+
+    /**
+     * 流式验证某期的所有预测记录
+     *
+     * @param issue 期号
+     * @param onBatch 每写入一批后回调（可为 null），用于输出实时的中奖等级分布
+     * @return 验证报告
+     */
+    public StreamingVerificationReport verify(String issue, Consumer<StreamingVerificationReport> onBatch) {
+        LotteryResult result = lotteryService.getByIssue(issue);
+        if (result == null) {
+            throw new RuntimeException("未找到期号 " + issue + " 的开奖结果");
+        }
+
+        long drawMask = TicketMask.pack(result);
+        int batchSize = Math.max(1, config.getVerification().getStreamBatchSize());
+        StreamingVerificationReport report = new StreamingVerificationReport(issue);
+
+        // 读取在只读事务中保持游标打开；写入用 REQUIRES_NEW 另取连接，逐批提交
+        TransactionTemplate readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        TransactionTemplate writeTx = new TransactionTemplate(transactionManager);
+        writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        readTx.executeWithoutResult(status -> {
+            List<PredictionRecord> batch = new ArrayList<>(batchSize);
+            try (Cursor<PredictionRecord> cursor = predictionRecordMapper.scanUnverifiedByIssue(issue)) {
+                for (PredictionRecord record : cursor) {
+                    long ticketMask = TicketMask.pack(record.getFrontBallArray(), record.getBackBallArray());
+                    int frontHit = TicketMask.frontHits(ticketMask, drawMask);
+                    int backHit = TicketMask.backHits(ticketMask, drawMask);
+                    PrizeLevel level = PrizeLevel.of(frontHit, backHit);
+
+                    record.setFrontHitCount(frontHit);
+                    record.setBackHitCount(backHit);
+                    record.setPrizeLevel(level.getDisplayName());
+                    record.setIsVerified(1);
+                    batch.add(record);
+
+                    if (batch.size() >= batchSize) {
+                        writeBatch(batch, writeTx, report, onBatch);
+                        batch.clear();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch, writeTx, report, onBatch);
+            }
+        });
+
+        report.finish();
+        log.info("期号 {} 流式验证完成: {}", issue, report.toMap());
+        return report;
+    }
+
+    /**
+     * 在独立事务中写回一批结果
+     * 先锁定本批中仍未验证的记录（其他验证任务已处理的记录跳过，不重复计入统计），
+     * 命中组合最多 18 种，同组记录用一条 UPDATE ... WHERE id IN 写入
+     */
+    private void writeBatch(List<PredictionRecord> batch, TransactionTemplate writeTx,
+                            StreamingVerificationReport report, Consumer<StreamingVerificationReport> onBatch) {
+        writeTx.executeWithoutResult(status -> {
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (PredictionRecord record : batch) {
+                ids.add(record.getId());
+            }
+            Set<Long> pending = new HashSet<>(predictionRecordMapper.lockUnverifiedIds(ids));
+
+            List<PredictionRecord> claimed = new ArrayList<>(pending.size());
+            Map<Integer, List<Long>> idsByHits = new HashMap<>();
+            Map<String, PredictionAccuracy> deltas = new TreeMap<>();
+            for (PredictionRecord record : batch) {
+                if (!pending.contains(record.getId())) {
+                    continue;
+                }
+                claimed.add(record);
+                report.record(PrizeLevel.of(record.getFrontHitCount(), record.getBackHitCount()));
+                int key = record.getFrontHitCount() * 3 + record.getBackHitCount();
+                idsByHits.computeIfAbsent(key, k -> new ArrayList<>()).add(record.getId());
+                VerificationService.accumulateAccuracy(deltas, record);
+            }
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            for (Map.Entry<Integer, List<Long>> entry : idsByHits.entrySet()) {
+                int frontHit = entry.getKey() / 3;
+                int backHit = entry.getKey() % 3;
+                predictionRecordMapper.markVerified(entry.getValue(), frontHit, backHit,
+                        PrizeLevel.of(frontHit, backHit).getDisplayName());
+            }
+            verificationService.applyAccuracyDelta(deltas);
+            weightAdjuster.adjustWeightsBatch(claimed);
+        });
+
+        report.batchWritten();
+        log.debug("期号 {} 已写入第 {} 批，累计 {} 条，分布 {}",
+                report.getIssue(), report.getBatches(), report.getProcessed(), report.getPrizeHistogram());
+        if (onBatch != null) {
+            onBatch.accept(report);
+        }
+    }
+}
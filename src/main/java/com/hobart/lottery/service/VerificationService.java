@@ -1,7 +1,8 @@
 package com.hobart.lottery.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.hobart.lottery.domain.model.PrizeLevel;
+import com.hobart.lottery.domain.model.TicketMask;
 import com.hobart.lottery.dto.AccuracyStatsDTO;
 import com.hobart.lottery.dto.PredictionResultDTO;
 import com.hobart.lottery.entity.LotteryResult;
@@ -32,6 +33,7 @@ public class VerificationService extends ServiceImpl<PredictionAccuracyMapper, P
     private final PredictionRecordMapper predictionRecordMapper;
     private final LotteryService lotteryService;
     private final WeightAdjuster weightAdjuster;
+    private final DataVersion dataVersion;
 
     /**
      * 中奖等级判定（根据大乐透官方规则）
@@ -44,28 +46,7 @@ public class VerificationService extends ServiceImpl<PredictionAccuracyMapper, P
      * 七等奖：3+0 或 2+1 或 1+2 或 0+2
      */
     public static String determinePrizeLevel(int frontHit, int backHit) {
-        // 一等奖：5+2
-        if (frontHit == 5 && backHit == 2) return "一等奖";
-        // 二等奖：5+1
-        if (frontHit == 5 && backHit == 1) return "二等奖";
-        // 三等奖：5+0 或 4+2
-        if (frontHit == 5 && backHit == 0) return "三等奖";
-        if (frontHit == 4 && backHit == 2) return "三等奖";
-        // 四等奖：4+1
-        if (frontHit == 4 && backHit == 1) return "四等奖";
-        // 五等奖：4+0 或 3+2
-        if (frontHit == 4 && backHit == 0) return "五等奖";
-        if (frontHit == 3 && backHit == 2) return "五等奖";
-        // 六等奖：3+1 或 2+2
-        if (frontHit == 3 && backHit == 1) return "六等奖";
-        if (frontHit == 2 && backHit == 2) return "六等奖";
-        // 七等奖：3+0 或 2+1 或 1+2 或 0+2
-        if (frontHit == 3 && backHit == 0) return "七等奖";
-        if (frontHit == 2 && backHit == 1) return "七等奖";
-        if (frontHit == 1 && backHit == 2) return "七等奖";
-        if (frontHit == 0 && backHit == 2) return "七等奖";
-        // 未中奖
-        return "未中奖";
+        return PrizeLevel.of(frontHit, backHit).getDisplayName();
     }
 
     /**
@@ -80,136 +61,166 @@ public class VerificationService extends ServiceImpl<PredictionAccuracyMapper, P
         if (result == null) {
             throw new RuntimeException("未找到期号 " + issue + " 的开奖结果");
         }
+        return verifyPredictions(result);
+    }
 
-        // 获取该期未验证的预测记录
-        List<PredictionRecord> unverified = predictionRecordMapper.selectUnverifiedByIssue(issue);
-        if (unverified.isEmpty()) {
+    /**
+     * 使用已查询到的开奖结果验证该期的所有预测记录
+     * 计分、准确率统计与权重学习在同一事务中，学习失败时整期回滚，可重新验证
+     * @param result 开奖结果
+     * @return 验证结果列表
+     */
+    @Transactional
+    public List<PredictionResultDTO> verifyPredictions(LotteryResult result) {
+        List<PredictionRecord> claimed = scorePredictions(result);
+        if (claimed.isEmpty()) {
             return Collections.emptyList();
         }
 
-        int[] actualFront = result.getFrontBallArray();
-        int[] actualBack = result.getBackBallArray();
-        Set<Integer> actualFrontSet = Arrays.stream(actualFront).boxed().collect(Collectors.toSet());
-        Set<Integer> actualBackSet = Arrays.stream(actualBack).boxed().collect(Collectors.toSet());
-
-        List<PredictionResultDTO> verifiedResults = new ArrayList<>();
-
-        for (PredictionRecord record : unverified) {
-            // 计算命中数
-            int frontHit = 0, backHit = 0;
+        // 更新持续学习权重
+        weightAdjuster.adjustWeightsBatch(claimed);
+        log.info("期号 {} 验证完成，已更新 {} 条预测的方法权重", result.getIssue(), claimed.size());
 
-            int[] predictFront = record.getFrontBallArray();
-            int[] predictBack = record.getBackBallArray();
+        return claimed.stream().map(this::convertToDTO).collect(Collectors.toList());
+    }
 
-            for (int ball : predictFront) {
-                if (actualFrontSet.contains(ball)) {
-                    frontHit++;
-                }
-            }
+    /**
+     * 验证该期预测并累加准确率统计，不更新方法权重
+     * 批量验证并行计分后，再按期号顺序调用 {@link WeightAdjuster#adjustWeightsBatch} 学习
+     * @param result 开奖结果
+     * @return 本事务实际写入的已验证记录
+     */
+    @Transactional
+    public List<PredictionRecord> scorePredictions(LotteryResult result) {
+        // 获取并锁定该期未验证的预测记录，并发验证同一期时只有先取得锁的事务处理这些记录
+        List<PredictionRecord> unverified = predictionRecordMapper.lockUnverifiedByIssue(result.getIssue());
+        if (unverified.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-            for (int ball : predictBack) {
-                if (actualBackSet.contains(ball)) {
-                    backHit++;
-                }
-            }
+        long drawMask = TicketMask.pack(result);
+        List<PredictionRecord> claimed = new ArrayList<>(unverified.size());
 
-            // 判定中奖等级
-            String prizeLevel = determinePrizeLevel(frontHit, backHit);
+        for (PredictionRecord record : unverified) {
+            // 计算命中数
+            long ticketMask = TicketMask.pack(record.getFrontBallArray(), record.getBackBallArray());
+            int frontHit = TicketMask.frontHits(ticketMask, drawMask);
+            int backHit = TicketMask.backHits(ticketMask, drawMask);
 
             // 更新记录
             record.setFrontHitCount(frontHit);
             record.setBackHitCount(backHit);
-            record.setPrizeLevel(prizeLevel);
+            record.setPrizeLevel(determinePrizeLevel(frontHit, backHit));
             record.setIsVerified(1);
             record.setVerifiedAt(LocalDateTime.now());
-            predictionRecordMapper.updateById(record);
-
-            // 转换为DTO
-            PredictionResultDTO dto = new PredictionResultDTO();
-            dto.setId(record.getId());
-            dto.setTargetIssue(record.getTargetIssue());
-            dto.setPredictMethod(record.getPredictMethod());
-            dto.setMethodName(PredictionResultDTO.getMethodDisplayName(record.getPredictMethod()));
-            dto.setFrontBalls(predictFront);
-            dto.setBackBalls(predictBack);
-            dto.setFrontBallsStr(record.getFrontBalls());
-            dto.setBackBallsStr(record.getBackBalls());
-            dto.setVerified(true);
-            dto.setFrontHitCount(frontHit);
-            dto.setBackHitCount(backHit);
-            dto.setPrizeLevel(prizeLevel);
-
-            verifiedResults.add(dto);
+            if (predictionRecordMapper.markVerifiedIfPending(record) == 1) {
+                claimed.add(record);
+            }
         }
 
-        // 更新准确率统计
-        updateAccuracyStats();
-        
-        // 更新持续学习权重
-        try {
-            weightAdjuster.adjustWeightsBatch(unverified);
-            log.info("期号 {} 验证完成，已更新 {} 条预测的方法权重", issue, unverified.size());
-        } catch (Exception e) {
-            log.error("更新方法权重失败: {}", e.getMessage());
+        // 只有本事务实际写入的记录计入统计与学习
+        applyAccuracyDelta(claimed);
+        return claimed;
+    }
+
+    /**
+     * 将一批刚验证的记录作为增量累加到准确率统计表
+     * 只汇总本批记录，每个方法一条 upsert，耗时与历史记录总量无关
+     *
+     * @param verified 本次验证的记录
+     */
+    @Transactional
+    public void applyAccuracyDelta(List<PredictionRecord> verified) {
+        // 按方法排序写入，并发验证时各事务加锁顺序一致
+        Map<String, PredictionAccuracy> deltas = new TreeMap<>();
+        for (PredictionRecord record : verified) {
+            accumulateAccuracy(deltas, record);
+        }
+        applyAccuracyDelta(deltas);
+    }
+
+    /**
+     * 写入已汇总好的增量
+     */
+    public void applyAccuracyDelta(Map<String, PredictionAccuracy> deltas) {
+        for (PredictionAccuracy delta : deltas.values()) {
+            baseMapper.upsertDelta(delta);
+        }
+        if (!deltas.isEmpty()) {
+            dataVersion.accuracyChanged();
+        }
+    }
+
+    /**
+     * 将单条已验证记录累加到对应方法的增量中
+     */
+    public static void accumulateAccuracy(Map<String, PredictionAccuracy> deltas, PredictionRecord record) {
+        PredictionAccuracy delta = deltas.computeIfAbsent(record.getPredictMethod(), VerificationService::emptyDelta);
+        int frontHit = record.getFrontHitCount() != null ? record.getFrontHitCount() : 0;
+        int backHit = record.getBackHitCount() != null ? record.getBackHitCount() : 0;
+
+        delta.setTotalPredictions(delta.getTotalPredictions() + 1);
+        delta.setFrontHitSum(delta.getFrontHitSum() + frontHit);
+        delta.setBackHitSum(delta.getBackHitSum() + backHit);
+        // 首次插入时直接使用本批的平均值
+        delta.setFrontAvgHit(BigDecimal.valueOf((double) delta.getFrontHitSum() / delta.getTotalPredictions())
+                .setScale(2, RoundingMode.HALF_UP));
+        delta.setBackAvgHit(BigDecimal.valueOf((double) delta.getBackHitSum() / delta.getTotalPredictions())
+                .setScale(2, RoundingMode.HALF_UP));
+
+        String prizeLevel = record.getPrizeLevel();
+        if (prizeLevel == null) {
+            return;
+        }
+        switch (prizeLevel) {
+            case "一等奖" -> delta.setPrizeCount1(delta.getPrizeCount1() + 1);
+            case "二等奖" -> delta.setPrizeCount2(delta.getPrizeCount2() + 1);
+            case "三等奖" -> delta.setPrizeCount3(delta.getPrizeCount3() + 1);
+            case "四等奖" -> delta.setPrizeCount4(delta.getPrizeCount4() + 1);
+            case "五等奖" -> delta.setPrizeCount5(delta.getPrizeCount5() + 1);
+            case "六等奖" -> delta.setPrizeCount6(delta.getPrizeCount6() + 1);
+            case "七等奖" -> delta.setPrizeCount7(delta.getPrizeCount7() + 1);
+            default -> { }
         }
+    }
 
-        return verifiedResults;
+    private static PredictionAccuracy emptyDelta(String method) {
+        PredictionAccuracy delta = new PredictionAccuracy();
+        delta.setPredictMethod(method);
+        delta.setTotalPredictions(0);
+        delta.setFrontHitSum(0L);
+        delta.setBackHitSum(0L);
+        delta.setPrizeCount1(0);
+        delta.setPrizeCount2(0);
+        delta.setPrizeCount3(0);
+        delta.setPrizeCount4(0);
+        delta.setPrizeCount5(0);
+        delta.setPrizeCount6(0);
+        delta.setPrizeCount7(0);
+        return delta;
     }
 
     /**
-     * 更新准确率统计表
+     * 全量重建准确率统计表
+     * 先在同一事务内清零所有方法的统计，再用一条 GROUP BY 汇总所有已验证记录、每个方法一条 upsert，
+     * 用于初始化累计字段或修复统计
      */
     @Transactional
     public void updateAccuracyStats() {
-        // 获取所有预测方法
-        String[] methods = {"HOT", "MISSING", "BALANCED", "ML", "ADAPTIVE"};
+        List<PredictionAccuracy> aggregated = baseMapper.aggregateVerifiedRecords();
 
-        for (String method : methods) {
-            // 获取该方法的所有已验证记录
-            List<PredictionRecord> verified = predictionRecordMapper.selectVerifiedByMethod(method);
-
-            if (verified.isEmpty()) {
+        baseMapper.resetAll();
+        for (PredictionAccuracy agg : aggregated) {
+            int total = agg.getTotalPredictions();
+            if (total == 0) {
                 continue;
             }
-
-            // 计算统计数据
-            int total = verified.size();
-            double frontAvg = verified.stream()
-                    .mapToInt(r -> r.getFrontHitCount() != null ? r.getFrontHitCount() : 0)
-                    .average().orElse(0);
-            double backAvg = verified.stream()
-                    .mapToInt(r -> r.getBackHitCount() != null ? r.getBackHitCount() : 0)
-                    .average().orElse(0);
-
-            // 统计各等级中奖次数
-            Map<String, Long> prizeCounts = verified.stream()
-                    .filter(r -> r.getPrizeLevel() != null && !r.getPrizeLevel().equals("未中奖"))
-                    .collect(Collectors.groupingBy(PredictionRecord::getPrizeLevel, Collectors.counting()));
-
-            // 查询或创建统计记录
-            PredictionAccuracy accuracy = baseMapper.selectByMethod(method);
-            if (accuracy == null) {
-                accuracy = new PredictionAccuracy();
-                accuracy.setPredictMethod(method);
-            }
-
-            accuracy.setTotalPredictions(total);
-            accuracy.setFrontAvgHit(BigDecimal.valueOf(frontAvg).setScale(2, RoundingMode.HALF_UP));
-            accuracy.setBackAvgHit(BigDecimal.valueOf(backAvg).setScale(2, RoundingMode.HALF_UP));
-            accuracy.setPrizeCount1(prizeCounts.getOrDefault("一等奖", 0L).intValue());
-            accuracy.setPrizeCount2(prizeCounts.getOrDefault("二等奖", 0L).intValue());
-            accuracy.setPrizeCount3(prizeCounts.getOrDefault("三等奖", 0L).intValue());
-            accuracy.setPrizeCount4(prizeCounts.getOrDefault("四等奖", 0L).intValue());
-            accuracy.setPrizeCount5(prizeCounts.getOrDefault("五等奖", 0L).intValue());
-            accuracy.setPrizeCount6(prizeCounts.getOrDefault("六等奖", 0L).intValue());
-            accuracy.setPrizeCount7(prizeCounts.getOrDefault("七等奖", 0L).intValue());
-
-            if (accuracy.getId() == null) {
-                save(accuracy);
-            } else {
-                updateById(accuracy);
-            }
+            agg.setFrontAvgHit(BigDecimal.valueOf((double) agg.getFrontHitSum() / total).setScale(2, RoundingMode.HALF_UP));
+            agg.setBackAvgHit(BigDecimal.valueOf((double) agg.getBackHitSum() / total).setScale(2, RoundingMode.HALF_UP));
+            // 已清零，增量即全量
+            baseMapper.upsertDelta(agg);
         }
+        dataVersion.accuracyChanged();
     }
 
     /**
@@ -269,15 +280,7 @@ public class VerificationService extends ServiceImpl<PredictionAccuracyMapper, P
      * 获取所有未验证的期号列表
      */
     public List<String> getUnverifiedIssues() {
-        LambdaQueryWrapper<PredictionRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(PredictionRecord::getIsVerified, 0)
-                .orderByDesc(PredictionRecord::getTargetIssue);
-
-        return predictionRecordMapper.selectList(wrapper).stream()
-                .map(PredictionRecord::getTargetIssue)
-                .distinct()
-                .sorted((a, b) -> b.compareTo(a))
-                .collect(Collectors.toList());
+        return predictionRecordMapper.selectUnverifiedIssues();
     }
 
     /**
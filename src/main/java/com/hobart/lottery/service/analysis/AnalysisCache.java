@@ -0,0 +1,230 @@
+package com.hobart.lottery.service.analysis;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.AssociationRule;
+import com.hobart.lottery.dto.FrequencyDTO;
+import com.hobart.lottery.dto.MissingDTO;
+import com.hobart.lottery.dto.SameNumberDTO;
+import com.hobart.lottery.service.DataVersion;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 分析结果缓存
+ * 按 (方法, 参数) 缓存 AnalysisFacade 的计算结果，每个开奖历史版本对应一代缓存：
+ * 版本变化时整代替换（原子失效），不会出现新旧数据混用。
+ * 每代按 LRU 淘汰，条目数不超过配置上限。
+ * 缓存的值只有缓存自己持有，取出时返回深拷贝：集合、数组与可变 DTO 逐层复制，
+ * 调用方可以随意修改（部分预测器会原地打乱号码列表），不会影响缓存或其他调用方。
+ * 未命中时同一版本、同一键的并发请求只计算一次（single-flight），其余请求等待并共享该次结果
+ */
+@Component
+public class AnalysisCache {
+
+    private final DataVersion dataVersion;
+    private final int maxEntries;
+
+    private final AtomicReference<Generation> current;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /** 正在计算中的键 -> 计算结果 */
+    private final Map<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public AnalysisCache(DataVersion dataVersion, LotteryConfig config) {
+        this.dataVersion = dataVersion;
+        this.maxEntries = Math.max(1, config.getAnalysis().getCacheMaxEntries());
+        this.current = new AtomicReference<>(new Generation(dataVersion.history(), maxEntries, evictions));
+    }
+
+    private record Key(String method, List<Object> args) {
+    }
+
+    private record FlightKey(long version, Key key) {
+    }
+
+    /**
+     * 一代缓存：绑定一个开奖历史版本
+     */
+    private static final class Generation {
+        final long version;
+        final Map<Key, Object> entries;
+
+        Generation(long version, int maxEntries, LongAdder evictions) {
+            this.version = version;
+            this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                    if (size() > maxEntries) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    /**
+     * 读取缓存，未命中时计算并写入
+     * 计算期间历史版本发生变化时结果只返回不缓存
+     *
+     * @param method 方法名（与参数一起构成缓存键）
+     * @param loader 计算函数
+     * @param args 参数，null 合法
+     */
+    public <T> T get(String method, Supplier<T> loader, Object... args) {
+        long version = dataVersion.history();
+        Generation generation = generationFor(version);
+        Key key = new Key(method, Arrays.asList(args));
+
+        Object cached;
+        synchronized (generation) {
+            cached = generation.entries.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return copy(cached);
+        }
+
+        FlightKey flightKey = new FlightKey(version, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+        if (leader != null) {
+            coalesced.increment();
+            return copy(await(leader));
+        }
+
+        misses.increment();
+        try {
+            T value = loader.get();
+            if (value != null && dataVersion.history() == version) {
+                synchronized (generation) {
+                    generation.entries.put(key, value);
+                }
+            }
+            flight.complete(value);
+            return copy(value);
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * 命中统计（用于接口返回）
+     */
+    public Map<String, Object> getStats() {
+        Generation generation = current.get();
+        int size;
+        synchronized (generation) {
+            size = generation.entries.size();
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", generation.version);
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("inFlight", inFlight.size());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private Generation generationFor(long version) {
+        while (true) {
+            Generation generation = current.get();
+            if (generation.version == version) {
+                return generation;
+            }
+            if (generation.version > version) {
+                // 读取版本后历史又已变更：本次结果不会写入，用临时的一代即可，不能回退当前代
+                return new Generation(version, maxEntries, evictions);
+            }
+            Generation next = new Generation(version, maxEntries, evictions);
+            if (current.compareAndSet(generation, next)) {
+                invalidations.increment();
+                return next;
+            }
+        }
+    }
+
+    /**
+     * 等待其他线程的计算结果，计算失败时抛出原始异常
+     */
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 深拷贝缓存值；不可变的叶子值（数字、字符串、枚举、日期等）直接共享
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copied = map instanceof TreeMap<?, ?> tree
+                ? new TreeMap<>((Comparator<Object>) tree.comparator())
+                : map instanceof LinkedHashMap<?, ?> ? new LinkedHashMap<>() : new HashMap<>();
+            map.forEach((k, v) -> copied.put(k, copy(v)));
+            return (T) copied;
+        }
+        if (value instanceof Collection<?> collection) {
+            Collection<Object> copied = collection instanceof TreeSet<?> tree
+                ? new TreeSet<>((Comparator<Object>) tree.comparator())
+                : collection instanceof LinkedHashSet<?> ? new LinkedHashSet<>()
+                : collection instanceof Set<?> ? new HashSet<>() : new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                copied.add(copy(element));
+            }
+            return (T) copied;
+        }
+        if (value instanceof int[] array) {
+            return (T) array.clone();
+        }
+        if (value instanceof FrequencyDTO dto) {
+            return (T) new FrequencyDTO(dto.getNumber(), dto.getCount(), dto.getFrequency(), dto.getType());
+        }
+        if (value instanceof MissingDTO dto) {
+            return (T) new MissingDTO(dto.getNumber(), dto.getCurrentMissing(), dto.getAvgMissing(),
+                dto.getMaxMissing(), dto.getType());
+        }
+        if (value instanceof SameNumberDTO dto) {
+            return (T) new SameNumberDTO(dto.getFrontBalls(), dto.getBackBalls(), dto.getCount(),
+                copy(dto.getIssues()), copy(dto.getDates()));
+        }
+        if (value instanceof AssociationRule rule) {
+            return (T) new AssociationRule(copy(rule.getAntecedent()), copy(rule.getConsequent()),
+                rule.getSupport(), rule.getConfidence(), rule.getLift(), rule.getZoneType());
+        }
+        return (T) value;
+    }
+}
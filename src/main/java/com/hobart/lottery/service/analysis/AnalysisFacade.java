@@ -1,5 +1,6 @@
 package com.hobart.lottery.service.analysis;
 
+import com.hobart.lottery.domain.model.AssociationRule;
 import com.hobart.lottery.domain.model.NumberZone;
 import com.hobart.lottery.dto.FrequencyDTO;
 import com.hobart.lottery.dto.MissingDTO;
@@ -12,7 +13,7 @@ import java.util.Map;
 
 /**
  * 分析服务门面
- * 统一入口，委托给各个专门的分析器
+ * 统一入口，委托给各个专门的分析器；结果经 AnalysisCache 按开奖历史版本缓存
  */
 @Service
 @RequiredArgsConstructor
@@ -22,99 +23,204 @@ public class AnalysisFacade {
     private final MissingAnalyzer missingAnalyzer;
     private final TrendAnalyzer trendAnalyzer;
     private final StatisticsAnalyzer statisticsAnalyzer;
+    private final AssociationAnalyzer associationAnalyzer;
+    private final AnalysisCache analysisCache;
     
     // ==================== 频率分析 ====================
     
     public List<FrequencyDTO> calculateFrontFrequency() {
-        return frequencyAnalyzer.calculateFrequency(NumberZone.FRONT, null);
+        return analysisCache.get("calculateFrontFrequency",
+            () -> frequencyAnalyzer.calculateFrequency(NumberZone.FRONT, null));
     }
     
     public List<FrequencyDTO> calculateFrontFrequency(Integer recentCount) {
-        return frequencyAnalyzer.calculateFrequency(NumberZone.FRONT, recentCount);
+        return analysisCache.get("calculateFrontFrequency",
+            () -> frequencyAnalyzer.calculateFrequency(NumberZone.FRONT, recentCount), recentCount);
     }
     
     public List<FrequencyDTO> calculateBackFrequency() {
-        return frequencyAnalyzer.calculateFrequency(NumberZone.BACK, null);
+        return analysisCache.get("calculateBackFrequency",
+            () -> frequencyAnalyzer.calculateFrequency(NumberZone.BACK, null));
     }
     
     public List<FrequencyDTO> calculateBackFrequency(Integer recentCount) {
-        return frequencyAnalyzer.calculateFrequency(NumberZone.BACK, recentCount);
+        return analysisCache.get("calculateBackFrequency",
+            () -> frequencyAnalyzer.calculateFrequency(NumberZone.BACK, recentCount), recentCount);
+    }
+    
+    public List<FrequencyDTO> calculateFrontFrequency(Integer recentCount, String asOfIssue) {
+        return analysisCache.get("calculateFrontFrequency",
+            () -> frequencyAnalyzer.calculateFrequency(NumberZone.FRONT, recentCount, asOfIssue), recentCount, asOfIssue);
+    }
+    
+    public List<FrequencyDTO> calculateBackFrequency(Integer recentCount, String asOfIssue) {
+        return analysisCache.get("calculateBackFrequency",
+            () -> frequencyAnalyzer.calculateFrequency(NumberZone.BACK, recentCount, asOfIssue), recentCount, asOfIssue);
     }
     
     // ==================== 遗漏分析 ====================
     
     public List<MissingDTO> calculateFrontMissing() {
-        return missingAnalyzer.calculateMissing(NumberZone.FRONT);
+        return analysisCache.get("calculateFrontMissing",
+            () -> missingAnalyzer.calculateMissing(NumberZone.FRONT));
     }
     
     public List<MissingDTO> calculateBackMissing() {
-        return missingAnalyzer.calculateMissing(NumberZone.BACK);
+        return analysisCache.get("calculateBackMissing",
+            () -> missingAnalyzer.calculateMissing(NumberZone.BACK));
+    }
+    
+    public List<MissingDTO> calculateFrontMissing(String asOfIssue) {
+        return analysisCache.get("calculateFrontMissing",
+            () -> missingAnalyzer.calculateMissing(NumberZone.FRONT, asOfIssue), asOfIssue);
+    }
+    
+    public List<MissingDTO> calculateBackMissing(String asOfIssue) {
+        return analysisCache.get("calculateBackMissing",
+            () -> missingAnalyzer.calculateMissing(NumberZone.BACK, asOfIssue), asOfIssue);
     }
     
     // ==================== 热号冷号 ====================
     
     public List<Integer> getHotFrontNumbers(int count) {
-        return frequencyAnalyzer.getHotNumbers(NumberZone.FRONT, count);
+        return analysisCache.get("getHotFrontNumbers",
+            () -> frequencyAnalyzer.getHotNumbers(NumberZone.FRONT, count), count);
     }
     
     public List<Integer> getHotBackNumbers(int count) {
-        return frequencyAnalyzer.getHotNumbers(NumberZone.BACK, count);
+        return analysisCache.get("getHotBackNumbers",
+            () -> frequencyAnalyzer.getHotNumbers(NumberZone.BACK, count), count);
     }
     
     public List<Integer> getColdFrontNumbers(int count) {
-        return frequencyAnalyzer.getColdNumbers(NumberZone.FRONT, count);
+        return analysisCache.get("getColdFrontNumbers",
+            () -> frequencyAnalyzer.getColdNumbers(NumberZone.FRONT, count), count);
     }
     
     public List<Integer> getColdBackNumbers(int count) {
-        return frequencyAnalyzer.getColdNumbers(NumberZone.BACK, count);
+        return analysisCache.get("getColdBackNumbers",
+            () -> frequencyAnalyzer.getColdNumbers(NumberZone.BACK, count), count);
     }
     
     // ==================== 遗漏到期 ====================
     
     public List<Integer> getMissingDueFrontNumbers(int count) {
-        return missingAnalyzer.getMissingDueNumbers(NumberZone.FRONT, count);
+        return analysisCache.get("getMissingDueFrontNumbers",
+            () -> missingAnalyzer.getMissingDueNumbers(NumberZone.FRONT, count), count);
     }
     
     public List<Integer> getMissingDueBackNumbers(int count) {
-        return missingAnalyzer.getMissingDueNumbers(NumberZone.BACK, count);
+        return analysisCache.get("getMissingDueBackNumbers",
+            () -> missingAnalyzer.getMissingDueNumbers(NumberZone.BACK, count), count);
     }
     
     // ==================== 号码评分 ====================
     
     public Map<Integer, Double> getFrontNumberScores() {
-        return frequencyAnalyzer.getNumberScores(NumberZone.FRONT, missingAnalyzer);
+        return analysisCache.get("getFrontNumberScores",
+            () -> frequencyAnalyzer.getNumberScores(NumberZone.FRONT, missingAnalyzer));
     }
     
     public Map<Integer, Double> getBackNumberScores() {
-        return frequencyAnalyzer.getNumberScores(NumberZone.BACK, missingAnalyzer);
+        return analysisCache.get("getBackNumberScores",
+            () -> frequencyAnalyzer.getNumberScores(NumberZone.BACK, missingAnalyzer));
+    }
+    
+    // ==================== 按区域（预测数据来源） ====================
+    
+    public List<Integer> getHotNumbers(NumberZone zone, int count) {
+        return analysisCache.get("getHotNumbers",
+            () -> frequencyAnalyzer.getHotNumbers(zone, count), zone, count);
+    }
+    
+    public List<Integer> getColdNumbers(NumberZone zone, int count) {
+        return analysisCache.get("getColdNumbers",
+            () -> frequencyAnalyzer.getColdNumbers(zone, count), zone, count);
+    }
+    
+    public List<Integer> getMissingDueNumbers(NumberZone zone, int count) {
+        return analysisCache.get("getMissingDueNumbers",
+            () -> missingAnalyzer.getMissingDueNumbers(zone, count), zone, count);
+    }
+    
+    public List<Integer> getHighMissingNumbers(NumberZone zone, int count) {
+        return analysisCache.get("getHighMissingNumbers",
+            () -> missingAnalyzer.getHighMissingNumbers(zone, count), zone, count);
+    }
+    
+    public Map<Integer, Double> getNumberScores(NumberZone zone) {
+        return analysisCache.get("getNumberScores",
+            () -> frequencyAnalyzer.getNumberScores(zone, missingAnalyzer), zone);
     }
     
     // ==================== 走势分析 ====================
     
     public List<Map<String, Object>> getTrendData(int limit) {
-        return trendAnalyzer.getTrendData(limit);
+        return analysisCache.get("getTrendData", () -> trendAnalyzer.getTrendData(limit), limit);
     }
     
     public List<Map<String, Object>> getTrendData() {
-        return trendAnalyzer.getTrendData();
+        return analysisCache.get("getTrendData", () -> trendAnalyzer.getTrendData());
     }
     
     // ==================== 统计分析 ====================
     
     public Map<String, Integer> getOddEvenStats() {
-        return statisticsAnalyzer.getOddEvenStats();
+        return analysisCache.get("getOddEvenStats", () -> statisticsAnalyzer.getOddEvenStats());
     }
     
     public Map<String, Integer> getFrontSumStats() {
-        return statisticsAnalyzer.getFrontSumStats();
+        return analysisCache.get("getFrontSumStats", () -> statisticsAnalyzer.getFrontSumStats());
     }
     
     public Map<Integer, Integer> getConsecutiveStats() {
-        return statisticsAnalyzer.getConsecutiveStats();
+        return analysisCache.get("getConsecutiveStats", () -> statisticsAnalyzer.getConsecutiveStats());
     }
     
     public List<SameNumberDTO> findSameNumbers() {
-        return statisticsAnalyzer.findSameNumbers();
+        return analysisCache.get("findSameNumbers", () -> statisticsAnalyzer.findSameNumbers());
+    }
+    
+    // ==================== 关联分析 ====================
+    
+    public List<AssociationRule> mineAssociations(NumberZone zone) {
+        return analysisCache.get("mineAssociations", () -> associationAnalyzer.mineAssociations(zone), zone);
+    }
+    
+    public List<AssociationRule> mineAssociations(NumberZone zone, String asOfIssue) {
+        return analysisCache.get("mineAssociations",
+            () -> associationAnalyzer.mineAssociations(zone, asOfIssue), zone, asOfIssue);
+    }
+    
+    public List<Integer> getRelatedNumbers(int number, NumberZone zone, int topN) {
+        return analysisCache.get("getRelatedNumbers",
+            () -> associationAnalyzer.getRelatedNumbers(number, zone, topN), number, zone, topN);
+    }
+    
+    public List<Integer> getRelatedNumbers(int number, NumberZone zone, int topN, String asOfIssue) {
+        return analysisCache.get("getRelatedNumbers",
+            () -> associationAnalyzer.getRelatedNumbers(number, zone, topN, asOfIssue),
+            number, zone, topN, asOfIssue);
+    }
+    
+    public Map<String, Object> getAssociationNetwork(NumberZone zone, int topN) {
+        return analysisCache.get("getAssociationNetwork",
+            () -> associationAnalyzer.getAssociationNetwork(zone, topN), zone, topN);
+    }
+    
+    public Map<String, Object> getAssociationNetwork(NumberZone zone, int topN, String asOfIssue) {
+        return analysisCache.get("getAssociationNetwork",
+            () -> associationAnalyzer.getAssociationNetwork(zone, topN, asOfIssue), zone, topN, asOfIssue);
+    }
+    
+    public List<AssociationRule> mineSequentialAssociations(NumberZone zone) {
+        return analysisCache.get("mineSequentialAssociations",
+            () -> associationAnalyzer.mineSequentialAssociations(zone), zone);
+    }
+    
+    public List<AssociationRule> mineSequentialAssociations(NumberZone zone, String asOfIssue) {
+        return analysisCache.get("mineSequentialAssociations",
+            () -> associationAnalyzer.mineSequentialAssociations(zone, asOfIssue), zone, asOfIssue);
     }
     
     // ==================== 直接访问分析器 ====================
@@ -134,4 +240,8 @@ public class AnalysisFacade {
     public StatisticsAnalyzer getStatisticsAnalyzer() {
         return statisticsAnalyzer;
     }
+    
+    public AssociationAnalyzer getAssociationAnalyzer() {
+        return associationAnalyzer;
+    }
 }
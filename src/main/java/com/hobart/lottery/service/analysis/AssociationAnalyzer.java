@@ -5,6 +5,7 @@ import com.hobart.lottery.domain.model.AssociationRule;
 import com.hobart.lottery.domain.model.NumberZone;
 import com.hobart.lottery.entity.LotteryResult;
 import com.hobart.lottery.service.LotteryService;
+import com.hobart.lottery.service.index.HistoryIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -23,6 +24,7 @@ public class AssociationAnalyzer {
     
     private final LotteryService lotteryService;
     private final LotteryConfig config;
+    private final HistoryIndexService historyIndexService;
     
     /**
      * 挖掘指定区域的号码关联规则
@@ -43,8 +45,24 @@ public class AssociationAnalyzer {
      */
     public List<AssociationRule> mineAssociations(NumberZone zone, int recentCount, 
                                                    double minSupport, double minConfidence) {
-        List<LotteryResult> results = lotteryService.getRecentResults(recentCount);
-        
+        return mine(lotteryService.getRecentResults(recentCount), zone, minSupport, minConfidence);
+    }
+    
+    /**
+     * 挖掘截至某期（含）的号码关联规则，窗口取自开奖历史索引，不查询数据库
+     * 
+     * @param asOfIssue 截止期号，null 表示最新
+     */
+    public List<AssociationRule> mineAssociations(NumberZone zone, String asOfIssue) {
+        return mine(recentAsOf(asOfIssue), zone,
+            config.getAnalysis().getMinSupport(), config.getAnalysis().getMinConfidence());
+    }
+    
+    /**
+     * 在给定的开奖结果上挖掘关联规则
+     */
+    private List<AssociationRule> mine(List<LotteryResult> results, NumberZone zone,
+                                       double minSupport, double minConfidence) {
         // 1. 统计每个号码的出现次数
         Map<Integer, Integer> singleCount = new HashMap<>();
         // 2. 统计每对号码的共现次数
@@ -135,8 +153,17 @@ public class AssociationAnalyzer {
      * @return 关联号码列表
      */
     public List<Integer> getRelatedNumbers(int number, NumberZone zone, int topN) {
-        List<AssociationRule> rules = mineAssociations(zone);
-        
+        return relatedNumbers(mineAssociations(zone), number, topN);
+    }
+    
+    /**
+     * 获取截至某期（含）与指定号码关联度最高的号码
+     */
+    public List<Integer> getRelatedNumbers(int number, NumberZone zone, int topN, String asOfIssue) {
+        return relatedNumbers(mineAssociations(zone, asOfIssue), number, topN);
+    }
+    
+    private List<Integer> relatedNumbers(List<AssociationRule> rules, int number, int topN) {
         return rules.stream()
             .filter(r -> r.getAntecedent().contains(number))
             .sorted(Comparator.comparing(AssociationRule::getLift).reversed())
@@ -154,8 +181,19 @@ public class AssociationAnalyzer {
      * @return 包含 nodes 和 links 的 Map
      */
     public Map<String, Object> getAssociationNetwork(NumberZone zone, int topN) {
-        List<AssociationRule> rules = mineAssociations(zone);
-        
+        int period = config.getAnalysis().getAssociationPeriod();
+        return buildNetwork(mineAssociations(zone), lotteryService.getRecentResults(period), zone, topN);
+    }
+    
+    /**
+     * 获取截至某期（含）的关联网络数据
+     */
+    public Map<String, Object> getAssociationNetwork(NumberZone zone, int topN, String asOfIssue) {
+        return buildNetwork(mineAssociations(zone, asOfIssue), recentAsOf(asOfIssue), zone, topN);
+    }
+    
+    private Map<String, Object> buildNetwork(List<AssociationRule> rules, List<LotteryResult> results,
+                                             NumberZone zone, int topN) {
         // 限制规则数量
         List<AssociationRule> topRules = rules.stream()
             .limit(topN)
@@ -169,8 +207,6 @@ public class AssociationAnalyzer {
         }
         
         // 计算每个号码的出现频率（用于节点大小）
-        int period = config.getAnalysis().getAssociationPeriod();
-        List<LotteryResult> results = lotteryService.getRecentResults(period);
         Map<Integer, Integer> frequency = new HashMap<>();
         
         for (LotteryResult result : results) {
@@ -226,11 +262,20 @@ public class AssociationAnalyzer {
      */
     public List<AssociationRule> mineSequentialAssociations(NumberZone zone) {
         int period = config.getAnalysis().getAssociationPeriod();
+        return mineSequential(lotteryService.getRecentResults(period), zone);
+    }
+    
+    /**
+     * 挖掘截至某期（含）的连续期关联
+     */
+    public List<AssociationRule> mineSequentialAssociations(NumberZone zone, String asOfIssue) {
+        return mineSequential(recentAsOf(asOfIssue), zone);
+    }
+    
+    private List<AssociationRule> mineSequential(List<LotteryResult> results, NumberZone zone) {
         double minSupport = config.getAnalysis().getMinSupport();
         double minConfidence = config.getAnalysis().getMinConfidence();
         
-        List<LotteryResult> results = lotteryService.getRecentResults(period);
-        
         // 统计上期号码 -> 本期号码的共现
         Map<String, Integer> sequentialCount = new HashMap<>();
         Map<Integer, Integer> prevCount = new HashMap<>();
@@ -284,4 +329,11 @@ public class AssociationAnalyzer {
         log.info("区域 {} 挖掘到 {} 条连续期关联规则", zone.getDisplayName(), rules.size());
         return rules;
     }
+    
+    /**
+     * 截至某期（含）的关联分析窗口（最新的在前）
+     */
+    private List<LotteryResult> recentAsOf(String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).getRecentResults(config.getAnalysis().getAssociationPeriod());
+    }
 }
@@ -0,0 +1,140 @@
+package com.hobart.lottery.service.analysis;
+
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.service.index.DrawHistoryIndex;
+import com.hobart.lottery.service.index.HistoryIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 走势与共现矩阵的列式二进制编码
+ * 供图表客户端加载多年历史使用，代替逐行 JSON；所有数值均为小端序，
+ * 各列按元素宽度从大到小排列、头部 8 字节，客户端可直接用 TypedArray 按偏移量读取，无需拷贝
+ *
+ * <pre>
+ * 走势   int32 n, int32 0, int64[n] 开奖掩码（前区位 0-34，后区位 40-51）, int32[n] 期号,
+ *        int32[n] 开奖日期（epochDay）, int16[n] 前区和值, int16[n] 后区和值,
+ *        int8[n] 前区奇数个数, int8[n] 前区连号数
+ * 号码走势 int32 n, int32 号码, uint8[(n+7)/8] 出现位图（第 i 期为第 i 位，低位在前）
+ * 共现矩阵 int32 size, int32 期数, int32[size*size] 行优先计数，[i][j] 为号码 i+1 与 j+1 同期开出的次数，
+ *        对角线为单个号码出现次数
+ * </pre>
+ * 各期均按时间正序
+ */
+@Service
+@RequiredArgsConstructor
+public class ColumnarTrendEncoder {
+
+    /** 奇数号码所在的位（号码 1 为第 0 位） */
+    private static final long ODD_BITS = 0x5555_5555_5555_5555L & TicketMask.FRONT_BITS;
+
+    private final HistoryIndexService historyIndexService;
+
+    /**
+     * 最近 limit 期的走势数据
+     */
+    public byte[] encodeTrend(int limit) {
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        int to = index.size();
+        int from = Math.max(0, to - Math.max(0, limit));
+        int n = to - from;
+
+        ByteBuffer buffer = allocate(8 + n * (8 + 4 + 4 + 2 + 2 + 1 + 1));
+        buffer.putInt(n).putInt(0);
+        for (int t = from; t < to; t++) {
+            buffer.putLong(index.mask(t));
+        }
+        for (int t = from; t < to; t++) {
+            buffer.putInt(Integer.parseInt(index.issue(t)));
+        }
+        for (int t = from; t < to; t++) {
+            buffer.putInt((int) index.draw(t).getDrawDate().toEpochDay());
+        }
+        for (int t = from; t < to; t++) {
+            buffer.putShort((short) sum(index.mask(t), NumberZone.FRONT));
+        }
+        for (int t = from; t < to; t++) {
+            buffer.putShort((short) sum(index.mask(t), NumberZone.BACK));
+        }
+        for (int t = from; t < to; t++) {
+            buffer.put((byte) Long.bitCount(index.mask(t) & ODD_BITS));
+        }
+        for (int t = from; t < to; t++) {
+            long front = index.mask(t) & TicketMask.FRONT_BITS;
+            buffer.put((byte) Long.bitCount(front & (front >>> 1)));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 指定号码最近 limit 期的出现位图
+     */
+    public byte[] encodeNumberTrend(NumberZone zone, int number, int limit) {
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        int to = index.size();
+        int from = Math.max(0, to - Math.max(0, limit));
+        int n = to - from;
+        int bit = DrawHistoryIndex.bit(zone, number);
+
+        ByteBuffer buffer = allocate(8 + (n + 7) / 8);
+        buffer.putInt(n).putInt(number);
+        byte[] bytes = buffer.array();
+        for (int t = from; t < to; t++) {
+            if ((index.mask(t) >>> bit & 1L) != 0) {
+                int i = t - from;
+                bytes[8 + (i >>> 3)] |= (byte) (1 << (i & 7));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 号码共现矩阵（截至 asOfIssue，含该期；为 null 时为全部历史）
+     */
+    public byte[] encodeCoOccurrence(NumberZone zone, String asOfIssue) {
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        int to = asOfIssue != null ? index.positionAfter(asOfIssue) : index.size();
+        int size = zone.getMax();
+        int shift = DrawHistoryIndex.bit(zone, 1);
+        long zoneBits = zone == NumberZone.FRONT ? TicketMask.FRONT_BITS : TicketMask.BACK_BITS;
+
+        int[] counts = new int[size * size];
+        int[] balls = new int[zone.getCount()];
+        for (int t = 0; t < to; t++) {
+            long bits = index.mask(t) & zoneBits;
+            int k = 0;
+            while (bits != 0 && k < balls.length) {
+                balls[k++] = Long.numberOfTrailingZeros(bits) - shift;
+                bits &= bits - 1;
+            }
+            for (int i = 0; i < k; i++) {
+                counts[balls[i] * size + balls[i]]++;
+                for (int j = i + 1; j < k; j++) {
+                    counts[balls[i] * size + balls[j]]++;
+                    counts[balls[j] * size + balls[i]]++;
+                }
+            }
+        }
+
+        ByteBuffer buffer = allocate(8 + counts.length * 4);
+        buffer.putInt(size).putInt(to);
+        buffer.asIntBuffer().put(counts);
+        return buffer.array();
+    }
+
+    private static int sum(long mask, NumberZone zone) {
+        int total = 0;
+        for (int ball : TicketMask.balls(mask, zone)) {
+            total += ball;
+        }
+        return total;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
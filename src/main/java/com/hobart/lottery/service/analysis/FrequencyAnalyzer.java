@@ -5,6 +5,7 @@ import com.hobart.lottery.domain.model.NumberZone;
 import com.hobart.lottery.dto.FrequencyDTO;
 import com.hobart.lottery.entity.LotteryResult;
 import com.hobart.lottery.service.LotteryService;
+import com.hobart.lottery.service.index.HistoryIndexService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -21,6 +22,7 @@ public class FrequencyAnalyzer {
     
     private final LotteryService lotteryService;
     private final LotteryConfig config;
+    private final HistoryIndexService historyIndexService;
     
     /**
      * 计算指定区域的号码频率
@@ -61,6 +63,17 @@ public class FrequencyAnalyzer {
             .collect(Collectors.toList());
     }
     
+    /**
+     * 计算截至某期（含）的号码频率，基于开奖历史索引计算，不查询数据库
+     * 
+     * @param zone 号码区域
+     * @param recentCount 截至该期的最近期数，null 表示全部
+     * @param asOfIssue 截止期号，null 表示最新
+     */
+    public List<FrequencyDTO> calculateFrequency(NumberZone zone, Integer recentCount, String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).calculateFrequency(zone, recentCount);
+    }
+    
     /**
      * 获取热号（出现频率最高的号码）
      * 
@@ -80,6 +93,13 @@ public class FrequencyAnalyzer {
             .collect(Collectors.toList());
     }
     
+    /**
+     * 获取截至某期（含）的热号
+     */
+    public List<Integer> getHotNumbers(NumberZone zone, int count, String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).getHotNumbers(zone, count);
+    }
+    
     /**
      * 获取冷号（出现频率最低的号码）
      * 
@@ -99,6 +119,13 @@ public class FrequencyAnalyzer {
             .collect(Collectors.toList());
     }
     
+    /**
+     * 获取截至某期（含）的冷号
+     */
+    public List<Integer> getColdNumbers(NumberZone zone, int count, String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).getColdNumbers(zone, count);
+    }
+    
     /**
      * 获取号码综合评分（用于预测）
      * 结合频率和遗漏计算综合得分
@@ -145,4 +172,11 @@ public class FrequencyAnalyzer {
         
         return scores;
     }
+    
+    /**
+     * 获取截至某期（含）的号码综合评分
+     */
+    public Map<Integer, Double> getNumberScores(NumberZone zone, String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).getNumberScores(zone);
+    }
 }
@@ -5,6 +5,7 @@ import com.hobart.lottery.domain.model.NumberZone;
 import com.hobart.lottery.dto.MissingDTO;
 import com.hobart.lottery.entity.LotteryResult;
 import com.hobart.lottery.service.LotteryService;
+import com.hobart.lottery.service.index.HistoryIndexService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -22,6 +23,7 @@ public class MissingAnalyzer {
     
     private final LotteryService lotteryService;
     private final LotteryConfig config;
+    private final HistoryIndexService historyIndexService;
     
     /**
      * 计算指定区域的号码遗漏
@@ -73,6 +75,16 @@ public class MissingAnalyzer {
         return missingList;
     }
     
+    /**
+     * 计算截至某期（含）的号码遗漏，基于开奖历史索引计算，不查询数据库
+     * 
+     * @param zone 号码区域
+     * @param asOfIssue 截止期号，null 表示最新
+     */
+    public List<MissingDTO> calculateMissing(NumberZone zone, String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).calculateMissing(zone);
+    }
+    
     /**
      * 获取遗漏值接近平均遗漏的号码（即将出现的号码）
      * 
@@ -92,6 +104,13 @@ public class MissingAnalyzer {
             .collect(Collectors.toList());
     }
     
+    /**
+     * 获取截至某期（含）遗漏到期的号码
+     */
+    public List<Integer> getMissingDueNumbers(NumberZone zone, int count, String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).getMissingDueNumbers(zone, count);
+    }
+    
     /**
      * 获取高遗漏号码（遗漏值最大的号码）
      * 
@@ -109,4 +128,11 @@ public class MissingAnalyzer {
             .sorted()
             .collect(Collectors.toList());
     }
+    
+    /**
+     * 获取截至某期（含）的高遗漏号码
+     */
+    public List<Integer> getHighMissingNumbers(NumberZone zone, int count, String asOfIssue) {
+        return historyIndexService.viewAsOf(asOfIssue).getHighMissingNumbers(zone, count);
+    }
 }
@@ -31,21 +31,28 @@ public class TrendAnalyzer {
         
         List<Map<String, Object>> trendData = new ArrayList<>();
         for (LotteryResult result : results) {
-            Map<String, Object> item = new LinkedHashMap<>();
-            item.put("issue", result.getIssue());
-            item.put("drawDate", result.getDrawDate().toString());
-            item.put("frontBalls", result.getFrontBallArray());
-            item.put("backBalls", result.getBackBallArray());
-            item.put("frontSum", result.getFrontSum());
-            item.put("backSum", result.getBackSum());
-            item.put("oddCountFront", result.getOddCountFront());
-            item.put("consecutiveCountFront", result.getConsecutiveCountFront());
-            trendData.add(item);
+            trendData.add(trendRow(result));
         }
         
         return trendData;
     }
     
+    /**
+     * 单期走势数据
+     */
+    public static Map<String, Object> trendRow(LotteryResult result) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("issue", result.getIssue());
+        item.put("drawDate", result.getDrawDate().toString());
+        item.put("frontBalls", result.getFrontBallArray());
+        item.put("backBalls", result.getBackBallArray());
+        item.put("frontSum", result.getFrontSum());
+        item.put("backSum", result.getBackSum());
+        item.put("oddCountFront", result.getOddCountFront());
+        item.put("consecutiveCountFront", result.getConsecutiveCountFront());
+        return item;
+    }
+    
     /**
      * 获取默认期数的走势数据
      */
@@ -0,0 +1,120 @@
+package com.hobart.lottery.service.backtest;
+
+import com.hobart.lottery.domain.model.PrizeLevel;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 回测结果
+ * 每个并行分段各自累计一份，结束后合并，因此本类不需要线程安全
+ */
+public class BacktestReport {
+
+    private final List<PredictMethod> methods;
+
+    private int issues;
+    /** [方法][前区命中数 0-5] */
+    private final long[][] frontHits;
+    /** [方法][后区命中数 0-2] */
+    private final long[][] backHits;
+    /** [方法][PrizeLevel 序号] */
+    private final long[][] prizes;
+
+    public BacktestReport(List<PredictMethod> methods) {
+        this.methods = methods;
+        this.frontHits = new long[methods.size()][6];
+        this.backHits = new long[methods.size()][3];
+        this.prizes = new long[methods.size()][PrizeLevel.values().length];
+    }
+
+    /**
+     * 记录完成一期
+     */
+    public void issueCompleted() {
+        issues++;
+    }
+
+    /**
+     * 记录一注的命中情况
+     *
+     * @param method 方法在 methods 中的下标
+     */
+    public void record(int method, int frontHit, int backHit) {
+        frontHits[method][frontHit]++;
+        backHits[method][backHit]++;
+        prizes[method][PrizeLevel.of(frontHit, backHit).ordinal()]++;
+    }
+
+    /**
+     * 合并另一分段的结果
+     */
+    public void merge(BacktestReport other) {
+        issues += other.issues;
+        for (int m = 0; m < methods.size(); m++) {
+            add(frontHits[m], other.frontHits[m]);
+            add(backHits[m], other.backHits[m]);
+            add(prizes[m], other.prizes[m]);
+        }
+    }
+
+    public int getIssues() {
+        return issues;
+    }
+
+    /**
+     * 各方法的命中分布与中奖统计（用于接口返回）
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> byMethod = new LinkedHashMap<>();
+        for (int m = 0; m < methods.size(); m++) {
+            long tickets = 0;
+            long frontSum = 0;
+            long backSum = 0;
+            for (int h = 0; h < frontHits[m].length; h++) {
+                tickets += frontHits[m][h];
+                frontSum += h * frontHits[m][h];
+            }
+            for (int h = 0; h < backHits[m].length; h++) {
+                backSum += h * backHits[m][h];
+            }
+
+            Map<String, Long> prizeCounts = new LinkedHashMap<>();
+            long winning = 0;
+            for (PrizeLevel level : PrizeLevel.values()) {
+                if (level.isWinning()) {
+                    prizeCounts.put(level.getDisplayName(), prizes[m][level.ordinal()]);
+                    winning += prizes[m][level.ordinal()];
+                }
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("methodName", methods.get(m).getName());
+            stats.put("tickets", tickets);
+            stats.put("frontHitDistribution", frontHits[m].clone());
+            stats.put("backHitDistribution", backHits[m].clone());
+            stats.put("frontAvgHit", tickets > 0 ? round((double) frontSum / tickets) : 0.0);
+            stats.put("backAvgHit", tickets > 0 ? round((double) backSum / tickets) : 0.0);
+            stats.put("prizeCounts", prizeCounts);
+            stats.put("winRate", tickets > 0 ? round(winning * 100.0 / tickets) : 0.0);
+            byMethod.put(methods.get(m).name(), stats);
+        }
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("issues", issues);
+        map.put("methods", byMethod);
+        return map;
+    }
+
+    private static void add(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000.0) / 10000.0;
+    }
+}
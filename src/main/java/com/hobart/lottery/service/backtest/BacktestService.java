@@ -0,0 +1,128 @@
+package com.hobart.lottery.service.backtest;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.entity.MethodWeightHistory;
+import com.hobart.lottery.predictor.*;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
+import com.hobart.lottery.service.index.DrawHistoryIndex;
+import com.hobart.lottery.service.index.HistoryIndexService;
+import com.hobart.lottery.service.index.HistoryView;
+import com.hobart.lottery.service.learning.AdaptivePredictor;
+import com.hobart.lottery.service.learning.WeightAdjuster;
+import com.hobart.lottery.service.learning.WeightSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 回测服务（walk-forward）
+ * 按期号顺序回放开奖历史：对每一期，预测器只能看到该期之前的历史视图，
+ * 生成若干注后按中奖规则计分。各期相互独立，按期号分段在回测线程池中并行执行
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BacktestService {
+
+    private final HistoryIndexService historyIndexService;
+    private final AdaptivePredictor adaptivePredictor;
+    private final WeightAdjuster weightAdjuster;
+    private final LotteryConfig config;
+    private final ThreadPoolTaskExecutor backtestExecutor;
+
+    /**
+     * 执行回测
+     *
+     * @param methods 参与回测的方法，空表示全部
+     * @param ticketsPerIssue 每期每方法生成的注数，null 使用配置值
+     * @param fromIssue 起始期号（含），null 表示从预热期之后开始
+     * @param toIssue 截止期号（含），null 表示到最新一期
+     */
+    public BacktestReport run(List<PredictMethod> methods, Integer ticketsPerIssue, String fromIssue, String toIssue) {
+        long startedAt = System.currentTimeMillis();
+        List<PredictMethod> selected = methods == null || methods.isEmpty()
+            ? List.of(PredictMethod.values()) : List.copyOf(methods);
+        int tickets = ticketsPerIssue != null ? ticketsPerIssue : config.getBacktest().getTicketsPerIssue();
+
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        int start = Math.max(config.getBacktest().getWarmupIssues(), fromIssue != null ? index.positionOf(fromIssue) : 0);
+        int end = toIssue != null ? index.positionAfter(toIssue) : index.size();
+
+        NavigableMap<String, WeightSnapshot> weightHistory = selected.contains(PredictMethod.ADAPTIVE)
+            ? loadWeightHistory(index.size()) : Collections.emptyNavigableMap();
+
+        // 按期号切分为若干段，段数为线程数的数倍以平衡各段耗时差异
+        int segments = Math.max(1, backtestExecutor.getMaxPoolSize() * 4);
+        int segmentSize = Math.max(1, (end - start + segments - 1) / segments);
+        List<CompletableFuture<BacktestReport>> tasks = new ArrayList<>();
+        for (int from = start; from < end; from += segmentSize) {
+            int segmentFrom = from;
+            int segmentTo = Math.min(end, from + segmentSize);
+            tasks.add(CompletableFuture.supplyAsync(
+                () -> runSegment(index, segmentFrom, segmentTo, selected, tickets, weightHistory), backtestExecutor));
+        }
+
+        BacktestReport report = new BacktestReport(selected);
+        for (CompletableFuture<BacktestReport> task : tasks) {
+            report.merge(task.join());
+        }
+
+        log.info("回测完成: {} 期 x {} 种方法 x {} 注, 耗时 {} ms",
+            report.getIssues(), selected.size(), tickets, System.currentTimeMillis() - startedAt);
+        return report;
+    }
+
+    private BacktestReport runSegment(DrawHistoryIndex index, int from, int to, List<PredictMethod> methods,
+                                      int tickets, NavigableMap<String, WeightSnapshot> weightHistory) {
+        BacktestReport report = new BacktestReport(methods);
+        for (int t = from; t < to; t++) {
+            HistoryView view = historyIndexService.viewAt(index, t);
+            long draw = index.mask(t);
+
+            for (int m = 0; m < methods.size(); m++) {
+                for (int[][] ticket : predict(methods.get(m), view, tickets, weightsBefore(weightHistory, index.issue(t)))) {
+                    long mask = TicketMask.pack(ticket[0], ticket[1]);
+                    report.record(m, TicketMask.frontHits(mask, draw), TicketMask.backHits(mask, draw));
+                }
+            }
+            report.issueCompleted();
+        }
+        return report;
+    }
+
+    private List<int[][]> predict(PredictMethod method, HistoryView view, int tickets, WeightSnapshot weights) {
+        return switch (method) {
+            case HOT -> new HotNumberPredictor(view).predictMultiple(tickets);
+            case MISSING -> new MissingPredictor(view).predictMultiple(tickets);
+            case BALANCED -> new BalancedPredictor(view).predictMultiple(tickets);
+            case ML -> new MLPredictor(view).predictMultiple(tickets);
+            case ADAPTIVE -> adaptivePredictor.predictMultiple(tickets, view, weights);
+        };
+    }
+
+    /**
+     * 某期开奖前的方法权重：取期号小于该期的最近一条权重历史，没有历史时使用默认权重
+     */
+    private WeightSnapshot weightsBefore(NavigableMap<String, WeightSnapshot> weightHistory, String issue) {
+        Map.Entry<String, WeightSnapshot> entry = weightHistory.lowerEntry(issue);
+        return entry != null ? entry.getValue() : WeightSnapshot.of(Map.of());
+    }
+
+    private NavigableMap<String, WeightSnapshot> loadWeightHistory(int maxIssues) {
+        Map<String, Map<String, Double>> byIssue = new TreeMap<>();
+        for (MethodWeightHistory row : weightAdjuster.getWeightHistory(null, null, Math.max(1, maxIssues))) {
+            if (row.getWeight() != null) {
+                byIssue.computeIfAbsent(row.getIssue(), k -> new HashMap<>())
+                    .put(row.getMethodCode(), row.getWeight().doubleValue());
+            }
+        }
+        NavigableMap<String, WeightSnapshot> history = new TreeMap<>();
+        byIssue.forEach((issue, weights) -> history.put(issue, WeightSnapshot.of(weights)));
+        return history;
+    }
+}
@@ -0,0 +1,149 @@
+package com.hobart.lottery.service.backtest;
+
+import com.hobart.lottery.domain.model.PrizeLevel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 随机选号的零分布
+ * 均匀随机投注在历史各期上的命中数、中奖等级分布，用于判断预测方法是否优于随机。
+ * 与 BacktestReport 一样由各并行分段各自累计后合并，本类不需要线程安全
+ */
+public class BaselineDistribution {
+
+    private int issues;
+    /** [前区命中数 0-5] */
+    private final long[] frontHits = new long[6];
+    /** [后区命中数 0-2] */
+    private final long[] backHits = new long[3];
+    /** [PrizeLevel 序号] */
+    private final long[] prizes = new long[PrizeLevel.values().length];
+
+    public void issueCompleted() {
+        issues++;
+    }
+
+    public void record(int frontHit, int backHit) {
+        frontHits[frontHit]++;
+        backHits[backHit]++;
+        prizes[PrizeLevel.of(frontHit, backHit).ordinal()]++;
+    }
+
+    /**
+     * 按 [前区][后区] 命中数批量记录（模拟循环内先累计到小数组，减少写入）
+     */
+    public void record(long[][] hitCounts) {
+        for (int f = 0; f < hitCounts.length; f++) {
+            for (int b = 0; b < hitCounts[f].length; b++) {
+                long count = hitCounts[f][b];
+                frontHits[f] += count;
+                backHits[b] += count;
+                prizes[PrizeLevel.of(f, b).ordinal()] += count;
+            }
+        }
+    }
+
+    public void merge(BaselineDistribution other) {
+        issues += other.issues;
+        for (int i = 0; i < frontHits.length; i++) {
+            frontHits[i] += other.frontHits[i];
+        }
+        for (int i = 0; i < backHits.length; i++) {
+            backHits[i] += other.backHits[i];
+        }
+        for (int i = 0; i < prizes.length; i++) {
+            prizes[i] += other.prizes[i];
+        }
+    }
+
+    public int getIssues() {
+        return issues;
+    }
+
+    public long getTickets() {
+        long tickets = 0;
+        for (long count : frontHits) {
+            tickets += count;
+        }
+        return tickets;
+    }
+
+    public double frontMean() {
+        return mean(frontHits);
+    }
+
+    public double frontVariance() {
+        return variance(frontHits);
+    }
+
+    public double backMean() {
+        return mean(backHits);
+    }
+
+    public double backVariance() {
+        return variance(backHits);
+    }
+
+    /**
+     * 随机一注中任意奖级的概率
+     */
+    public double winRate() {
+        long tickets = getTickets();
+        return tickets > 0 ? (double) (tickets - prizes[PrizeLevel.NONE.ordinal()]) / tickets : 0;
+    }
+
+    /**
+     * 随机一注中指定奖级的概率
+     */
+    public double prizeRate(PrizeLevel level) {
+        long tickets = getTickets();
+        return tickets > 0 ? (double) prizes[level.ordinal()] / tickets : 0;
+    }
+
+    /**
+     * 分布摘要（用于接口返回）
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Double> prizeRates = new LinkedHashMap<>();
+        for (PrizeLevel level : PrizeLevel.values()) {
+            if (level.isWinning()) {
+                prizeRates.put(level.getDisplayName(), prizeRate(level));
+            }
+        }
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("issues", issues);
+        map.put("tickets", getTickets());
+        map.put("frontHitDistribution", frontHits.clone());
+        map.put("backHitDistribution", backHits.clone());
+        map.put("frontAvgHit", frontMean());
+        map.put("frontStdDev", Math.sqrt(frontVariance()));
+        map.put("backAvgHit", backMean());
+        map.put("backStdDev", Math.sqrt(backVariance()));
+        map.put("winRate", winRate());
+        map.put("prizeRates", prizeRates);
+        return map;
+    }
+
+    private static double mean(long[] histogram) {
+        long n = 0;
+        long sum = 0;
+        for (int h = 0; h < histogram.length; h++) {
+            n += histogram[h];
+            sum += h * histogram[h];
+        }
+        return n > 0 ? (double) sum / n : 0;
+    }
+
+    private static double variance(long[] histogram) {
+        double mean = mean(histogram);
+        long n = 0;
+        double sum = 0;
+        for (int h = 0; h < histogram.length; h++) {
+            n += histogram[h];
+            sum += (h - mean) * (h - mean) * histogram[h];
+        }
+        return n > 0 ? sum / n : 0;
+    }
+}
@@ -0,0 +1,192 @@
+package com.hobart.lottery.service.backtest;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.dto.MethodIssueStatsDTO;
+import com.hobart.lottery.dto.PredictionResultDTO;
+import com.hobart.lottery.mapper.PredictionRecordMapper;
+import com.hobart.lottery.service.DataVersion;
+import com.hobart.lottery.service.index.DrawHistoryIndex;
+import com.hobart.lottery.service.index.HistoryIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 随机基线模拟服务（蒙特卡洛）
+ * 在历史各期上模拟大量均匀随机投注，得到命中数与中奖等级的零分布，
+ * 再把各方法已验证预测记录的按期统计与之比较，给出 z 分数与单侧 p 值。
+ * 投注直接生成位掩码、命中数用 bitCount 计算，各分段使用 SplittableRandom 拆分出的独立随机流并行执行
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RandomBaselineService {
+
+    private final HistoryIndexService historyIndexService;
+    private final PredictionRecordMapper recordMapper;
+    private final DataVersion dataVersion;
+    private final LotteryConfig config;
+    private final ThreadPoolTaskExecutor backtestExecutor;
+
+    /** 最近一次模拟结果（同一历史版本、注数、种子下直接复用） */
+    private volatile CachedBaseline cached;
+
+    private record CachedBaseline(long version, long ticketsPerIssue, long seed, BaselineDistribution distribution) {
+    }
+
+    /**
+     * 模拟随机投注的零分布
+     *
+     * @param ticketsPerIssue 每期模拟注数，null 使用配置值
+     * @param seed 随机种子，相同种子结果可复现
+     */
+    public BaselineDistribution simulate(Long ticketsPerIssue, long seed) {
+        long tickets = ticketsPerIssue != null ? ticketsPerIssue : config.getBacktest().getBaselineTicketsPerIssue();
+        long version = dataVersion.history();
+        CachedBaseline hit = cached;
+        if (hit != null && hit.version() == version && hit.ticketsPerIssue() == tickets && hit.seed() == seed) {
+            return hit.distribution();
+        }
+
+        long startedAt = System.currentTimeMillis();
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        int end = index.size();
+
+        // 随机流在提交前按段顺序拆分（SplittableRandom 本身非线程安全），保证同一种子结果可复现
+        SplittableRandom root = new SplittableRandom(seed);
+        int segments = Math.max(1, backtestExecutor.getMaxPoolSize() * 4);
+        int segmentSize = Math.max(1, (end + segments - 1) / segments);
+        List<CompletableFuture<BaselineDistribution>> tasks = new ArrayList<>();
+        for (int from = 0; from < end; from += segmentSize) {
+            int segmentFrom = from;
+            int segmentTo = Math.min(end, from + segmentSize);
+            SplittableRandom random = root.split();
+            tasks.add(CompletableFuture.supplyAsync(
+                () -> simulateSegment(index, segmentFrom, segmentTo, tickets, random), backtestExecutor));
+        }
+
+        BaselineDistribution distribution = new BaselineDistribution();
+        for (CompletableFuture<BaselineDistribution> task : tasks) {
+            distribution.merge(task.join());
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+        log.info("随机基线模拟完成: {} 期 x {} 注, 耗时 {} ms ({} 万注/秒)",
+            end, tickets, elapsed, distribution.getTickets() / elapsed / 10);
+        cached = new CachedBaseline(version, tickets, seed, distribution);
+        return distribution;
+    }
+
+    /**
+     * 各方法按期命中统计与随机基线的比较
+     * 同一期的多注面对同一个开奖结果、且同一方法生成的号码高度相关，不能当作独立样本；
+     * 检验以期为单位（有效样本数为已验证期数），每期观测值为该期各注的平均值。
+     * 每期平均值的方差不超过单注方差（注间完全相关时取等），这里按单注方差计算，结果偏保守
+     */
+    public Map<String, Object> compare(Long ticketsPerIssue, long seed) {
+        BaselineDistribution baseline = simulate(ticketsPerIssue, seed);
+
+        List<Map<String, Object>> methods = new ArrayList<>();
+        for (MethodIssueStatsDTO stat : recordMapper.selectIssueStatsByMethod()) {
+            long n = stat.getIssues() != null ? stat.getIssues() : 0;
+            if (n == 0) {
+                continue;
+            }
+            double frontAvg = nz(stat.getFrontAvgHit());
+            double backAvg = nz(stat.getBackAvgHit());
+            double winRate = nz(stat.getWinRate());
+
+            double frontZ = zScore(frontAvg, baseline.frontMean(), baseline.frontVariance(), n);
+            double backZ = zScore(backAvg, baseline.backMean(), baseline.backVariance(), n);
+            double p0 = baseline.winRate();
+            double winZ = zScore(winRate, p0, p0 * (1 - p0), n);
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("predictMethod", stat.getPredictMethod());
+            row.put("methodName", PredictionResultDTO.getMethodDisplayName(stat.getPredictMethod()));
+            row.put("issues", n);
+            row.put("totalPredictions", stat.getTickets());
+            row.put("frontAvgHit", frontAvg);
+            row.put("frontZ", frontZ);
+            row.put("frontPValue", upperTail(frontZ));
+            row.put("backAvgHit", backAvg);
+            row.put("backZ", backZ);
+            row.put("backPValue", upperTail(backZ));
+            row.put("winRate", winRate);
+            row.put("winZ", winZ);
+            row.put("winPValue", upperTail(winZ));
+            methods.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseline", baseline.toMap());
+        result.put("methods", methods);
+        return result;
+    }
+
+    private BaselineDistribution simulateSegment(DrawHistoryIndex index, int from, int to, long tickets,
+                                                 SplittableRandom random) {
+        BaselineDistribution distribution = new BaselineDistribution();
+        long[][] counts = new long[6][3];
+        for (int t = from; t < to; t++) {
+            long draw = index.mask(t);
+            for (long i = 0; i < tickets; i++) {
+                long ticket = randomTicket(random);
+                counts[TicketMask.frontHits(ticket, draw)][TicketMask.backHits(ticket, draw)]++;
+            }
+            distribution.issueCompleted();
+        }
+        distribution.record(counts);
+        return distribution;
+    }
+
+    /**
+     * 均匀随机一注：前区 35 选 5、后区 12 选 2，按位拒绝重复号码
+     */
+    private static long randomTicket(SplittableRandom random) {
+        long front = 0;
+        for (int picked = 0; picked < 5; ) {
+            long bit = 1L << random.nextInt(35);
+            if ((front & bit) == 0) {
+                front |= bit;
+                picked++;
+            }
+        }
+        long back = 0;
+        for (int picked = 0; picked < 2; ) {
+            long bit = 1L << (TicketMask.BACK_SHIFT + random.nextInt(12));
+            if ((back & bit) == 0) {
+                back |= bit;
+                picked++;
+            }
+        }
+        return front | back;
+    }
+
+    private static double nz(Double value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 样本均值相对零分布均值的 z 分数（中心极限定理近似，n 为独立样本数即期数）
+     */
+    private static double zScore(double observed, double mean, double variance, long n) {
+        return variance > 0 ? (observed - mean) / Math.sqrt(variance / n) : 0;
+    }
+
+    /**
+     * 标准正态分布的上侧尾概率 P(Z >= z)，erfc 使用 Abramowitz-Stegun 7.1.26 近似
+     */
+    private static double upperTail(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erfc = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+            + t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-x * x);
+        return z >= 0 ? erfc / 2 : 1 - erfc / 2;
+    }
+}
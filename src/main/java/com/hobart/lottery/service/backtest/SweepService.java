@@ -0,0 +1,280 @@
+package com.hobart.lottery.service.backtest;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.service.index.DrawHistoryIndex;
+import com.hobart.lottery.service.index.HistoryIndexService;
+import com.hobart.lottery.service.index.HistoryView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 参数寻优服务
+ * 在开奖历史上回放评估分析/学习参数的组合，各组合在 ForkJoin 线程池中并行评估，共享同一份历史索引。
+ * 评估全部是确定性的（不抽样），同一组参数每次得到相同的分数：
+ * <ul>
+ *   <li>hotColdPeriod：每期取热号前 5 + 后 2 的平均命中数</li>
+ *   <li>missingPeriod：每期取遗漏到期号码前 5 + 后 2 的平均命中数</li>
+ *   <li>associationPeriod / minSupport / minConfidence：关联规则在下一期的精确率（前件出现时后件也出现的比例）</li>
+ *   <li>emaAlpha：EMA 命中率对各方法下一期是否命中的预测误差（Brier 分数，越小越好）</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SweepService {
+
+    private final HistoryIndexService historyIndexService;
+    private final LotteryConfig config;
+    private final ForkJoinPool sweepPool;
+
+    /** 掩码位数（前区 0-34，后区 40-51） */
+    private static final int BITS = TicketMask.BACK_SHIFT + 12;
+
+    /**
+     * 一组待评估的参数
+     */
+    public record Params(int hotColdPeriod, int missingPeriod, int associationPeriod,
+                         double minSupport, double minConfidence, double emaAlpha) {
+    }
+
+    /**
+     * 一组参数的评估结果
+     *
+     * @param hotHits 热号选号每期平均命中数（前区 + 后区）
+     * @param missingHits 遗漏到期选号每期平均命中数（前区 + 后区）
+     * @param associationPrecision 关联规则精确率
+     * @param associationFired 关联规则被触发的次数
+     * @param emaBrier EMA 命中率的 Brier 分数
+     */
+    public record Result(Params params, int issues, double hotHits, double missingHits,
+                         double associationPrecision, long associationFired, double emaBrier) {
+    }
+
+    /**
+     * 排序目标
+     */
+    public enum Objective {
+        HOT_HITS(Comparator.comparingDouble(Result::hotHits).reversed()),
+        MISSING_HITS(Comparator.comparingDouble(Result::missingHits).reversed()),
+        ASSOCIATION_PRECISION(Comparator.comparingDouble(Result::associationPrecision).reversed()),
+        EMA_BRIER(Comparator.comparingDouble(Result::emaBrier));
+
+        private final Comparator<Result> order;
+
+        Objective(Comparator<Result> order) {
+            this.order = order;
+        }
+    }
+
+    /**
+     * 展开参数网格（各参数取值的笛卡尔积）
+     * 评估组数不超过 backtest.max-sweep-configs（maxConfigs > 0 时取两者较小值）；组合数更多时按 seed
+     * 随机抽取组合下标再解码，不展开完整网格
+     */
+    public List<Params> expandGrid(List<Integer> hotColdPeriods, List<Integer> missingPeriods,
+                                   List<Integer> associationPeriods, List<Double> minSupports,
+                                   List<Double> minConfidences, List<Double> emaAlphas,
+                                   int maxConfigs, long seed) {
+        LotteryConfig.AnalysisConfig analysis = config.getAnalysis();
+        List<Integer> hc = orDefault(hotColdPeriods, analysis.getHotColdPeriod());
+        List<Integer> mp = orDefault(missingPeriods, analysis.getMissingPeriod());
+        List<Integer> ap = orDefault(associationPeriods, analysis.getAssociationPeriod());
+        List<Double> ms = orDefault(minSupports, analysis.getMinSupport());
+        List<Double> mc = orDefault(minConfidences, analysis.getMinConfidence());
+        List<Double> ea = orDefault(emaAlphas, config.getLearning().getEmaAlpha());
+
+        int cap = config.getBacktest().getMaxSweepConfigs();
+        int limit = maxConfigs > 0 ? Math.min(maxConfigs, cap) : cap;
+        long total;
+        try {
+            total = Math.multiplyExact(Math.multiplyExact(Math.multiplyExact((long) hc.size(), mp.size()),
+                Math.multiplyExact((long) ap.size(), ms.size())), Math.multiplyExact((long) mc.size(), ea.size()));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("参数组合数过多");
+        }
+
+        // 组合下标按嵌套循环顺序编号（emaAlpha 变化最快），抽样时保持该顺序
+        SortedSet<Long> picked = new TreeSet<>();
+        if (total <= limit) {
+            for (long i = 0; i < total; i++) {
+                picked.add(i);
+            }
+        } else {
+            Random random = new Random(seed);
+            while (picked.size() < limit) {
+                picked.add(random.nextLong(total));
+            }
+        }
+
+        List<Params> grid = new ArrayList<>(picked.size());
+        for (long i : picked) {
+            long rest = i;
+            double e = ea.get((int) (rest % ea.size()));
+            rest /= ea.size();
+            double c = mc.get((int) (rest % mc.size()));
+            rest /= mc.size();
+            double s = ms.get((int) (rest % ms.size()));
+            rest /= ms.size();
+            int a = ap.get((int) (rest % ap.size()));
+            rest /= ap.size();
+            int m = mp.get((int) (rest % mp.size()));
+            rest /= mp.size();
+            int h = hc.get((int) rest);
+            grid.add(new Params(h, m, a, s, c, e));
+        }
+        return grid;
+    }
+
+    /**
+     * 并行评估全部参数组合，按目标排序
+     */
+    public List<Result> run(List<Params> grid, Objective objective) {
+        long start = System.currentTimeMillis();
+        DrawHistoryIndex index = historyIndexService.getIndex();
+        int from = Math.min(index.size(), Math.max(1, config.getBacktest().getWarmupIssues()));
+
+        List<Result> results = new ArrayList<>(sweepPool.submit(
+            () -> grid.parallelStream().map(params -> evaluate(index, from, params)).toList()).join());
+        results.sort(objective.order);
+
+        log.info("参数寻优完成: {} 组参数, {} 期, 耗时 {} ms",
+            grid.size(), index.size() - from, System.currentTimeMillis() - start);
+        return results;
+    }
+
+    /**
+     * 在 [from, size) 各期上评估一组参数
+     */
+    private Result evaluate(DrawHistoryIndex index, int from, Params params) {
+        int end = index.size();
+        LotteryConfig.LearningConfig learning = config.getLearning();
+
+        // 关联分析的滑动窗口：单号码计数与同区号码对计数
+        int[] single = new int[BITS];
+        int[] pair = new int[BITS * BITS];
+        int windowFrom = Math.max(0, from - params.associationPeriod());
+        for (int t = windowFrom; t < from; t++) {
+            slide(index.mask(t), single, pair, 1);
+        }
+
+        long hotHits = 0;
+        long missingHits = 0;
+        long fired = 0;
+        long confirmed = 0;
+        double[] ema = new double[2];
+        double brier = 0;
+
+        for (int t = from; t < end; t++) {
+            HistoryView view = new HistoryView(index, t, params.hotColdPeriod(), params.missingPeriod());
+            long draw = index.mask(t);
+
+            int hotFront = hits(draw, NumberZone.FRONT, view.getHotNumbers(NumberZone.FRONT, 5));
+            int hotBack = hits(draw, NumberZone.BACK, view.getHotNumbers(NumberZone.BACK, 2));
+            int dueFront = hits(draw, NumberZone.FRONT, view.getMissingDueNumbers(NumberZone.FRONT, 5));
+            int dueBack = hits(draw, NumberZone.BACK, view.getMissingDueNumbers(NumberZone.BACK, 2));
+            hotHits += hotFront + hotBack;
+            missingHits += dueFront + dueBack;
+
+            // EMA：先用上一期的平滑命中率预测本期，再用本期结果更新
+            double[] outcome = {
+                hotFront >= learning.getFrontHitThreshold() || hotBack >= learning.getBackHitThreshold() ? 1 : 0,
+                dueFront >= learning.getFrontHitThreshold() || dueBack >= learning.getBackHitThreshold() ? 1 : 0
+            };
+            for (int m = 0; m < ema.length; m++) {
+                brier += (ema[m] - outcome[m]) * (ema[m] - outcome[m]);
+                ema[m] = params.emaAlpha() * outcome[m] + (1 - params.emaAlpha()) * ema[m];
+            }
+
+            // 关联规则：本期出现的前件所触发的规则中，后件也出现的比例
+            int total = t - windowFrom;
+            if (total > 0) {
+                for (NumberZone zone : NumberZone.values()) {
+                    for (int a = zone.getMin(); a <= zone.getMax(); a++) {
+                        int bitA = DrawHistoryIndex.bit(zone, a);
+                        if ((draw >>> bitA & 1L) == 0 || single[bitA] == 0) {
+                            continue;
+                        }
+                        for (int b = zone.getMin(); b <= zone.getMax(); b++) {
+                            int bitB = DrawHistoryIndex.bit(zone, b);
+                            if (b != a && isRule(single, pair, bitA, bitB, total, params)) {
+                                fired++;
+                                if ((draw >>> bitB & 1L) != 0) {
+                                    confirmed++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            // 窗口右移一期
+            slide(draw, single, pair, 1);
+            if (t - windowFrom + 1 > params.associationPeriod()) {
+                slide(index.mask(windowFrom), single, pair, -1);
+                windowFrom++;
+            }
+        }
+
+        int issues = end - from;
+        return new Result(params, issues,
+            issues > 0 ? (double) hotHits / issues : 0,
+            issues > 0 ? (double) missingHits / issues : 0,
+            fired > 0 ? (double) confirmed / fired : 0,
+            fired,
+            issues > 0 ? brier / (issues * ema.length) : 0);
+    }
+
+    /**
+     * 判定 a -> b 是否为有效规则（口径同 AssociationAnalyzer：支持度、置信度达标且提升度大于 1）
+     */
+    private static boolean isRule(int[] single, int[] pair, int bitA, int bitB, int total, Params params) {
+        int co = pair[bitA * BITS + bitB];
+        if (co == 0 || (double) co / total < params.minSupport()) {
+            return false;
+        }
+        double confidence = (double) co / single[bitA];
+        if (confidence < params.minConfidence()) {
+            return false;
+        }
+        double expected = (double) single[bitB] / total;
+        return expected > 0 && confidence / expected > 1;
+    }
+
+    /**
+     * 把一期加入（delta = 1）或移出（delta = -1）滑动窗口
+     */
+    private static void slide(long mask, int[] single, int[] pair, int delta) {
+        for (NumberZone zone : NumberZone.values()) {
+            int[] balls = TicketMask.balls(mask, zone);
+            for (int i = 0; i < balls.length; i++) {
+                int bi = DrawHistoryIndex.bit(zone, balls[i]);
+                single[bi] += delta;
+                for (int j = 0; j < balls.length; j++) {
+                    if (i != j) {
+                        pair[bi * BITS + DrawHistoryIndex.bit(zone, balls[j])] += delta;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int hits(long draw, NumberZone zone, List<Integer> numbers) {
+        int hits = 0;
+        for (int number : numbers) {
+            if (TicketMask.contains(draw, zone, number)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static <T> List<T> orDefault(List<T> values, T fallback) {
+        return values == null || values.isEmpty() ? List.of(fallback) : values;
+    }
+}
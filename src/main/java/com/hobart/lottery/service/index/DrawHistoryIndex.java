@@ -0,0 +1,163 @@
+package com.hobart.lottery.service.index;
+
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.entity.LotteryResult;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 开奖历史索引（不可变）
+ * 按期号升序保存每期的号码掩码，并预先计算：
+ * <ul>
+ *   <li>前缀计数：任意区间内某号码出现次数 O(1)</li>
+ *   <li>出现位置表：任意区间内某号码首次/末次出现位置 O(log n)</li>
+ * </ul>
+ * 供回测在任意历史时间点快速计算频率、遗漏等统计
+ */
+public final class DrawHistoryIndex {
+
+    /** 掩码位数（前区 0-34，后区 40-51） */
+    static final int BITS = TicketMask.BACK_SHIFT + 12;
+
+    private final String[] issues;
+    private final LotteryResult[] draws;
+    private final long[] masks;
+
+    /** prefix[t * BITS + bit] = 前 t 期中该位出现的次数 */
+    private final int[] prefix;
+
+    /** 每一位出现过的期序号（升序） */
+    private final int[][] positions;
+
+    public DrawHistoryIndex(List<LotteryResult> results) {
+        LotteryResult[] sorted = results.toArray(new LotteryResult[0]);
+        Arrays.sort(sorted, Comparator.comparing(LotteryResult::getIssue));
+
+        int n = sorted.length;
+        this.draws = sorted;
+        this.issues = new String[n];
+        this.masks = new long[n];
+        this.prefix = new int[(n + 1) * BITS];
+
+        int[] counts = new int[BITS];
+        for (int t = 0; t < n; t++) {
+            issues[t] = sorted[t].getIssue();
+            masks[t] = TicketMask.pack(sorted[t]);
+            System.arraycopy(prefix, t * BITS, prefix, (t + 1) * BITS, BITS);
+            long bits = masks[t];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                prefix[(t + 1) * BITS + bit]++;
+                counts[bit]++;
+                bits &= bits - 1;
+            }
+        }
+
+        this.positions = new int[BITS][];
+        int[] fill = new int[BITS];
+        for (int bit = 0; bit < BITS; bit++) {
+            positions[bit] = new int[counts[bit]];
+        }
+        for (int t = 0; t < n; t++) {
+            long bits = masks[t];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                positions[bit][fill[bit]++] = t;
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * 号码在掩码中的位
+     */
+    public static int bit(NumberZone zone, int number) {
+        return zone == NumberZone.FRONT ? number - 1 : TicketMask.BACK_SHIFT + number - 1;
+    }
+
+    public int size() {
+        return issues.length;
+    }
+
+    public String issue(int t) {
+        return issues[t];
+    }
+
+    public LotteryResult draw(int t) {
+        return draws[t];
+    }
+
+    public long mask(int t) {
+        return masks[t];
+    }
+
+    /**
+     * 期号小于 issue 的期数（即 issue 所在或应插入的位置）
+     */
+    public int positionOf(String issue) {
+        int idx = Arrays.binarySearch(issues, issue);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    /**
+     * 期号不大于 issue 的期数
+     */
+    public int positionAfter(String issue) {
+        int idx = Arrays.binarySearch(issues, issue);
+        return idx >= 0 ? idx + 1 : -idx - 1;
+    }
+
+    /**
+     * [from, to) 区间内该位出现的次数
+     */
+    public int count(int bit, int from, int to) {
+        return prefix[to * BITS + bit] - prefix[from * BITS + bit];
+    }
+
+    /**
+     * [from, to) 区间内该位首次出现的期序号，未出现返回 -1
+     */
+    public int firstIn(int bit, int from, int to) {
+        int[] pos = positions[bit];
+        int idx = lowerBound(pos, from);
+        return idx < pos.length && pos[idx] < to ? pos[idx] : -1;
+    }
+
+    /**
+     * [from, to) 区间内该位最后出现的期序号，未出现返回 -1
+     */
+    public int lastIn(int bit, int from, int to) {
+        int[] pos = positions[bit];
+        int idx = lowerBound(pos, to) - 1;
+        return idx >= 0 && pos[idx] >= from ? pos[idx] : -1;
+    }
+
+    /**
+     * [from, to) 区间内该位相邻两次出现之间的最大间隔，出现不足两次返回 0
+     */
+    public int maxGapIn(int bit, int from, int to) {
+        int[] pos = positions[bit];
+        int maxGap = 0;
+        for (int i = lowerBound(pos, from) + 1; i < pos.length && pos[i] < to; i++) {
+            maxGap = Math.max(maxGap, pos[i] - pos[i - 1] - 1);
+        }
+        return maxGap;
+    }
+
+    private static int lowerBound(int[] sorted, int key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,79 @@
+package com.hobart.lottery.service.index;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.service.DataVersion;
+import com.hobart.lottery.service.LotteryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 开奖历史索引服务
+ * 按开奖历史版本缓存 {@link DrawHistoryIndex}，历史变更后首次使用时重建
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HistoryIndexService {
+
+    private final LotteryService lotteryService;
+    private final DataVersion dataVersion;
+    private final LotteryConfig config;
+
+    private volatile Snapshot snapshot;
+
+    /** 重建锁（不用 synchronized，加载历史时不会钉住虚拟线程的载体线程） */
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    /**
+     * 获取当前历史版本的索引
+     */
+    public DrawHistoryIndex getIndex() {
+        long version = dataVersion.history();
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current.index;
+        }
+        buildLock.lock();
+        try {
+            current = snapshot;
+            if (current == null || current.version != version) {
+                long start = System.currentTimeMillis();
+                current = new Snapshot(version, new DrawHistoryIndex(lotteryService.getAllResults()));
+                snapshot = current;
+                log.info("开奖历史索引构建完成: {} 期, 耗时 {} ms", current.index.size(), System.currentTimeMillis() - start);
+            }
+            return current.index;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * 某一时间点的历史视图（只包含前 cutoff 期），统计期数取自分析配置
+     */
+    public HistoryView viewAt(DrawHistoryIndex index, int cutoff) {
+        LotteryConfig.AnalysisConfig analysis = config.getAnalysis();
+        return new HistoryView(index, cutoff, analysis.getHotColdPeriod(), analysis.getMissingPeriod());
+    }
+
+    /**
+     * 热号统计期数（分析配置）
+     */
+    public int hotColdPeriod() {
+        return config.getAnalysis().getHotColdPeriod();
+    }
+
+    /**
+     * 截至某期（含该期）的历史视图，asOfIssue 为 null 时为全部历史
+     */
+    public HistoryView viewAsOf(String asOfIssue) {
+        DrawHistoryIndex index = getIndex();
+        return viewAt(index, asOfIssue != null ? index.positionAfter(asOfIssue) : index.size());
+    }
+
+    private record Snapshot(long version, DrawHistoryIndex index) {
+    }
+}
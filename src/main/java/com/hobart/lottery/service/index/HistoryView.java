@@ -0,0 +1,209 @@
+package com.hobart.lottery.service.index;
+
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.dto.FrequencyDTO;
+import com.hobart.lottery.dto.MissingDTO;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.predictor.PredictionDataSource;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 开奖历史的时间点视图
+ * 只能看到某期之前（不含该期）的开奖结果，统计口径与 FrequencyAnalyzer / MissingAnalyzer 一致，
+ * 使预测器在回测中与在线预测行为相同且不会"看到未来"
+ */
+public class HistoryView implements PredictionDataSource {
+
+    private final DrawHistoryIndex index;
+    /** 可见的期数，即 [0, cutoff) */
+    private final int cutoff;
+    /** 热号冷号统计期数 */
+    private final int hotColdPeriod;
+    /** 遗漏分析期数 */
+    private final int missingPeriod;
+
+    public HistoryView(DrawHistoryIndex index, int cutoff, int hotColdPeriod, int missingPeriod) {
+        this.index = index;
+        this.cutoff = cutoff;
+        this.hotColdPeriod = hotColdPeriod;
+        this.missingPeriod = missingPeriod;
+    }
+
+    public int getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * 近 period 期内各号码出现次数，下标为 号码 - 区域最小号码
+     */
+    public int[] frequencyCounts(NumberZone zone, int period) {
+        int from = Math.max(0, cutoff - period);
+        int[] counts = new int[zone.getMax() - zone.getMin() + 1];
+        for (int num = zone.getMin(); num <= zone.getMax(); num++) {
+            counts[num - zone.getMin()] = index.count(DrawHistoryIndex.bit(zone, num), from, cutoff);
+        }
+        return counts;
+    }
+
+    /**
+     * 遗漏分析窗口内各号码的当前遗漏，下标为 号码 - 区域最小号码
+     */
+    public int[] currentMissing(NumberZone zone) {
+        int from = Math.max(0, cutoff - missingPeriod);
+        int[] missing = new int[zone.getMax() - zone.getMin() + 1];
+        for (int num = zone.getMin(); num <= zone.getMax(); num++) {
+            int last = index.lastIn(DrawHistoryIndex.bit(zone, num), from, cutoff);
+            missing[num - zone.getMin()] = last >= 0 ? cutoff - 1 - last : cutoff - from;
+        }
+        return missing;
+    }
+
+    /**
+     * 遗漏分析窗口内各号码的平均遗漏（相邻两次出现之间的间隔均值），下标为 号码 - 区域最小号码
+     */
+    public double[] averageMissing(NumberZone zone) {
+        int from = Math.max(0, cutoff - missingPeriod);
+        double[] avg = new double[zone.getMax() - zone.getMin() + 1];
+        for (int num = zone.getMin(); num <= zone.getMax(); num++) {
+            int bit = DrawHistoryIndex.bit(zone, num);
+            int k = index.count(bit, from, cutoff);
+            if (k >= 2) {
+                // 各间隔之和 = 末次位置 - 首次位置 - (k - 1)
+                int span = index.lastIn(bit, from, cutoff) - index.firstIn(bit, from, cutoff);
+                avg[num - zone.getMin()] = (double) (span - (k - 1)) / (k - 1);
+            }
+        }
+        return avg;
+    }
+
+    /**
+     * 号码频率（口径同 FrequencyAnalyzer.calculateFrequency）
+     *
+     * @param recentCount 最近期数，null 表示视图内全部
+     */
+    public List<FrequencyDTO> calculateFrequency(NumberZone zone, Integer recentCount) {
+        int period = recentCount != null ? recentCount : cutoff;
+        int total = cutoff - Math.max(0, cutoff - period);
+        int[] counts = frequencyCounts(zone, period);
+        List<FrequencyDTO> list = new ArrayList<>(counts.length);
+        for (int num = zone.getMin(); num <= zone.getMax(); num++) {
+            int count = counts[num - zone.getMin()];
+            list.add(new FrequencyDTO(num, count, total > 0 ? (count * 100.0 / total) : 0, zone.getCode()));
+        }
+        return list;
+    }
+
+    /**
+     * 号码遗漏（口径同 MissingAnalyzer.calculateMissing）
+     */
+    public List<MissingDTO> calculateMissing(NumberZone zone) {
+        int from = Math.max(0, cutoff - missingPeriod);
+        int[] current = currentMissing(zone);
+        double[] avg = averageMissing(zone);
+        List<MissingDTO> list = new ArrayList<>(current.length);
+        for (int num = zone.getMin(); num <= zone.getMax(); num++) {
+            int i = num - zone.getMin();
+            int maxMissing = Math.max(current[i], index.maxGapIn(DrawHistoryIndex.bit(zone, num), from, cutoff));
+            list.add(new MissingDTO(num, current[i], avg[i], maxMissing, zone.getCode()));
+        }
+        return list;
+    }
+
+    @Override
+    public List<Integer> getHotNumbers(NumberZone zone, int count) {
+        int[] counts = frequencyCounts(zone, hotColdPeriod);
+        return topNumbers(zone, count, Comparator.comparingInt(num -> -counts[num - zone.getMin()]));
+    }
+
+    @Override
+    public List<Integer> getColdNumbers(NumberZone zone, int count) {
+        int[] counts = frequencyCounts(zone, hotColdPeriod);
+        return topNumbers(zone, count, Comparator.comparingInt(num -> counts[num - zone.getMin()]));
+    }
+
+    @Override
+    public List<Integer> getMissingDueNumbers(NumberZone zone, int count) {
+        int[] current = currentMissing(zone);
+        double[] avg = averageMissing(zone);
+        int min = zone.getMin();
+        return numbers(zone).stream()
+            .filter(num -> current[num - min] >= avg[num - min] * 0.8)
+            .sorted(Comparator.comparingDouble(num -> Math.abs(current[num - min] - avg[num - min])))
+            .limit(count)
+            .sorted()
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public List<Integer> getHighMissingNumbers(NumberZone zone, int count) {
+        int[] current = currentMissing(zone);
+        return topNumbers(zone, count, Comparator.comparingInt(num -> -current[num - zone.getMin()]));
+    }
+
+    @Override
+    public Map<Integer, Double> getNumberScores(NumberZone zone) {
+        int min = zone.getMin();
+        int total = cutoff - Math.max(0, cutoff - hotColdPeriod);
+        int[] counts = frequencyCounts(zone, hotColdPeriod);
+        int[] current = currentMissing(zone);
+        double[] avg = averageMissing(zone);
+
+        double[] freq = new double[counts.length];
+        double maxFreq = -Double.MAX_VALUE;
+        double minFreq = Double.MAX_VALUE;
+        for (int i = 0; i < counts.length; i++) {
+            freq[i] = total > 0 ? counts[i] * 100.0 / total : 0;
+            maxFreq = Math.max(maxFreq, freq[i]);
+            minFreq = Math.min(minFreq, freq[i]);
+        }
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (int num = min; num <= zone.getMax(); num++) {
+            int i = num - min;
+            double freqScore = (freq[i] - minFreq) / (maxFreq - minFreq + 0.001) * 100;
+            double missScore = 0;
+            if (avg[i] > 0) {
+                // 遗漏接近平均值得分高
+                double ratio = current[i] / avg[i];
+                if (ratio >= 0.8 && ratio <= 1.5) {
+                    missScore = 100 - Math.abs(ratio - 1) * 50;
+                } else if (ratio > 1.5) {
+                    missScore = 80; // 遗漏过大也给较高分
+                }
+            }
+            scores.put(num, freqScore * 0.5 + missScore * 0.5);
+        }
+        return scores;
+    }
+
+    @Override
+    public List<LotteryResult> getRecentResults(int limit) {
+        int from = Math.max(0, cutoff - limit);
+        List<LotteryResult> results = new ArrayList<>(cutoff - from);
+        for (int t = cutoff - 1; t >= from; t--) {
+            results.add(index.draw(t));
+        }
+        return results;
+    }
+
+    /**
+     * 按比较器（稳定排序，同分时号码小的在前）取前 count 个，再按号码升序返回
+     */
+    private List<Integer> topNumbers(NumberZone zone, int count, Comparator<Integer> order) {
+        return numbers(zone).stream()
+            .sorted(order)
+            .limit(count)
+            .sorted()
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static List<Integer> numbers(NumberZone zone) {
+        List<Integer> numbers = new ArrayList<>(zone.getMax() - zone.getMin() + 1);
+        for (int num = zone.getMin(); num <= zone.getMax(); num++) {
+            numbers.add(num);
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,174 @@
+package com.hobart.lottery.service.index;
+
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.domain.model.PrizeLevel;
+import com.hobart.lottery.domain.model.TicketMask;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单期预测记录的倒排索引
+ * 每个号码对应一个位图（第 i 位表示第 i 条预测包含该号码），
+ * 查询时把开奖号码对应的位图按字累加到位切片计数器，直接得出命中数 >= k 的预测
+ */
+public class PredictionHitIndex {
+
+    @Getter
+    private final String issue;
+    /** 位置 -> 预测记录ID */
+    private final long[] ids;
+    /** 位置 -> 方法在 methodTable 中的下标 */
+    private final byte[] methods;
+    /** 位置 -> 号码掩码（用于计算精确命中数） */
+    private final long[] tickets;
+    private final String[] methodTable;
+    /** 前区号码 -> 位图，下标为号码 */
+    private final long[][] frontBitmaps;
+    /** 后区号码 -> 位图，下标为号码 */
+    private final long[][] backBitmaps;
+
+    private PredictionHitIndex(String issue, long[] ids, byte[] methods, long[] tickets, String[] methodTable) {
+        this.issue = issue;
+        this.ids = ids;
+        this.methods = methods;
+        this.tickets = tickets;
+        this.methodTable = methodTable;
+
+        int words = (ids.length + 63) >>> 6;
+        this.frontBitmaps = new long[36][words];
+        this.backBitmaps = new long[13][words];
+        for (int pos = 0; pos < tickets.length; pos++) {
+            long word = 1L << (pos & 63);
+            int w = pos >>> 6;
+            for (int ball : TicketMask.balls(tickets[pos], NumberZone.FRONT)) {
+                frontBitmaps[ball][w] |= word;
+            }
+            for (int ball : TicketMask.balls(tickets[pos], NumberZone.BACK)) {
+                backBitmaps[ball][w] |= word;
+            }
+        }
+    }
+
+    /**
+     * 已索引的预测数
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 查找前区命中数不少于 minFrontHits 的预测
+     *
+     * @param drawMask 开奖号码掩码
+     * @param minFrontHits 最少前区命中数（1-5）
+     * @return 命中的预测（按索引顺序）
+     */
+    public List<Hit> findByFrontHits(long drawMask, int minFrontHits) {
+        int k = Math.max(1, Math.min(5, minFrontHits));
+        long[][] drawn = Arrays.stream(TicketMask.balls(drawMask, NumberZone.FRONT))
+                .mapToObj(ball -> frontBitmaps[ball])
+                .toArray(long[][]::new);
+
+        List<Hit> hits = new ArrayList<>();
+        int words = (ids.length + 63) >>> 6;
+        for (int w = 0; w < words; w++) {
+            // 三个位平面组成每个位置的命中计数（0-5）
+            long c0 = 0, c1 = 0, c2 = 0;
+            for (long[] bitmap : drawn) {
+                long carry = bitmap[w];
+                long next = c0 & carry;
+                c0 ^= carry;
+                carry = next;
+                next = c1 & carry;
+                c1 ^= carry;
+                c2 |= next;
+            }
+            long match = atLeast(k, c0, c1, c2);
+            while (match != 0) {
+                int pos = (w << 6) + Long.numberOfTrailingZeros(match);
+                hits.add(toHit(pos, drawMask));
+                match &= match - 1;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 计数 >= k 的位置掩码，计数 = 4*c2 + 2*c1 + c0
+     */
+    private static long atLeast(int k, long c0, long c1, long c2) {
+        return switch (k) {
+            case 1 -> c0 | c1 | c2;
+            case 2 -> c1 | c2;
+            case 3 -> c2 | (c1 & c0);
+            case 4 -> c2;
+            default -> c2 & (c1 | c0);
+        };
+    }
+
+    private Hit toHit(int pos, long drawMask) {
+        int frontHit = TicketMask.frontHits(tickets[pos], drawMask);
+        int backHit = TicketMask.backHits(tickets[pos], drawMask);
+        return new Hit(ids[pos], methodTable[methods[pos]], frontHit, backHit,
+                PrizeLevel.of(frontHit, backHit).getDisplayName());
+    }
+
+    /**
+     * 逐条追加预测后一次性生成索引
+     */
+    public static class Builder {
+
+        private final String issue;
+        private long[] ids = new long[1024];
+        private byte[] methods = new byte[1024];
+        private long[] tickets = new long[1024];
+        private final List<String> methodTable = new ArrayList<>();
+        private int size;
+
+        public Builder(String issue) {
+            this.issue = issue;
+        }
+
+        public Builder add(long id, String method, long ticketMask) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                methods = Arrays.copyOf(methods, capacity);
+                tickets = Arrays.copyOf(tickets, capacity);
+            }
+            int methodIndex = methodTable.indexOf(method);
+            if (methodIndex < 0) {
+                methodTable.add(method);
+                methodIndex = methodTable.size() - 1;
+            }
+            ids[size] = id;
+            methods[size] = (byte) methodIndex;
+            tickets[size] = ticketMask;
+            size++;
+            return this;
+        }
+
+        public PredictionHitIndex build() {
+            return new PredictionHitIndex(issue, Arrays.copyOf(ids, size), Arrays.copyOf(methods, size),
+                    Arrays.copyOf(tickets, size), methodTable.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * 查询命中结果
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Hit {
+        private long id;
+        private String predictMethod;
+        private int frontHitCount;
+        private int backHitCount;
+        private String prizeLevel;
+    }
+}
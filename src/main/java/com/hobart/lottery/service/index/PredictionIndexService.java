@@ -0,0 +1,147 @@
+package com.hobart.lottery.service.index;
+
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.entity.PredictionRecord;
+import com.hobart.lottery.mapper.PredictionRecordMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预测倒排索引服务
+ * 为待开奖期号的预测记录按需建立内存倒排索引，开奖后可立即查出高命中的预测。
+ * 索引在映射表之外构建（流式读库期间不占用映射表的锁），完成后再发布；超出容量时淘汰最久未使用的索引
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PredictionIndexService {
+
+    private final PredictionRecordMapper predictionRecordMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /** 最多同时保留的期数，超出时淘汰最久未使用的索引 */
+    private static final int MAX_INDEXED_ISSUES = 4;
+
+    private final Map<String, Entry> indexes = new ConcurrentHashMap<>();
+
+    /** 访问时钟，用于按最近使用排序 */
+    private final AtomicLong clock = new AtomicLong();
+
+    /** 失效次数，构建期间发生过失效的索引不发布 */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 已发布的索引与最近使用时刻
+     */
+    private static final class Entry {
+        final PredictionHitIndex index;
+        volatile long lastUsed;
+
+        Entry(PredictionHitIndex index, long lastUsed) {
+            this.index = index;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * 获取某期的索引，不存在时从数据库流式构建
+     * 同一期被并发请求时可能重复构建，先发布的索引生效
+     */
+    public PredictionHitIndex getIndex(String issue) {
+        Entry entry = indexes.get(issue);
+        if (entry != null) {
+            entry.lastUsed = clock.incrementAndGet();
+            return entry.index;
+        }
+
+        long version = invalidations.get();
+        PredictionHitIndex built = build(issue);
+        if (invalidations.get() != version) {
+            // 构建期间该期或其他期的预测有变更，本次结果直接返回但不缓存
+            return built;
+        }
+        Entry published = new Entry(built, clock.incrementAndGet());
+        Entry existing = indexes.putIfAbsent(issue, published);
+        if (existing != null) {
+            existing.lastUsed = clock.incrementAndGet();
+            return existing.index;
+        }
+        evict();
+        return built;
+    }
+
+    /**
+     * 淘汰最久未使用的索引（刚发布的索引最近使用，不会被淘汰）
+     */
+    private void evict() {
+        while (indexes.size() > MAX_INDEXED_ISSUES) {
+            indexes.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                .ifPresent(e -> indexes.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    /**
+     * 查找前区命中数不少于 minFrontHits 的预测
+     *
+     * @param issue 期号
+     * @param drawMask 开奖号码掩码
+     * @param minFrontHits 最少前区命中数
+     */
+    public List<PredictionHitIndex.Hit> findByFrontHits(String issue, long drawMask, int minFrontHits) {
+        return getIndex(issue).findByFrontHits(drawMask, minFrontHits);
+    }
+
+    /**
+     * 某期预测有增减时使索引失效；处于事务中时在提交后再移除，避免重建读到未提交前的数据
+     */
+    public void invalidate(String issue) {
+        invalidations.incrementAndGet();
+        indexes.remove(issue);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidations.incrementAndGet();
+                    indexes.remove(issue);
+                }
+            });
+        }
+    }
+
+    private PredictionHitIndex build(String issue) {
+        long start = System.currentTimeMillis();
+        PredictionHitIndex.Builder builder = new PredictionHitIndex.Builder(issue);
+
+        TransactionTemplate readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        readTx.executeWithoutResult(status -> {
+            try (Cursor<PredictionRecord> cursor = predictionRecordMapper.scanByTargetIssue(issue)) {
+                for (PredictionRecord record : cursor) {
+                    builder.add(record.getId(), record.getPredictMethod(),
+                            TicketMask.pack(record.getFrontBallArray(), record.getBackBallArray()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        PredictionHitIndex index = builder.build();
+        log.info("期号 {} 预测索引构建完成: {} 条, 耗时 {} ms", issue, index.size(), System.currentTimeMillis() - start);
+        return index;
+    }
+}
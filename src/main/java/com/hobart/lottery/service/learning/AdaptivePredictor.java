@@ -1,13 +1,17 @@
 package com.hobart.lottery.service.learning;
 
 import com.hobart.lottery.domain.model.NumberZone;
-import com.hobart.lottery.service.analysis.FrequencyAnalyzer;
-import com.hobart.lottery.service.analysis.MissingAnalyzer;
+import com.hobart.lottery.predictor.PredictionDataSource;
+import com.hobart.lottery.service.AnalysisService;
+import com.hobart.lottery.service.DataVersion;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 自适应预测器
@@ -19,36 +23,65 @@ import java.util.*;
 public class AdaptivePredictor {
     
     private final WeightAdjuster weightAdjuster;
-    private final FrequencyAnalyzer frequencyAnalyzer;
-    private final MissingAnalyzer missingAnalyzer;
+    private final AnalysisService analysisService;
+    private final DataVersion dataVersion;
     
     private final Random random = new Random();
     
+    /** 按历史版本缓存的各方法评分向量 */
+    private volatile ScoreVectors scoreVectors;
+
+    /** 评分向量重建锁（重建时查询分析数据，不用 synchronized 以免钉住虚拟线程的载体线程） */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
     /**
      * 使用自适应权重生成预测
      * 
      * @return int[2][] - [0]为前区5个号码，[1]为后区2个号码
      */
     public int[][] predict() {
-        Map<String, Double> weights = weightAdjuster.getMethodWeights();
+        int[][] prediction = generate(getScoreVectors(), weightAdjuster.nextTicketWeights());
+        
+        log.info("自适应预测生成: 前区{}, 后区{}", Arrays.toString(prediction[0]), Arrays.toString(prediction[1]));
         
+        return prediction;
+    }
+    
+    /**
+     * 生成多注预测
+     */
+    public List<int[][]> predictMultiple(int count) {
+        return generateDistinct(count, this::predict);
+    }
+    
+    /**
+     * 基于指定数据来源和权重生成多注预测（用于回测，不读取当前权重也不使用缓存）
+     * 
+     * @param source 某一时间点的历史数据视图
+     * @param weights 该时间点的方法权重
+     */
+    public List<int[][]> predictMultiple(int count, PredictionDataSource source, WeightSnapshot weights) {
+        ScoreVectors vectors = new ScoreVectors(-1, buildZoneScores(NumberZone.FRONT, source),
+            buildZoneScores(NumberZone.BACK, source));
+        return generateDistinct(count, () -> generate(vectors, weights));
+    }
+    
+    private int[][] generate(ScoreVectors vectors, WeightSnapshot weights) {
         // 获取各方法的号码评分
-        Map<Integer, Double> frontScores = calculateWeightedScores(NumberZone.FRONT, weights);
-        Map<Integer, Double> backScores = calculateWeightedScores(NumberZone.BACK, weights);
+        double[] frontScores = calculateWeightedScores(vectors.front(), weights);
+        double[] backScores = calculateWeightedScores(vectors.back(), weights);
         
         // 根据加权分数选择号码
-        int[] front = selectByWeightedScore(frontScores, 5);
-        int[] back = selectByWeightedScore(backScores, 2);
-        
-        log.info("自适应预测生成: 前区{}, 后区{}", Arrays.toString(front), Arrays.toString(back));
+        int[] front = selectByWeightedScore(NumberZone.FRONT, frontScores, 5);
+        int[] back = selectByWeightedScore(NumberZone.BACK, backScores, 2);
         
         return new int[][] { front, back };
     }
     
     /**
-     * 生成多注预测
+     * 重复生成直到得到 count 注不同的预测（最多尝试 count * 10 次）
      */
-    public List<int[][]> predictMultiple(int count) {
+    private List<int[][]> generateDistinct(int count, Supplier<int[][]> generator) {
         Set<String> generated = new HashSet<>();
         List<int[][]> results = new ArrayList<>();
         
@@ -56,7 +89,7 @@ public class AdaptivePredictor {
         int attempts = 0;
         
         while (results.size() < count && attempts < maxAttempts) {
-            int[][] prediction = predict();
+            int[][] prediction = generator.get();
             String key = Arrays.toString(prediction[0]) + "-" + Arrays.toString(prediction[1]);
             
             if (!generated.contains(key)) {
@@ -71,105 +104,135 @@ public class AdaptivePredictor {
     
     /**
      * 计算加权综合评分
+     * 各方法的号码评分按历史版本预先算好，每注只需按当前权重线性组合并叠加 ML 随机因子
+     * 
+     * @return 下标为 号码 - 区域最小号码 的评分数组
      */
-    private Map<Integer, Double> calculateWeightedScores(NumberZone zone, Map<String, Double> weights) {
-        Map<Integer, Double> finalScores = new HashMap<>();
-        
-        // 初始化
-        for (int i = zone.getMin(); i <= zone.getMax(); i++) {
-            finalScores.put(i, 0.0);
+    private double[] calculateWeightedScores(ZoneScores components, WeightSnapshot weights) {
+        double hotWeight = weights.get(PredictMethod.HOT);
+        double missingWeight = weights.get(PredictMethod.MISSING);
+        double balancedWeight = weights.get(PredictMethod.BALANCED);
+        double adaptiveWeight = weights.get(PredictMethod.ADAPTIVE);
+        // ML 方法权重暂时用随机因子模拟
+        double mlWeight = weights.get(PredictMethod.ML);
+        
+        double[] finalScores = new double[components.hot().length];
+        for (int i = 0; i < finalScores.length; i++) {
+            finalScores[i] = components.hot()[i] * hotWeight
+                + components.missing()[i] * missingWeight
+                + components.due()[i] * balancedWeight
+                + components.adaptive()[i] * adaptiveWeight
+                + random.nextDouble() * 5 * mlWeight;
         }
-        
-        // HOT 方法：热号得高分
-        double hotWeight = weights.getOrDefault("HOT", 0.2);
-        List<Integer> hotNumbers = frequencyAnalyzer.getHotNumbers(zone, zone.getCount() * 2);
-        for (int i = 0; i < hotNumbers.size(); i++) {
-            int num = hotNumbers.get(i);
-            double score = (hotNumbers.size() - i) * 10.0; // 越热分越高
-            finalScores.merge(num, score * hotWeight, Double::sum);
+        return finalScores;
+    }
+    
+    /**
+     * 获取当前历史版本的评分向量，版本变化后首次调用时重新计算
+     */
+    private ScoreVectors getScoreVectors() {
+        long version = dataVersion.history();
+        ScoreVectors current = scoreVectors;
+        if (current != null && current.version == version) {
+            return current;
         }
-        
-        // MISSING 方法：高遗漏得高分
-        double missingWeight = weights.getOrDefault("MISSING", 0.2);
-        List<Integer> missingNumbers = missingAnalyzer.getHighMissingNumbers(zone, zone.getCount() * 2);
-        for (int i = 0; i < missingNumbers.size(); i++) {
-            int num = missingNumbers.get(i);
-            double score = (missingNumbers.size() - i) * 10.0;
-            finalScores.merge(num, score * missingWeight, Double::sum);
+        rebuildLock.lock();
+        try {
+            current = scoreVectors;
+            if (current == null || current.version != version) {
+                current = new ScoreVectors(version, buildZoneScores(NumberZone.FRONT, analysisService),
+                    buildZoneScores(NumberZone.BACK, analysisService));
+                scoreVectors = current;
+                log.debug("自适应预测评分向量已重建，历史版本 {}", version);
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
         }
+    }
+    
+    /**
+     * 计算各方法对某区域号码的评分
+     */
+    private ZoneScores buildZoneScores(NumberZone zone, PredictionDataSource source) {
+        int size = zone.getMax() - zone.getMin() + 1;
         
+        // HOT 方法：热号得高分
+        double[] hot = rankScores(zone, size, source.getHotNumbers(zone, zone.getCount() * 2));
+        // MISSING 方法：高遗漏得高分
+        double[] missing = rankScores(zone, size, source.getHighMissingNumbers(zone, zone.getCount() * 2));
         // BALANCED 方法：遗漏到期号码得高分
-        double balancedWeight = weights.getOrDefault("BALANCED", 0.2);
-        List<Integer> dueNumbers = missingAnalyzer.getMissingDueNumbers(zone, zone.getCount() * 2);
-        for (int i = 0; i < dueNumbers.size(); i++) {
-            int num = dueNumbers.get(i);
-            double score = (dueNumbers.size() - i) * 10.0;
-            finalScores.merge(num, score * balancedWeight, Double::sum);
-        }
+        double[] due = rankScores(zone, size, source.getMissingDueNumbers(zone, zone.getCount() * 2));
         
         // ADAPTIVE 方法：使用综合评分（自身权重，用于自我参考）
-        double adaptiveWeight = weights.getOrDefault("ADAPTIVE", 0.2);
-        Map<Integer, Double> adaptiveScores = frequencyAnalyzer.getNumberScores(zone, missingAnalyzer);
-        for (Map.Entry<Integer, Double> entry : adaptiveScores.entrySet()) {
-            finalScores.merge(entry.getKey(), entry.getValue() * adaptiveWeight / 10, Double::sum);
+        double[] adaptive = new double[size];
+        for (Map.Entry<Integer, Double> entry : source.getNumberScores(zone).entrySet()) {
+            adaptive[entry.getKey() - zone.getMin()] = entry.getValue() / 10;
         }
         
-        // ML 方法权重暂时用随机因子模拟
-        double mlWeight = weights.getOrDefault("ML", 0.2);
-        for (int i = zone.getMin(); i <= zone.getMax(); i++) {
-            double randomFactor = random.nextDouble() * 5;
-            finalScores.merge(i, randomFactor * mlWeight, Double::sum);
+        return new ZoneScores(hot, missing, due, adaptive);
+    }
+    
+    /**
+     * 列表中越靠前的号码得分越高
+     */
+    private double[] rankScores(NumberZone zone, int size, List<Integer> numbers) {
+        double[] scores = new double[size];
+        for (int i = 0; i < numbers.size(); i++) {
+            scores[numbers.get(i) - zone.getMin()] = (numbers.size() - i) * 10.0;
         }
-        
-        return finalScores;
+        return scores;
     }
     
     /**
-     * 根据加权分数选择号码
+     * 根据加权分数选择号码（按分数比例不放回抽样）
      */
-    private int[] selectByWeightedScore(Map<Integer, Double> scores, int count) {
+    private int[] selectByWeightedScore(NumberZone zone, double[] scores, int count) {
         // 将分数转换为权重（确保非负）
-        double minScore = scores.values().stream().mapToDouble(Double::doubleValue).min().orElse(0);
-        Map<Integer, Double> adjustedScores = new HashMap<>();
-        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
-            adjustedScores.put(entry.getKey(), entry.getValue() - minScore + 1);
+        double minScore = Double.MAX_VALUE;
+        for (double score : scores) {
+            minScore = Math.min(minScore, score);
+        }
+        double[] adjusted = new double[scores.length];
+        double totalWeight = 0;
+        for (int i = 0; i < scores.length; i++) {
+            adjusted[i] = scores[i] - minScore + 1;
+            totalWeight += adjusted[i];
         }
         
-        double totalWeight = adjustedScores.values().stream().mapToDouble(Double::doubleValue).sum();
-        
-        Set<Integer> selected = new TreeSet<>();
-        int maxAttempts = count * 50;
-        int attempts = 0;
-        
-        while (selected.size() < count && attempts < maxAttempts) {
+        int[] selected = new int[count];
+        for (int k = 0; k < count; k++) {
             double r = random.nextDouble() * totalWeight;
             double cumulative = 0;
-            
-            for (Map.Entry<Integer, Double> entry : adjustedScores.entrySet()) {
-                cumulative += entry.getValue();
-                if (r <= cumulative && !selected.contains(entry.getKey())) {
-                    selected.add(entry.getKey());
-                    break;
+            int pick = -1;
+            for (int i = 0; i < adjusted.length; i++) {
+                if (adjusted[i] > 0) {
+                    pick = i;
+                    cumulative += adjusted[i];
+                    if (r < cumulative) {
+                        break;
+                    }
                 }
             }
-            attempts++;
-        }
-        
-        // 如果选择不够，随机补充
-        List<Integer> remaining = new ArrayList<>();
-        for (int num : scores.keySet()) {
-            if (!selected.contains(num)) {
-                remaining.add(num);
-            }
-        }
-        Collections.shuffle(remaining);
-        
-        int idx = 0;
-        while (selected.size() < count && idx < remaining.size()) {
-            selected.add(remaining.get(idx++));
+            totalWeight -= adjusted[pick];
+            adjusted[pick] = 0;
+            selected[k] = pick + zone.getMin();
         }
         
-        return selected.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(selected);
+        return selected;
+    }
+    
+    /**
+     * 某历史版本下两个区域的评分向量
+     */
+    private record ScoreVectors(long version, ZoneScores front, ZoneScores back) {
+    }
+    
+    /**
+     * 各方法对一个区域的号码评分，下标为 号码 - 区域最小号码
+     */
+    private record ZoneScores(double[] hot, double[] missing, double[] due, double[] adaptive) {
     }
     
     /**
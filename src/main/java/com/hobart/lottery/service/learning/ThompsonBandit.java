@@ -0,0 +1,172 @@
+package com.hobart.lottery.service.learning;
+
+import com.hobart.lottery.entity.MethodWeight;
+import com.hobart.lottery.mapper.MethodWeightMapper;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thompson 抽样多臂老虎机
+ * 每个预测方法视为一个臂，命中/未命中服从 Beta(1 + 命中, 1 + 未命中) 后验；
+ * 计数用原子数组维护，记录结果与每注抽样都是 O(方法数) 的无锁操作
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThompsonBandit {
+
+    private final MethodWeightMapper weightMapper;
+
+    private static final int ARMS = PredictMethod.values().length;
+
+    private final AtomicLongArray trials = new AtomicLongArray(ARMS);
+    private final AtomicLongArray hits = new AtomicLongArray(ARMS);
+
+    private volatile boolean seeded;
+
+    /** 首次加载计数的锁（加载时查询数据库，不用 synchronized 以免钉住虚拟线程的载体线程） */
+    private final ReentrantLock seedLock = new ReentrantLock();
+
+    /**
+     * 记录一批验证结果（事务提交后调用）
+     *
+     * @param methodCode 方法代码
+     * @param count 预测注数
+     * @param hitCount 命中注数
+     */
+    public void record(String methodCode, int count, int hitCount) {
+        PredictMethod method = WeightSnapshot.lookup(methodCode);
+        if (method == null) {
+            return;
+        }
+        trials.addAndGet(method.ordinal(), count);
+        hits.addAndGet(method.ordinal(), hitCount);
+    }
+
+    /**
+     * 为一注预测抽样各方法权重（归一化后和为 1）
+     */
+    public WeightSnapshot sample() {
+        ensureSeeded();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double[] weights = new double[ARMS];
+        double total = 0;
+        for (int i = 0; i < ARMS; i++) {
+            long h = hits.get(i);
+            long n = Math.max(trials.get(i), h);
+            weights[i] = sampleBeta(random, 1.0 + h, 1.0 + (n - h));
+            total += weights[i];
+        }
+        for (int i = 0; i < ARMS; i++) {
+            weights[i] /= total;
+        }
+        return WeightSnapshot.wrap(weights);
+    }
+
+    /**
+     * 各方法后验均值的归一化结果（用于持久化与展示）
+     */
+    public double[] posteriorWeights() {
+        ensureSeeded();
+        double[] weights = new double[ARMS];
+        double total = 0;
+        for (int i = 0; i < ARMS; i++) {
+            long h = hits.get(i);
+            long n = Math.max(trials.get(i), h);
+            weights[i] = (1.0 + h) / (2.0 + n);
+            total += weights[i];
+        }
+        for (int i = 0; i < ARMS; i++) {
+            weights[i] /= total;
+        }
+        return weights;
+    }
+
+    /**
+     * 用数据库中的累计统计覆盖内存计数
+     * 数据库中的计数由原子 SQL 累加，以其为准
+     */
+    public void seed(List<MethodWeight> all) {
+        for (MethodWeight mw : all) {
+            PredictMethod method = WeightSnapshot.lookup(mw.getMethodCode());
+            if (method == null) {
+                continue;
+            }
+            trials.set(method.ordinal(), mw.getTotalPredictions() != null ? mw.getTotalPredictions() : 0);
+            hits.set(method.ordinal(), mw.getTotalHits() != null ? mw.getTotalHits() : 0);
+        }
+        seeded = true;
+    }
+
+    /**
+     * 内存计数是否与数据库中的累计统计一致（尚未加载时视为不一致）
+     */
+    public boolean countsMatch(List<MethodWeight> all) {
+        if (!seeded) {
+            return false;
+        }
+        for (MethodWeight mw : all) {
+            PredictMethod method = WeightSnapshot.lookup(mw.getMethodCode());
+            if (method == null) {
+                continue;
+            }
+            long total = mw.getTotalPredictions() != null ? mw.getTotalPredictions() : 0;
+            long hitCount = mw.getTotalHits() != null ? mw.getTotalHits() : 0;
+            if (trials.get(method.ordinal()) != total || hits.get(method.ordinal()) != hitCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureSeeded() {
+        if (!seeded) {
+            seedLock.lock();
+            try {
+                if (!seeded) {
+                    seed(weightMapper.selectAllOrderByWeight());
+                    log.info("Thompson 抽样计数已从数据库加载");
+                }
+            } finally {
+                seedLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Beta(a, b) = X / (X + Y)，X ~ Gamma(a)，Y ~ Gamma(b)
+     */
+    private static double sampleBeta(ThreadLocalRandom random, double a, double b) {
+        double x = sampleGamma(random, a);
+        double y = sampleGamma(random, b);
+        return x / (x + y);
+    }
+
+    /**
+     * Marsaglia-Tsang 方法抽样 Gamma(shape, 1)，要求 shape >= 1（此处参数均不小于 1）
+     */
+    private static double sampleGamma(ThreadLocalRandom random, double shape) {
+        double d = shape - 1.0 / 3.0;
+        double c = 1.0 / Math.sqrt(9.0 * d);
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1.0 + c * x;
+            if (v <= 0) {
+                continue;
+            }
+            v = v * v * v;
+            double u = random.nextDouble();
+            if (u < 1.0 - 0.0331 * x * x * x * x
+                    || Math.log(u) < 0.5 * x * x + d * (1.0 - v + Math.log(v))) {
+                return d * v;
+            }
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package com.hobart.lottery.service.learning;
 
 import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.config.LotteryConfig.LearningStrategy;
 import com.hobart.lottery.entity.MethodWeight;
+import com.hobart.lottery.entity.MethodWeightHistory;
 import com.hobart.lottery.entity.PredictionRecord;
+import com.hobart.lottery.mapper.MethodWeightHistoryMapper;
 import com.hobart.lottery.mapper.MethodWeightMapper;
+import com.hobart.lottery.service.DataVersion;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 权重调整器
@@ -26,7 +37,16 @@ import java.util.Map;
 public class WeightAdjuster {
     
     private final MethodWeightMapper weightMapper;
+    private final MethodWeightHistoryMapper historyMapper;
     private final LotteryConfig config;
+    private final ThompsonBandit thompsonBandit;
+    private final DataVersion dataVersion;
+    
+    /**
+     * 当前权重快照，首次读取时加载，本进程的权重写入提交后整体替换。
+     * 快照与 DataVersion 都只在进程内有效，只支持单实例部署
+     */
+    private final AtomicReference<WeightSnapshot> snapshot = new AtomicReference<>();
     
     /**
      * 根据验证结果调整权重
@@ -40,81 +60,71 @@ public class WeightAdjuster {
             return;
         }
         
-        String methodCode = record.getPredictMethod();
-        MethodWeight mw = weightMapper.selectByMethodCode(methodCode);
-        
-        if (mw == null) {
-            log.warn("未找到方法权重记录: {}", methodCode);
-            return;
-        }
-        
-        // 判断是否命中
-        boolean isHit = isHit(record);
-        
-        // 更新统计
-        mw.setTotalPredictions(mw.getTotalPredictions() + 1);
-        if (isHit) {
-            mw.setTotalHits(mw.getTotalHits() + 1);
-        }
-        
-        // EMA 更新命中率
-        double alpha = config.getLearning().getEmaAlpha();
-        double newHitRate = isHit ? 1.0 : 0.0;
-        double currentRate = mw.getHitRate() != null ? mw.getHitRate().doubleValue() : 0.0;
-        double smoothedRate = alpha * newHitRate + (1 - alpha) * currentRate;
-        
-        mw.setHitRate(BigDecimal.valueOf(smoothedRate).setScale(4, RoundingMode.HALF_UP));
-        mw.setUpdatedAt(LocalDateTime.now());
-        
-        weightMapper.updateById(mw);
-        
-        log.info("更新方法 {} 的命中率: {} -> {}, 是否命中: {}", 
-            methodCode, currentRate, smoothedRate, isHit);
-        
-        // 重新计算所有权重
-        recalculateAllWeights();
+        adjustWeightsBatch(List.of(record));
     }
     
     /**
      * 批量调整权重（验证一期所有预测后调用）
+     * 先在内存中按方法汇总命中序列，再以原子 SQL 累加到各方法并重新归一化，
+     * 并发验证的事务不会相互覆盖数据库中的权重
      * 
      * @param records 同一期的所有预测记录
      */
     @Transactional
     public void adjustWeightsBatch(List<PredictionRecord> records) {
+        // 方法代码 -> 本批命中序列（保持记录顺序）
+        Map<String, List<Boolean>> hitsByMethod = new TreeMap<>();
+        String issue = null;
         for (PredictionRecord record : records) {
             if (record.getIsVerified() == 1) {
-                adjustWeightInternal(record);
+                issue = record.getTargetIssue();
+                hitsByMethod.computeIfAbsent(record.getPredictMethod(), k -> new ArrayList<>()).add(isHit(record));
             }
         }
-        recalculateAllWeights();
-    }
-    
-    /**
-     * 内部调整方法（不重新计算权重）
-     */
-    private void adjustWeightInternal(PredictionRecord record) {
-        String methodCode = record.getPredictMethod();
-        MethodWeight mw = weightMapper.selectByMethodCode(methodCode);
-        
-        if (mw == null) return;
+        if (hitsByMethod.isEmpty()) {
+            return;
+        }
         
-        boolean isHit = isHit(record);
+        // 先按固定顺序锁住全部权重行，后续的累加与归一化不会与其他事务交叉加锁
+        weightMapper.lockAll();
+        double alpha = config.getLearning().getEmaAlpha();
         
-        mw.setTotalPredictions(mw.getTotalPredictions() + 1);
-        if (isHit) {
-            mw.setTotalHits(mw.getTotalHits() + 1);
+        for (Map.Entry<String, List<Boolean>> entry : hitsByMethod.entrySet()) {
+            List<Boolean> hits = entry.getValue();
+            
+            // 从 0 起算本批的 EMA 贡献；原命中率的衰减 (1-α)^n 交给数据库计算
+            double contribution = 0.0;
+            int hitCount = 0;
+            for (boolean isHit : hits) {
+                contribution = alpha * (isHit ? 1.0 : 0.0) + (1 - alpha) * contribution;
+                if (isHit) {
+                    hitCount++;
+                }
+            }
+            double decay = Math.pow(1 - alpha, hits.size());
+            
+            if (weightMapper.applyOutcomes(entry.getKey(), hits.size(), hitCount, decay, contribution) == 0) {
+                log.warn("未找到方法权重记录: {}", entry.getKey());
+                continue;
+            }
+            
+            String methodCode = entry.getKey();
+            int count = hits.size();
+            int banditHits = hitCount;
+            afterCommit(() -> thompsonBandit.record(methodCode, count, banditHits));
         }
         
-        double alpha = config.getLearning().getEmaAlpha();
-        double newHitRate = isHit ? 1.0 : 0.0;
-        double currentRate = mw.getHitRate() != null ? mw.getHitRate().doubleValue() : 0.0;
-        double smoothedRate = alpha * newHitRate + (1 - alpha) * currentRate;
+        if (isThompson()) {
+            // THOMPSON 策略下权重列由 syncBandit 定期写入后验均值，这里只刷新统计
+            publishAfterCommit(weightMapper.selectAllOrderByWeight());
+        } else {
+            recalculateAllWeights();
+        }
         
-        mw.setHitRate(BigDecimal.valueOf(smoothedRate).setScale(4, RoundingMode.HALF_UP));
-        mw.setUpdatedAt(LocalDateTime.now());
+        // 记录本期学习后的权重快照
+        historyMapper.snapshotCurrent(issue);
         
-        weightMapper.updateById(mw);
+        log.info("批量更新方法权重完成，共 {} 条预测", records.size());
     }
     
     /**
@@ -135,29 +145,8 @@ public class WeightAdjuster {
      */
     @Transactional
     public void recalculateAllWeights() {
-        List<MethodWeight> all = weightMapper.selectAllOrderByWeight();
-        
-        // 计算命中率总和
-        double totalRate = all.stream()
-            .mapToDouble(mw -> mw.getHitRate() != null ? mw.getHitRate().doubleValue() : 0.0)
-            .sum();
-        
-        // 如果总和为0（初始状态），使用均等权重
-        double defaultWeight = config.getLearning().getInitialWeight();
-        
-        for (MethodWeight mw : all) {
-            double newWeight;
-            if (totalRate > 0) {
-                double rate = mw.getHitRate() != null ? mw.getHitRate().doubleValue() : 0.0;
-                newWeight = rate / totalRate;
-            } else {
-                newWeight = defaultWeight;
-            }
-            
-            mw.setWeight(BigDecimal.valueOf(newWeight).setScale(4, RoundingMode.HALF_UP));
-            mw.setUpdatedAt(LocalDateTime.now());
-            weightMapper.updateById(mw);
-        }
+        weightMapper.normalizeWeights(config.getLearning().getInitialWeight());
+        publishAfterCommit(weightMapper.selectAllOrderByWeight());
         
         log.info("重新计算所有方法权重完成");
     }
@@ -168,15 +157,105 @@ public class WeightAdjuster {
      * @return 方法代码 -> 权重 映射
      */
     public Map<String, Double> getMethodWeights() {
-        List<MethodWeight> all = weightMapper.selectAllOrderByWeight();
-        Map<String, Double> weights = new HashMap<>();
+        return getWeightSnapshot().toMap();
+    }
+    
+    /**
+     * 获取生成一注预测所用的权重
+     * EMA 策略返回当前快照；THOMPSON 策略每注重新抽样，使各注的方法组合各不相同
+     */
+    public WeightSnapshot nextTicketWeights() {
+        return isThompson() ? thompsonBandit.sample() : getWeightSnapshot();
+    }
+    
+    /**
+     * 获取当前权重快照（内存读取，首次调用时从数据库加载）
+     */
+    public WeightSnapshot getWeightSnapshot() {
+        WeightSnapshot current = snapshot.get();
+        if (current == null) {
+            current = WeightSnapshot.of(weightMapper.selectAllOrderByWeight());
+            // 加载期间若已有写入发布了新快照，以新快照为准
+            if (!snapshot.compareAndSet(null, current)) {
+                current = snapshot.get();
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * 事务提交后发布新快照；不在事务中时立即发布
+     */
+    private void publishAfterCommit(List<MethodWeight> all) {
+        WeightSnapshot next = WeightSnapshot.of(all);
+        dataVersion.learningChanged();
+        afterCommit(() -> snapshot.set(next));
+    }
+    
+    /**
+     * 事务提交后执行；不在事务中时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    /**
+     * THOMPSON 策略下定期同步：用数据库累计统计覆盖内存计数，
+     * 再把后验均值归一化后写入权重列供展示与重启后使用；计数与权重列都未变化时跳过
+     */
+    @Scheduled(fixedDelayString = "${lottery.learning.bandit-sync-interval-ms:60000}")
+    @Transactional
+    public void syncBandit() {
+        if (!isThompson()) {
+            return;
+        }
         
-        for (MethodWeight mw : all) {
-            double weight = mw.getWeight() != null ? mw.getWeight().doubleValue() : 0.2;
-            weights.put(mw.getMethodCode(), weight);
+        // 内存计数与数据库一致、权重列也已是当前后验均值时无需加锁重写，也不递增学习数据版本
+        List<MethodWeight> stored = weightMapper.selectAllOrderByWeight();
+        if (thompsonBandit.countsMatch(stored) && weightsMatch(stored, thompsonBandit.posteriorWeights())) {
+            return;
+        }
+        
+        weightMapper.lockAll();
+        thompsonBandit.seed(weightMapper.selectAllOrderByWeight());
+        double[] weights = thompsonBandit.posteriorWeights();
+        for (PredictMethod method : PredictMethod.values()) {
+            weightMapper.updateWeight(method.name(),
+                BigDecimal.valueOf(weights[method.ordinal()]).setScale(4, RoundingMode.HALF_UP));
         }
+        publishAfterCommit(weightMapper.selectAllOrderByWeight());
         
-        return weights;
+        log.debug("Thompson 后验权重已同步: {}", Arrays.toString(weights));
+    }
+    
+    /**
+     * 权重列是否已等于给定权重（按写入精度比较）
+     */
+    private static boolean weightsMatch(List<MethodWeight> stored, double[] weights) {
+        for (MethodWeight mw : stored) {
+            PredictMethod method = WeightSnapshot.lookup(mw.getMethodCode());
+            if (method == null) {
+                continue;
+            }
+            BigDecimal expected = BigDecimal.valueOf(weights[method.ordinal()]).setScale(4, RoundingMode.HALF_UP);
+            if (mw.getWeight() == null || mw.getWeight().compareTo(expected) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean isThompson() {
+        return config.getLearning().getStrategy() == LearningStrategy.THOMPSON;
     }
     
     /**
@@ -186,22 +265,30 @@ public class WeightAdjuster {
         return weightMapper.selectAllOrderByWeight();
     }
     
+    /**
+     * 获取权重历史（按期号升序）
+     * 
+     * @param fromIssue 起始期号（含），null 表示不限
+     * @param toIssue 截止期号（含），null 表示不限
+     * @param maxIssues 最多返回的期数（正数，由调用方限制上限），超出时保留最近的
+     */
+    public List<MethodWeightHistory> getWeightHistory(String fromIssue, String toIssue, int maxIssues) {
+        List<MethodWeightHistory> rows = new ArrayList<>(
+            historyMapper.selectRange(fromIssue, toIssue, Math.multiplyExact(maxIssues, PredictMethod.values().length)));
+        Collections.reverse(rows);
+        return rows;
+    }
+    
     /**
      * 重置所有权重为初始值
      */
     @Transactional
     public void resetWeights() {
-        List<MethodWeight> all = weightMapper.selectAllOrderByWeight();
         double initialWeight = config.getLearning().getInitialWeight();
-        
-        for (MethodWeight mw : all) {
-            mw.setWeight(BigDecimal.valueOf(initialWeight));
-            mw.setHitRate(BigDecimal.ZERO);
-            mw.setTotalPredictions(0);
-            mw.setTotalHits(0);
-            mw.setUpdatedAt(LocalDateTime.now());
-            weightMapper.updateById(mw);
-        }
+        weightMapper.resetAll(initialWeight);
+        List<MethodWeight> all = weightMapper.selectAllOrderByWeight();
+        publishAfterCommit(all);
+        afterCommit(() -> thompsonBandit.seed(all));
         
         log.info("重置所有方法权重为初始值: {}", initialWeight);
     }
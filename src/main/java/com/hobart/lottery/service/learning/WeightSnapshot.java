@@ -0,0 +1,86 @@
+package com.hobart.lottery.service.learning;
+
+import com.hobart.lottery.entity.MethodWeight;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法权重快照（不可变）
+ * 按 PredictMethod 序号存放权重，生成预测时直接读取，无需访问数据库
+ */
+public final class WeightSnapshot {
+
+    /** 数据库中缺少某方法记录时使用的权重 */
+    private static final double DEFAULT_WEIGHT = 0.2;
+
+    private final double[] weights;
+
+    private WeightSnapshot(double[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * 由权重记录构建快照，未知方法代码忽略
+     */
+    public static WeightSnapshot of(List<MethodWeight> all) {
+        double[] weights = new double[PredictMethod.values().length];
+        Arrays.fill(weights, DEFAULT_WEIGHT);
+        for (MethodWeight mw : all) {
+            PredictMethod method = lookup(mw.getMethodCode());
+            if (method != null && mw.getWeight() != null) {
+                weights[method.ordinal()] = mw.getWeight().doubleValue();
+            }
+        }
+        return new WeightSnapshot(weights);
+    }
+
+    /**
+     * 由 方法代码 -> 权重 映射构建快照，缺少的方法使用默认权重
+     */
+    public static WeightSnapshot of(Map<String, Double> byCode) {
+        double[] weights = new double[PredictMethod.values().length];
+        Arrays.fill(weights, DEFAULT_WEIGHT);
+        byCode.forEach((code, weight) -> {
+            PredictMethod method = lookup(code);
+            if (method != null && weight != null) {
+                weights[method.ordinal()] = weight;
+            }
+        });
+        return new WeightSnapshot(weights);
+    }
+
+    /**
+     * 直接包装权重数组（调用方保证之后不再修改该数组）
+     */
+    static WeightSnapshot wrap(double[] weights) {
+        return new WeightSnapshot(weights);
+    }
+
+    public double get(PredictMethod method) {
+        return weights[method.ordinal()];
+    }
+
+    /**
+     * 方法代码 -> 权重（用于展示）
+     */
+    public Map<String, Double> toMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (PredictMethod method : PredictMethod.values()) {
+            map.put(method.name(), weights[method.ordinal()]);
+        }
+        return map;
+    }
+
+    static PredictMethod lookup(String code) {
+        for (PredictMethod method : PredictMethod.values()) {
+            if (method.name().equals(code)) {
+                return method;
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,6 @@
 -- =====================================================
 -- 大乐透数据分析与预测系统 - 数据库表结构
+-- 已有数据的库请执行 upgrade.sql（补充新增的表与列并回填统计），不要重新执行本脚本
 -- =====================================================
 
 -- 预测记录表
@@ -36,6 +37,8 @@ CREATE TABLE `prediction_accuracy` (
     `total_predictions` INT DEFAULT 0 COMMENT '该方法总预测次数',
     `front_avg_hit` DECIMAL(5,2) DEFAULT 0.00 COMMENT '前区平均命中数',
     `back_avg_hit` DECIMAL(5,2) DEFAULT 0.00 COMMENT '后区平均命中数',
+    `front_hit_sum` BIGINT DEFAULT 0 COMMENT '前区命中数累计(增量维护平均值)',
+    `back_hit_sum` BIGINT DEFAULT 0 COMMENT '后区命中数累计(增量维护平均值)',
     `prize_count_1` INT DEFAULT 0 COMMENT '一等奖次数(前5+后2)',
     `prize_count_2` INT DEFAULT 0 COMMENT '二等奖次数(前5+后1)',
     `prize_count_3` INT DEFAULT 0 COMMENT '三等奖次数(前5+后0 或 前4+后2)',
@@ -69,3 +72,17 @@ INSERT INTO `prediction_method_weight` (`method_code`, `method_name`, `weight`,
 ('BALANCED', '冷热均衡', 0.2000, 0, 0, 0.0000),
 ('ML', '机器学习', 0.2000, 0, 0, 0.0000),
 ('ADAPTIVE', '自适应预测', 0.2000, 0, 0, 0.0000);
+
+-- 方法权重历史表（每期验证后追加一份各方法权重快照，用于绘制权重演变曲线）
+DROP TABLE IF EXISTS `prediction_method_weight_history`;
+CREATE TABLE `prediction_method_weight_history` (
+    `id` BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    `issue` VARCHAR(20) NOT NULL COMMENT '验证的期号',
+    `method_code` VARCHAR(32) NOT NULL COMMENT '方法代码',
+    `weight` DECIMAL(5,4) DEFAULT 0.0000 COMMENT '该期学习后的权重',
+    `hit_rate` DECIMAL(5,4) DEFAULT 0.0000 COMMENT '该期学习后的命中率(EMA)',
+    `total_predictions` INT DEFAULT 0 COMMENT '截至该期的总预测次数',
+    `total_hits` INT DEFAULT 0 COMMENT '截至该期的命中次数',
+    `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE INDEX `uk_issue_method` (`issue`, `method_code`) COMMENT '每期每方法一行'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT='方法权重历史表';
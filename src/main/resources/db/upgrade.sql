@@ -0,0 +1,72 @@
+-- =====================================================
+-- 大乐透数据分析与预测系统 - 已有数据库升级脚本
+-- 新建库直接执行 schema.sql；已有数据的库执行本脚本，可重复执行
+-- =====================================================
+
+-- 准确率统计表增加命中数累计列（增量维护平均值）
+SET @db = DATABASE();
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = @db AND TABLE_NAME = 'prediction_accuracy' AND COLUMN_NAME = 'front_hit_sum') = 0,
+    'ALTER TABLE `prediction_accuracy` ADD COLUMN `front_hit_sum` BIGINT DEFAULT 0 COMMENT ''前区命中数累计(增量维护平均值)'' AFTER `back_avg_hit`',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = @db AND TABLE_NAME = 'prediction_accuracy' AND COLUMN_NAME = 'back_hit_sum') = 0,
+    'ALTER TABLE `prediction_accuracy` ADD COLUMN `back_hit_sum` BIGINT DEFAULT 0 COMMENT ''后区命中数累计(增量维护平均值)'' AFTER `front_hit_sum`',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 按已验证的预测记录重建准确率统计（回填累计列，与“重建统计”接口的汇总一致）
+INSERT INTO `prediction_accuracy` (`predict_method`, `total_predictions`, `front_hit_sum`, `back_hit_sum`,
+    `front_avg_hit`, `back_avg_hit`, `prize_count_1`, `prize_count_2`, `prize_count_3`, `prize_count_4`,
+    `prize_count_5`, `prize_count_6`, `prize_count_7`)
+SELECT r.predict_method, r.total, r.front_sum, r.back_sum,
+       ROUND(r.front_sum / r.total, 2), ROUND(r.back_sum / r.total, 2),
+       r.p1, r.p2, r.p3, r.p4, r.p5, r.p6, r.p7
+FROM (
+    SELECT predict_method, COUNT(*) AS total,
+           IFNULL(SUM(front_hit_count), 0) AS front_sum,
+           IFNULL(SUM(back_hit_count), 0) AS back_sum,
+           SUM(prize_level = '一等奖') AS p1,
+           SUM(prize_level = '二等奖') AS p2,
+           SUM(prize_level = '三等奖') AS p3,
+           SUM(prize_level = '四等奖') AS p4,
+           SUM(prize_level = '五等奖') AS p5,
+           SUM(prize_level = '六等奖') AS p6,
+           SUM(prize_level = '七等奖') AS p7
+    FROM `prediction_records`
+    WHERE is_verified = 1
+    GROUP BY predict_method
+) r
+ON DUPLICATE KEY UPDATE
+    `total_predictions` = r.total,
+    `front_hit_sum` = r.front_sum,
+    `back_hit_sum` = r.back_sum,
+    `front_avg_hit` = ROUND(r.front_sum / r.total, 2),
+    `back_avg_hit` = ROUND(r.back_sum / r.total, 2),
+    `prize_count_1` = r.p1,
+    `prize_count_2` = r.p2,
+    `prize_count_3` = r.p3,
+    `prize_count_4` = r.p4,
+    `prize_count_5` = r.p5,
+    `prize_count_6` = r.p6,
+    `prize_count_7` = r.p7;
+
+-- 方法权重历史表
+CREATE TABLE IF NOT EXISTS `prediction_method_weight_history` (
+    `id` BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    `issue` VARCHAR(20) NOT NULL COMMENT '验证的期号',
+    `method_code` VARCHAR(32) NOT NULL COMMENT '方法代码',
+    `weight` DECIMAL(5,4) DEFAULT 0.0000 COMMENT '该期学习后的权重',
+    `hit_rate` DECIMAL(5,4) DEFAULT 0.0000 COMMENT '该期学习后的命中率(EMA)',
+    `total_predictions` INT DEFAULT 0 COMMENT '截至该期的总预测次数',
+    `total_hits` INT DEFAULT 0 COMMENT '截至该期的命中次数',
+    `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE INDEX `uk_issue_method` (`issue`, `method_code`) COMMENT '每期每方法一行'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT='方法权重历史表';
@@ -0,0 +1,88 @@
+package com.hobart.lottery;
+
+import com.hobart.lottery.entity.LotteryResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * 测试用开奖数据
+ */
+public final class TestDraws {
+
+    private TestDraws() {
+    }
+
+    /**
+     * 构造一期开奖结果，派生字段（和值、奇数个数、连号数、号码字符串）按号码计算
+     */
+    public static LotteryResult draw(String issue, LocalDate drawDate, int[] front, int[] back) {
+        int[] f = front.clone();
+        int[] b = back.clone();
+        Arrays.sort(f);
+        Arrays.sort(b);
+
+        LotteryResult result = new LotteryResult();
+        result.setIssue(issue);
+        result.setDrawDate(drawDate);
+        result.setFrontBall1(f[0]);
+        result.setFrontBall2(f[1]);
+        result.setFrontBall3(f[2]);
+        result.setFrontBall4(f[3]);
+        result.setFrontBall5(f[4]);
+        result.setBackBall1(b[0]);
+        result.setBackBall2(b[1]);
+        result.setFrontBalls(join(f));
+        result.setBackBalls(join(b));
+        result.setFrontSum(Arrays.stream(f).sum());
+        result.setBackSum(Arrays.stream(b).sum());
+        result.setOddCountFront((int) Arrays.stream(f).filter(n -> n % 2 == 1).count());
+        result.setOddCountBack((int) Arrays.stream(b).filter(n -> n % 2 == 1).count());
+        int consecutive = 0;
+        for (int i = 1; i < f.length; i++) {
+            if (f[i] == f[i - 1] + 1) {
+                consecutive++;
+            }
+        }
+        result.setConsecutiveCountFront(consecutive);
+        result.setConsecutiveCountBack(b[1] == b[0] + 1 ? 1 : 0);
+        return result;
+    }
+
+    /**
+     * 固定种子生成 n 期随机开奖（期号 24001 起连续，开奖日期从 2024-01-01 起每 3 天一期）
+     */
+    public static List<LotteryResult> history(long seed, int n) {
+        Random random = new Random(seed);
+        List<LotteryResult> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            results.add(draw(String.valueOf(24001 + i), LocalDate.of(2024, 1, 1).plusDays(3L * i),
+                pick(random, 35, 5), pick(random, 12, 2)));
+        }
+        return results;
+    }
+
+    /**
+     * 从 1..max 中不重复地随机选 count 个号码
+     */
+    public static int[] pick(Random random, int max, int count) {
+        int[] balls = new int[count];
+        boolean[] used = new boolean[max + 1];
+        for (int i = 0; i < count; ) {
+            int ball = 1 + random.nextInt(max);
+            if (!used[ball]) {
+                used[ball] = true;
+                balls[i++] = ball;
+            }
+        }
+        return balls;
+    }
+
+    private static String join(int[] balls) {
+        return Arrays.stream(balls).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,108 @@
+package com.hobart.lottery.config;
+
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 舱壁拦截器测试：饱和时快速拒绝，完成后归还许可
+ */
+class BulkheadInterceptorTest {
+
+    private LotteryConfig config;
+    private BulkheadInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        config = new LotteryConfig();
+        config.getBulkhead().getLimits().put("test", 1);
+        config.getBulkhead().setMaxQueue(0);
+        config.getBulkhead().setMaxWaitMs(10);
+        interceptor = new BulkheadInterceptor(config);
+    }
+
+    @Test
+    void fullCompartmentRejectsWith503() throws Exception {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), handler("guarded")));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest(), rejected, handler("guarded")));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"success\":false"));
+    }
+
+    @Test
+    void permitIsReleasedOnCompletion() throws Exception {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(first, response, handler("guarded")));
+        interceptor.afterCompletion(first, response, handler("guarded"), null);
+        // 重复调用不会多归还许可
+        interceptor.afterCompletion(first, response, handler("guarded"), null);
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("guarded")));
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("guarded")));
+    }
+
+    @Test
+    void waitingRequestGetsTheReleasedPermit() throws Exception {
+        config.getBulkhead().setMaxQueue(1);
+        config.getBulkhead().setMaxWaitMs(5000);
+        HandlerMethod guarded = handler("guarded");
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), guarded));
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            interceptor.afterCompletion(first, new MockHttpServletResponse(), guarded, null);
+        });
+        releaser.start();
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), guarded));
+        releaser.join();
+    }
+
+    @Test
+    void unannotatedHandlersAndAsyncDispatchesAreNotLimited() throws Exception {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("guarded")));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("open")));
+        }
+        MockHttpServletRequest redispatch = new MockHttpServletRequest();
+        redispatch.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(redispatch, new MockHttpServletResponse(), handler("guarded")));
+    }
+
+    @Test
+    void disabledInterceptorLetsEverythingThrough() throws Exception {
+        config.getBulkhead().setEnabled(false);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler("guarded")));
+        }
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(name));
+    }
+
+    static class Endpoints {
+        @Bulkhead("test")
+        public void guarded() {
+        }
+
+        public void open() {
+        }
+    }
+}
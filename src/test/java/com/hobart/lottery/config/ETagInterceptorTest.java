@@ -0,0 +1,100 @@
+package com.hobart.lottery.config;
+
+import com.hobart.lottery.service.DataVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETag 拦截器测试：版本未变的条件请求直接返回 304
+ */
+class ETagInterceptorTest {
+
+    private final DataVersion dataVersion = new DataVersion();
+    private final ETagInterceptor interceptor = new ETagInterceptor(dataVersion);
+
+    @Test
+    void firstRequestGetsETagAndRunsHandler() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get(null), response, handler("history")));
+        assertEquals(200, response.getStatus());
+        assertEquals("\"" + dataVersion.historyTag() + "\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    void matchingIfNoneMatchAnswers304WithoutRunningHandler() throws Exception {
+        String etag = etagOf("history");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(get(etag), response, handler("history")));
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    void historyChangeInvalidatesTag() throws Exception {
+        String etag = etagOf("history");
+        dataVersion.historyChanged();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get(etag), response, handler("history")));
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader("ETag"));
+    }
+
+    @Test
+    void learningTagTracksBothHistoryAndLearning() throws Exception {
+        String etag = etagOf("learning");
+        assertFalse(interceptor.preHandle(get(etag), new MockHttpServletResponse(), handler("learning")));
+
+        dataVersion.learningChanged();
+        assertTrue(interceptor.preHandle(get(etag), new MockHttpServletResponse(), handler("learning")));
+
+        // 学习版本变化不影响只依赖开奖历史的接口
+        String historyTag = etagOf("history");
+        dataVersion.learningChanged();
+        assertFalse(interceptor.preHandle(get(historyTag), new MockHttpServletResponse(), handler("history")));
+    }
+
+    @Test
+    void unannotatedHandlersAreNotTagged() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get("\"anything\""), response, handler("plain")));
+        assertNull(response.getHeader("ETag"));
+    }
+
+    private String etagOf(String handlerName) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(get(null), response, handler(handlerName));
+        return response.getHeader("ETag");
+    }
+
+    private static MockHttpServletRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/analysis/api/frequency");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(name));
+    }
+
+    static class Endpoints {
+        @ETagVersion
+        public void history() {
+        }
+
+        @ETagVersion(ETagVersion.Source.LEARNING)
+        public void learning() {
+        }
+
+        public void plain() {
+        }
+    }
+}
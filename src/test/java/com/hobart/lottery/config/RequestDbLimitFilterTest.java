@@ -0,0 +1,125 @@
+package com.hobart.lottery.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 请求数据库许可测试：只有取连接的请求占用许可，取不到时返回 503
+ */
+class RequestDbLimitFilterTest {
+
+    private DbConcurrencyLimiter limiter;
+    private RequestDbLimitFilter filter;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        limiter = new DbConcurrencyLimiter(1);
+        filter = new RequestDbLimitFilter(limiter, 10);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+        dataSource = new RequestDbLimitDataSource(target, filter);
+    }
+
+    @Test
+    void requestWithoutConnectionTakesNoPermit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        int[] availableInside = new int[1];
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), response,
+            (req, res) -> availableInside[0] = limiter.getAvailable());
+
+        assertEquals(1, availableInside[0]);
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void permitIsHeldFromFirstConnectionUntilRequestEnds() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        int[] availableInside = new int[1];
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), response, (req, res) -> {
+            try {
+                dataSource.getConnection();
+                // 同一请求再次取连接不重复占用许可
+                dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            availableInside[0] = limiter.getAvailable();
+        });
+
+        assertEquals(0, availableInside[0]);
+        assertEquals(1, limiter.getAvailable());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void exhaustedPermitsAnswer503WhenExceptionPropagates() throws Exception {
+        limiter.acquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), response, (req, res) -> {
+            try {
+                dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new DataAccessResourceFailureException("无法取得连接", e);
+            }
+        });
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("\"success\":false"));
+        limiter.release();
+        assertEquals(1, limiter.getAvailable());
+    }
+
+    @Test
+    void exhaustedPermitsKeep503WhenHandlerCatchesTheFailure() throws Exception {
+        limiter.acquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), response, (req, res) -> {
+            Map<String, Object> result = new HashMap<>();
+            try {
+                dataSource.getConnection();
+                result.put("success", true);
+            } catch (SQLException e) {
+                assertInstanceOf(SQLTransientConnectionException.class, e);
+                result.put("success", false);
+            }
+            res.getWriter().write(String.valueOf(result));
+        });
+
+        assertEquals(503, response.getStatus());
+        assertEquals("{success=false}", response.getContentAsString());
+        limiter.release();
+    }
+
+    @Test
+    void backgroundThreadsAreNotLimited() throws Exception {
+        limiter.acquire();
+
+        assertNotNull(dataSource.getConnection());
+        assertEquals(0, limiter.getAvailable());
+    }
+
+    @Test
+    void nonPositivePermitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DbConcurrencyLimiter(0));
+        assertThrows(IllegalArgumentException.class, () -> new DbConcurrencyLimiter(-3));
+    }
+}
@@ -0,0 +1,56 @@
+package com.hobart.lottery.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 中奖等级测试：查表结果与原逐条判断的规则一致
+ */
+class PrizeLevelTest {
+
+    @Test
+    void tableMatchesLegacyRules() {
+        for (int front = 0; front <= 5; front++) {
+            for (int back = 0; back <= 2; back++) {
+                assertEquals(legacyPrizeLevel(front, back), PrizeLevel.of(front, back).getDisplayName(),
+                    front + "+" + back);
+            }
+        }
+    }
+
+    @Test
+    void outOfRangeHitsAreNotWinning() {
+        assertEquals(PrizeLevel.NONE, PrizeLevel.of(-1, 0));
+        assertEquals(PrizeLevel.NONE, PrizeLevel.of(6, 2));
+        assertEquals(PrizeLevel.NONE, PrizeLevel.of(5, 3));
+        assertEquals(PrizeLevel.NONE, PrizeLevel.of(0, -1));
+    }
+
+    @Test
+    void onlyNoneIsNotWinning() {
+        for (PrizeLevel level : PrizeLevel.values()) {
+            assertEquals(level != PrizeLevel.NONE, level.isWinning(), level.name());
+        }
+    }
+
+    /**
+     * 改为查表之前 VerificationService.determinePrizeLevel 的实现
+     */
+    private static String legacyPrizeLevel(int frontHit, int backHit) {
+        if (frontHit == 5 && backHit == 2) return "一等奖";
+        if (frontHit == 5 && backHit == 1) return "二等奖";
+        if (frontHit == 5 && backHit == 0) return "三等奖";
+        if (frontHit == 4 && backHit == 2) return "三等奖";
+        if (frontHit == 4 && backHit == 1) return "四等奖";
+        if (frontHit == 4 && backHit == 0) return "五等奖";
+        if (frontHit == 3 && backHit == 2) return "五等奖";
+        if (frontHit == 3 && backHit == 1) return "六等奖";
+        if (frontHit == 2 && backHit == 2) return "六等奖";
+        if (frontHit == 3 && backHit == 0) return "七等奖";
+        if (frontHit == 2 && backHit == 1) return "七等奖";
+        if (frontHit == 1 && backHit == 2) return "七等奖";
+        if (frontHit == 0 && backHit == 2) return "七等奖";
+        return "未中奖";
+    }
+}
@@ -0,0 +1,116 @@
+package com.hobart.lottery.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 号码位掩码测试
+ */
+class TicketMaskTest {
+
+    @Test
+    void packPlacesFrontAndBackBallsOnTheirBits() {
+        long mask = TicketMask.pack(new int[]{1, 2, 17, 34, 35}, new int[]{1, 12});
+
+        long expected = 1L | 1L << 1 | 1L << 16 | 1L << 33 | 1L << 34
+            | 1L << TicketMask.BACK_SHIFT | 1L << (TicketMask.BACK_SHIFT + 11);
+        assertEquals(expected, mask);
+        assertEquals(0, mask & ~(TicketMask.FRONT_BITS | TicketMask.BACK_BITS));
+        assertEquals(5, Long.bitCount(mask & TicketMask.FRONT_BITS));
+        assertEquals(2, Long.bitCount(mask & TicketMask.BACK_BITS));
+    }
+
+    @Test
+    void frontAndBackZonesDoNotOverlap() {
+        assertEquals(0, TicketMask.FRONT_BITS & TicketMask.BACK_BITS);
+        assertEquals(35, Long.bitCount(TicketMask.FRONT_BITS));
+        assertEquals(12, Long.bitCount(TicketMask.BACK_BITS));
+    }
+
+    @Test
+    void hitsCountSharedBallsPerZone() {
+        long ticket = TicketMask.pack(new int[]{3, 8, 15, 22, 30}, new int[]{4, 9});
+        long draw = TicketMask.pack(new int[]{3, 9, 15, 22, 31}, new int[]{9, 11});
+
+        assertEquals(3, TicketMask.frontHits(ticket, draw));
+        assertEquals(1, TicketMask.backHits(ticket, draw));
+        assertEquals(5, TicketMask.frontHits(ticket, ticket));
+        assertEquals(2, TicketMask.backHits(ticket, ticket));
+    }
+
+    @Test
+    void sameNumberInDifferentZonesIsNotAHit() {
+        long ticket = TicketMask.pack(new int[]{1, 2, 3, 4, 5}, new int[]{6, 7});
+        long draw = TicketMask.pack(new int[]{6, 7, 8, 9, 10}, new int[]{1, 2});
+
+        assertEquals(0, TicketMask.frontHits(ticket, draw));
+        assertEquals(0, TicketMask.backHits(ticket, draw));
+    }
+
+    @Test
+    void hitsMatchNaiveComparison() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            int[] front = pick(random, 35, 5);
+            int[] back = pick(random, 12, 2);
+            int[] drawFront = pick(random, 35, 5);
+            int[] drawBack = pick(random, 12, 2);
+            long ticket = TicketMask.pack(front, back);
+            long draw = TicketMask.pack(drawFront, drawBack);
+
+            assertEquals(naiveHits(front, drawFront), TicketMask.frontHits(ticket, draw));
+            assertEquals(naiveHits(back, drawBack), TicketMask.backHits(ticket, draw));
+        }
+    }
+
+    @Test
+    void ballsRestoresSortedNumbers() {
+        long mask = TicketMask.pack(new int[]{35, 7, 1, 20, 13}, new int[]{12, 3});
+
+        assertArrayEquals(new int[]{1, 7, 13, 20, 35}, TicketMask.balls(mask, NumberZone.FRONT));
+        assertArrayEquals(new int[]{3, 12}, TicketMask.balls(mask, NumberZone.BACK));
+        assertArrayEquals(new int[0], TicketMask.balls(0L, NumberZone.FRONT));
+    }
+
+    @Test
+    void containsChecksTheRequestedZone() {
+        long mask = TicketMask.pack(new int[]{1, 5, 9, 12, 35}, new int[]{2, 5});
+
+        assertTrue(TicketMask.contains(mask, NumberZone.FRONT, 35));
+        assertTrue(TicketMask.contains(mask, NumberZone.BACK, 5));
+        assertFalse(TicketMask.contains(mask, NumberZone.FRONT, 2));
+        assertFalse(TicketMask.contains(mask, NumberZone.BACK, 1));
+    }
+
+    @Test
+    void isValidRejectsWrongCountRangeAndDuplicates() {
+        assertTrue(TicketMask.isValid(new int[]{1, 2, 3, 4, 35}, NumberZone.FRONT));
+        assertTrue(TicketMask.isValid(new int[]{1, 12}, NumberZone.BACK));
+
+        assertFalse(TicketMask.isValid(null, NumberZone.FRONT));
+        assertFalse(TicketMask.isValid(new int[]{1, 2, 3, 4}, NumberZone.FRONT));
+        assertFalse(TicketMask.isValid(new int[]{0, 2, 3, 4, 5}, NumberZone.FRONT));
+        assertFalse(TicketMask.isValid(new int[]{1, 2, 3, 4, 36}, NumberZone.FRONT));
+        assertFalse(TicketMask.isValid(new int[]{1, 2, 3, 3, 5}, NumberZone.FRONT));
+        assertFalse(TicketMask.isValid(new int[]{1, 13}, NumberZone.BACK));
+        assertFalse(TicketMask.isValid(new int[]{4, 4}, NumberZone.BACK));
+    }
+
+    private static int naiveHits(int[] picked, int[] drawn) {
+        int hits = 0;
+        for (int ball : picked) {
+            if (Arrays.stream(drawn).anyMatch(d -> d == ball)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static int[] pick(Random random, int max, int count) {
+        return random.ints(1, max + 1).distinct().limit(count).toArray();
+    }
+}
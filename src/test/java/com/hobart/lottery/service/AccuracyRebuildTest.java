@@ -0,0 +1,54 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.entity.PredictionAccuracy;
+import com.hobart.lottery.mapper.PredictionAccuracyMapper;
+import com.hobart.lottery.mapper.PredictionRecordMapper;
+import com.hobart.lottery.service.learning.WeightAdjuster;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 准确率统计全量重建测试：先清零再按汇总写入，已无验证记录的方法不保留旧值
+ */
+class AccuracyRebuildTest {
+
+    @Test
+    void allRowsAreZeroedBeforeTheAggregatedUpsert() {
+        PredictionAccuracyMapper mapper = mock(PredictionAccuracyMapper.class);
+        DataVersion dataVersion = new DataVersion();
+        VerificationService service = new VerificationService(mock(PredictionRecordMapper.class),
+            mock(LotteryService.class), mock(WeightAdjuster.class), dataVersion);
+        ReflectionTestUtils.setField(service, "baseMapper", mapper);
+        when(mapper.aggregateVerifiedRecords()).thenReturn(List.of(aggregate("HOT", 4, 6, 1), aggregate("ML", 0, 0, 0)));
+        long before = dataVersion.accuracy();
+
+        service.updateAccuracyStats();
+
+        InOrder order = inOrder(mapper);
+        order.verify(mapper).resetAll();
+        ArgumentCaptor<PredictionAccuracy> written = ArgumentCaptor.forClass(PredictionAccuracy.class);
+        order.verify(mapper).upsertDelta(written.capture());
+        verifyNoMoreInteractions(ignoreStubs(mapper));
+        assertEquals("HOT", written.getValue().getPredictMethod());
+        assertEquals(new BigDecimal("1.50"), written.getValue().getFrontAvgHit());
+        assertEquals(new BigDecimal("0.25"), written.getValue().getBackAvgHit());
+        assertTrue(dataVersion.accuracy() > before);
+    }
+
+    private static PredictionAccuracy aggregate(String method, int total, long frontHits, long backHits) {
+        PredictionAccuracy agg = new PredictionAccuracy();
+        agg.setPredictMethod(method);
+        agg.setTotalPredictions(total);
+        agg.setFrontHitSum(frontHits);
+        agg.setBackHitSum(backHits);
+        return agg;
+    }
+}
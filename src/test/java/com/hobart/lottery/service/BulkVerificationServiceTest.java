@@ -0,0 +1,107 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.TestDraws;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.entity.PredictionRecord;
+import com.hobart.lottery.service.learning.WeightAdjuster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量验证启动测试：启动失败时不留下一直运行中的进度
+ */
+class BulkVerificationServiceTest {
+
+    private final List<LotteryResult> draws = TestDraws.history(7L, 3);
+
+    private VerificationService verificationService;
+    private LotteryService lotteryService;
+    private WeightAdjuster weightAdjuster;
+    private AsyncTaskExecutor executor;
+    private BulkVerificationService service;
+
+    @BeforeEach
+    void setUp() {
+        verificationService = mock(VerificationService.class);
+        lotteryService = mock(LotteryService.class);
+        weightAdjuster = mock(WeightAdjuster.class);
+        executor = mock(AsyncTaskExecutor.class);
+        service = new BulkVerificationService(verificationService, lotteryService, weightAdjuster, executor);
+
+        List<String> issues = draws.stream().map(LotteryResult::getIssue).toList();
+        when(verificationService.getUnverifiedIssues()).thenReturn(issues);
+        when(lotteryService.getByIssues(issues)).thenReturn(draws);
+        when(verificationService.scorePredictions(any())).thenAnswer(inv -> List.of(verified(inv.getArgument(0))));
+    }
+
+    @Test
+    void allIssuesAreScoredThenLearnedInOrder() {
+        runInline();
+
+        BulkVerificationProgress progress = service.start();
+
+        assertFalse(progress.isRunning());
+        assertEquals(3, progress.toMap().get("completedIssues"));
+        verify(weightAdjuster, times(3)).adjustWeightsBatch(anyList());
+    }
+
+    @Test
+    void lookupFailureKeepsPreviousProgress() {
+        runInline();
+        BulkVerificationProgress previous = service.start();
+        when(lotteryService.getByIssues(anyCollection())).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> service.start());
+        assertSame(previous, service.getCurrent());
+    }
+
+    @Test
+    void rejectedSubmissionFinishesProgressAndRethrows() {
+        // 第一期提交成功并同步执行，第二期被拒绝
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).doThrow(new TaskRejectedException("queue full")).when(executor).execute(any(Runnable.class));
+
+        assertThrows(TaskRejectedException.class, () -> service.start());
+
+        BulkVerificationProgress progress = service.getCurrent();
+        assertNotNull(progress);
+        assertFalse(progress.isRunning());
+        Map<String, Object> map = progress.toMap();
+        assertEquals("queue full", map.get("startError"));
+        assertEquals(1, map.get("completedIssues"));
+        // 已提交并计分的期号仍然学习
+        verify(weightAdjuster).adjustWeightsBatch(anyList());
+
+        // 下一次启动不会被遗留的进度挡住
+        runInline();
+        assertNotSame(progress, service.start());
+    }
+
+    private void runInline() {
+        reset(executor);
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+    }
+
+    private static PredictionRecord verified(LotteryResult draw) {
+        PredictionRecord record = new PredictionRecord();
+        record.setTargetIssue(draw.getIssue());
+        record.setPredictMethod("HOT");
+        record.setIsVerified(1);
+        record.setPrizeLevel("未中奖");
+        return record;
+    }
+}
@@ -0,0 +1,95 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.service.index.DrawHistoryIndex;
+import com.hobart.lottery.service.index.HistoryIndexService;
+import com.hobart.lottery.service.learning.WeightAdjuster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 开奖推送测试：写入进行中时心跳跳过、事件排队一条，积压超过一条才断开
+ */
+class DrawPushServiceTest {
+
+    /** 已提交但尚未执行的写入，由测试手动执行 */
+    private final List<FutureTask<?>> writes = new ArrayList<>();
+    private DrawPushService service;
+
+    @BeforeEach
+    void setUp() {
+        HistoryIndexService historyIndexService = mock(HistoryIndexService.class);
+        // 空索引：publish 走 resync 分支
+        when(historyIndexService.getIndex()).thenReturn(new DrawHistoryIndex(List.of()));
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        when(executor.submit(any(Runnable.class))).thenAnswer(inv -> {
+            FutureTask<?> task = new FutureTask<>(inv.getArgument(0), null);
+            writes.add(task);
+            return task;
+        });
+        LotteryConfig config = new LotteryConfig();
+        config.getPush().setSendTimeoutMs(60_000);
+
+        service = new DrawPushService(historyIndexService, mock(WeightAdjuster.class), executor, config);
+        assertNotNull(service.subscribe());
+    }
+
+    @Test
+    void heartbeatIsSkippedWhileAnEventIsBeingWritten() {
+        service.publish(draw("2024001"));
+        service.heartbeat();
+        assertEquals(1, writes.size());
+
+        runWrite(0);
+        // 仍在订阅中：下一次心跳照常写入
+        service.heartbeat();
+        assertEquals(2, writes.size());
+    }
+
+    @Test
+    void eventDuringHeartbeatIsQueuedAndWrittenAfterIt() {
+        service.heartbeat();
+        service.publish(draw("2024001"));
+        assertEquals(1, writes.size());
+
+        runWrite(0);
+        assertEquals(2, writes.size());
+        runWrite(1);
+
+        service.publish(draw("2024002"));
+        assertEquals(3, writes.size());
+    }
+
+    @Test
+    void subscriberWithMoreThanOneQueuedEventIsDropped() {
+        service.heartbeat();
+        service.publish(draw("2024001"));
+        service.publish(draw("2024002"));
+
+        runWrite(0);
+        // 已断开：排队的事件不再写入，之后的心跳也不会
+        service.heartbeat();
+        assertEquals(1, writes.size());
+    }
+
+    private void runWrite(int i) {
+        writes.get(i).run();
+        assertTrue(writes.get(i).isDone());
+    }
+
+    private static LotteryResult draw(String issue) {
+        LotteryResult result = new LotteryResult();
+        result.setIssue(issue);
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package com.hobart.lottery.service;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.service.index.PredictionIndexService;
+import com.hobart.lottery.service.learning.AdaptivePredictor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 流式生成测试：报告去重差额，保存失败不覆盖生成失败
+ */
+class PredictionStreamingTest {
+
+    private static final int[][] TICKET = {{1, 2, 3, 4, 5}, {1, 2}};
+
+    private AdaptivePredictor adaptivePredictor;
+    private PredictionIndexService predictionIndexService;
+    private PredictionService service;
+
+    @BeforeEach
+    void setUp() {
+        adaptivePredictor = mock(AdaptivePredictor.class);
+        predictionIndexService = mock(PredictionIndexService.class);
+        AsyncTaskExecutor executor = mock(AsyncTaskExecutor.class);
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        LotteryConfig config = new LotteryConfig();
+        config.getPrediction().setStreamBatchSize(2);
+
+        service = spy(new PredictionService(mock(AnalysisService.class), mock(LotteryService.class),
+            adaptivePredictor, mock(PredictionScorer.class), predictionIndexService, executor, config,
+            mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void shortfallFromDeduplicationIsReported() {
+        doReturn(true).when(service).saveBatch(anyCollection());
+        // 每次都只生成同一注，去重后只剩一注
+        when(adaptivePredictor.predictMultiple(anyInt())).thenAnswer(inv -> List.<int[][]>of(TICKET));
+        List<Object> emitted = new ArrayList<>();
+
+        PredictionService.StreamResult result = service.generateStreaming(5, "adaptive", "2024001", emitted::add);
+
+        assertEquals(5, result.requested());
+        assertEquals(1, result.emitted());
+        assertEquals(1, result.saved());
+        assertEquals(1, emitted.size());
+        verify(predictionIndexService).invalidate("2024001");
+    }
+
+    @Test
+    void unknownMethodIsRejectedBeforeGenerating() {
+        assertThrows(IllegalArgumentException.class,
+            () -> service.generateStreaming(5, "nope", "2024001", dto -> { }));
+        verifyNoInteractions(adaptivePredictor);
+    }
+
+    @Test
+    void saveFailureIsSuppressedUnderTheGenerationFailure() {
+        doThrow(new IllegalStateException("db down")).when(service).saveBatch(anyCollection());
+        when(adaptivePredictor.predictMultiple(anyInt())).thenAnswer(inv -> List.<int[][]>of(TICKET));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> service.generateStreaming(5, "ADAPTIVE", "2024001", dto -> {
+                throw new IllegalStateException("客户端已断开");
+            }));
+
+        assertEquals("客户端已断开", error.getMessage());
+        assertEquals(1, error.getSuppressed().length);
+        assertEquals("db down", error.getSuppressed()[0].getCause().getMessage());
+        verify(predictionIndexService).invalidate("2024001");
+    }
+
+    @Test
+    void saveFailureAloneIsThrown() {
+        doThrow(new IllegalStateException("db down")).when(service).saveBatch(anyCollection());
+        when(adaptivePredictor.predictMultiple(anyInt())).thenAnswer(inv -> List.<int[][]>of(TICKET));
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+            () -> service.generateStreaming(1, "ADAPTIVE", "2024001", dto -> { }));
+
+        assertEquals("db down", error.getCause().getMessage());
+    }
+}
@@ -0,0 +1,203 @@
+package com.hobart.lottery.service.analysis;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.dto.FrequencyDTO;
+import com.hobart.lottery.service.DataVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分析结果缓存测试：按历史版本整代失效，取出的值互不影响，并发未命中只计算一次
+ */
+class AnalysisCacheTest {
+
+    private DataVersion dataVersion;
+    private AnalysisCache cache;
+
+    @BeforeEach
+    void setUp() {
+        dataVersion = new DataVersion();
+        LotteryConfig config = new LotteryConfig();
+        config.getAnalysis().setCacheMaxEntries(2);
+        cache = new AnalysisCache(dataVersion, config);
+    }
+
+    @Test
+    void sameKeyIsComputedOncePerVersion() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(List.of(1), cache.get("m", () -> List.of(calls.incrementAndGet()), 30));
+        assertEquals(List.of(1), cache.get("m", () -> List.of(calls.incrementAndGet()), 30));
+        // 参数不同是不同的键，null 参数合法
+        assertEquals(List.of(2), cache.get("m", () -> List.of(calls.incrementAndGet()), (Object) null));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void historyChangeSwapsTheWholeGeneration() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("m", () -> List.of(calls.incrementAndGet()));
+
+        dataVersion.historyChanged();
+
+        assertEquals(List.of(2), cache.get("m", () -> List.of(calls.incrementAndGet())));
+        assertEquals(List.of(2), cache.get("m", () -> List.of(calls.incrementAndGet())));
+        assertEquals(1L, cache.getStats().get("invalidations"));
+    }
+
+    @Test
+    void resultComputedAcrossAVersionChangeIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> first = cache.get("m", () -> {
+            dataVersion.historyChanged();
+            return List.of(calls.incrementAndGet());
+        });
+
+        assertEquals(List.of(1), first);
+        assertEquals(List.of(2), cache.get("m", () -> List.of(calls.incrementAndGet())));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("a", () -> List.of(calls.incrementAndGet()));
+        cache.get("b", () -> List.of(calls.incrementAndGet()));
+        cache.get("a", () -> List.of(calls.incrementAndGet()));
+        cache.get("c", () -> List.of(calls.incrementAndGet()));
+
+        assertEquals(3, calls.get());
+        // b 最久未用，已被淘汰；a 仍在
+        cache.get("a", () -> List.of(calls.incrementAndGet()));
+        assertEquals(3, calls.get());
+        assertEquals(1L, cache.getStats().get("evictions"));
+        cache.get("b", () -> List.of(calls.incrementAndGet()));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void callersReceiveIndependentDeepCopies() {
+        cache.get("freq", () -> {
+            List<FrequencyDTO> list = new ArrayList<>();
+            list.add(new FrequencyDTO(1, 5, 0.5, "front"));
+            list.add(new FrequencyDTO(2, 3, 0.3, "front"));
+            return list;
+        });
+
+        List<FrequencyDTO> first = cache.get("freq", ArrayList::new);
+        first.get(0).setCount(99);
+        first.remove(1);
+
+        List<FrequencyDTO> second = cache.get("freq", ArrayList::new);
+        assertEquals(2, second.size());
+        assertEquals(5, second.get(0).getCount());
+        assertNotSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    void nestedMapsAndArraysAreCopiedWithTheirOrdering() {
+        cache.get("scores", () -> {
+            Map<Integer, int[]> map = new TreeMap<>((a, b) -> b - a);
+            map.put(1, new int[]{1, 2});
+            map.put(2, new int[]{3, 4});
+            return map;
+        });
+
+        Map<Integer, int[]> first = cache.get("scores", TreeMap::new);
+        first.get(1)[0] = 100;
+        first.put(3, new int[0]);
+
+        Map<Integer, int[]> second = cache.get("scores", TreeMap::new);
+        assertEquals(List.of(2, 1), new ArrayList<>(second.keySet()));
+        assertArrayEquals(new int[]{1, 2}, second.get(1));
+    }
+
+    @Test
+    void concurrentMissesShareOneComputation() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get("slow", () -> {
+                started.countDown();
+                await(release);
+                return new ArrayList<>(List.of(calls.incrementAndGet()));
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(pool.submit(() -> cache.get("slow", () -> List.of(calls.incrementAndGet()))));
+            }
+            waitForCoalesced(threads - 1);
+            release.countDown();
+
+            for (Future<List<Integer>> result : results) {
+                assertEquals(List.of(1), result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+            // 等待者拿到的也是各自的副本
+            assertNotSame(results.get(0).get(), results.get(1).get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitersSeeTheLeadersFailureAndNextCallRetries() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = pool.submit(() -> cache.get("broken", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("boom");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Object> waiter = pool.submit(() -> cache.get("broken", () -> "unused"));
+            waitForCoalesced(1);
+            release.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception waiterError = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+            assertInstanceOf(IllegalStateException.class, waiterError.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 失败不会被缓存
+        assertEquals("ok", cache.get("broken", () -> "ok"));
+    }
+
+    private void waitForCoalesced(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) cache.getStats().get("coalesced") < expected) {
+            assertTrue(System.nanoTime() < deadline, "等待者未合并到同一次计算");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.hobart.lottery.service.analysis;
+
+import com.hobart.lottery.TestDraws;
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.domain.model.TicketMask;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.service.index.DrawHistoryIndex;
+import com.hobart.lottery.service.index.HistoryIndexService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 列式编码测试：各列偏移量、小端序与按期号正序
+ */
+class ColumnarTrendEncoderTest {
+
+    private List<LotteryResult> draws;
+    private ColumnarTrendEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        draws = new ArrayList<>(List.of(
+            TestDraws.draw("24001", LocalDate.of(2024, 1, 1), new int[]{1, 2, 3, 10, 35}, new int[]{1, 12}),
+            TestDraws.draw("24002", LocalDate.of(2024, 1, 3), new int[]{5, 7, 20, 21, 33}, new int[]{2, 3}),
+            TestDraws.draw("24003", LocalDate.of(2024, 1, 6), new int[]{2, 4, 6, 8, 10}, new int[]{3, 4}),
+            TestDraws.draw("24004", LocalDate.of(2024, 1, 8), new int[]{1, 3, 5, 7, 9}, new int[]{1, 3})));
+        // 索引按期号排序，入参顺序不影响输出
+        Collections.shuffle(draws, new Random(1));
+
+        HistoryIndexService historyIndexService = mock(HistoryIndexService.class);
+        when(historyIndexService.getIndex()).thenReturn(new DrawHistoryIndex(draws));
+        encoder = new ColumnarTrendEncoder(historyIndexService);
+    }
+
+    @Test
+    void trendColumnsAreLittleEndianAtExpectedOffsets() {
+        byte[] bytes = encoder.encodeTrend(3);
+        int n = 3;
+        assertEquals(8 + n * (8 + 4 + 4 + 2 + 2 + 1 + 1), bytes.length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(n, buffer.getInt(0));
+        assertEquals(0, buffer.getInt(4));
+        // 小端序：首字节为 n 的低位
+        assertEquals(n, bytes[0]);
+
+        int masks = 8;
+        int issues = masks + 8 * n;
+        int dates = issues + 4 * n;
+        int frontSums = dates + 4 * n;
+        int backSums = frontSums + 2 * n;
+        int odds = backSums + 2 * n;
+        int consecutive = odds + n;
+
+        assertEquals(TicketMask.pack(new int[]{5, 7, 20, 21, 33}, new int[]{2, 3}), buffer.getLong(masks));
+        assertEquals(TicketMask.pack(new int[]{1, 3, 5, 7, 9}, new int[]{1, 3}), buffer.getLong(masks + 16));
+
+        assertEquals(24002, buffer.getInt(issues));
+        assertEquals(24003, buffer.getInt(issues + 4));
+        assertEquals(24004, buffer.getInt(issues + 8));
+
+        assertEquals(LocalDate.of(2024, 1, 3).toEpochDay(), buffer.getInt(dates));
+        assertEquals(LocalDate.of(2024, 1, 8).toEpochDay(), buffer.getInt(dates + 8));
+
+        assertEquals(86, buffer.getShort(frontSums));
+        assertEquals(30, buffer.getShort(frontSums + 2));
+        assertEquals(25, buffer.getShort(frontSums + 4));
+        assertEquals(5, buffer.getShort(backSums));
+        assertEquals(7, buffer.getShort(backSums + 2));
+
+        assertEquals(4, bytes[odds]);
+        assertEquals(0, bytes[odds + 1]);
+        assertEquals(5, bytes[odds + 2]);
+
+        assertEquals(1, bytes[consecutive]);
+        assertEquals(0, bytes[consecutive + 1]);
+        assertEquals(0, bytes[consecutive + 2]);
+    }
+
+    @Test
+    void trendLimitLargerThanHistoryReturnsAllIssues() {
+        ByteBuffer buffer = ByteBuffer.wrap(encoder.encodeTrend(100)).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(4, buffer.getInt(0));
+        assertEquals(24001, buffer.getInt(8 + 8 * 4));
+        assertEquals(0, ByteBuffer.wrap(encoder.encodeTrend(-1)).order(ByteOrder.LITTLE_ENDIAN).getInt(0));
+    }
+
+    @Test
+    void numberTrendIsLowBitFirstBitmap() {
+        byte[] bytes = encoder.encodeNumberTrend(NumberZone.FRONT, 1, 10);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(9, bytes.length);
+        assertEquals(4, buffer.getInt(0));
+        assertEquals(1, buffer.getInt(4));
+        // 号码 1 出现在第 0 期与第 3 期
+        assertEquals(0b1001, bytes[8]);
+
+        byte[] back = encoder.encodeNumberTrend(NumberZone.BACK, 3, 10);
+        assertEquals(0b1110, back[8]);
+    }
+
+    @Test
+    void coOccurrenceIsSymmetricRowMajorWithCountsOnDiagonal() {
+        ByteBuffer buffer = ByteBuffer.wrap(encoder.encodeCoOccurrence(NumberZone.BACK, null))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        int size = buffer.getInt(0);
+        assertEquals(12, size);
+        assertEquals(4, buffer.getInt(4));
+        assertEquals(8 + size * size * 4, buffer.capacity());
+
+        // 后区 3 出现 3 次，与 1、2、4 各同期开出 1 次
+        assertEquals(3, cell(buffer, size, 3, 3));
+        assertEquals(1, cell(buffer, size, 3, 1));
+        assertEquals(1, cell(buffer, size, 1, 3));
+        assertEquals(1, cell(buffer, size, 2, 3));
+        assertEquals(1, cell(buffer, size, 4, 3));
+        assertEquals(2, cell(buffer, size, 1, 1));
+        assertEquals(1, cell(buffer, size, 1, 12));
+        assertEquals(0, cell(buffer, size, 5, 5));
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
+                assertEquals(cell(buffer, size, i, j), cell(buffer, size, j, i));
+            }
+        }
+    }
+
+    @Test
+    void coOccurrenceStopsAtAsOfIssue() {
+        ByteBuffer buffer = ByteBuffer.wrap(encoder.encodeCoOccurrence(NumberZone.FRONT, "24002"))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        int size = buffer.getInt(0);
+
+        assertEquals(35, size);
+        assertEquals(2, buffer.getInt(4));
+        assertEquals(1, cell(buffer, size, 1, 1));
+        assertEquals(1, cell(buffer, size, 1, 35));
+        assertEquals(1, cell(buffer, size, 20, 21));
+        assertEquals(0, cell(buffer, size, 4, 4));
+    }
+
+    private static int cell(ByteBuffer buffer, int size, int i, int j) {
+        return buffer.getInt(8 + ((i - 1) * size + (j - 1)) * 4);
+    }
+}
@@ -0,0 +1,121 @@
+package com.hobart.lottery.service.index;
+
+import com.hobart.lottery.TestDraws;
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.domain.model.NumberZone;
+import com.hobart.lottery.entity.LotteryResult;
+import com.hobart.lottery.service.LotteryService;
+import com.hobart.lottery.service.analysis.FrequencyAnalyzer;
+import com.hobart.lottery.service.analysis.MissingAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 历史视图与逐期扫描的分析器等价性测试
+ * 同一份固定开奖数据上，HistoryView 基于前缀计数的结果应与 FrequencyAnalyzer / MissingAnalyzer 完全一致
+ */
+class HistoryViewTest {
+
+    private static final int HOT_COLD_PERIOD = 30;
+    private static final int MISSING_PERIOD = 150;
+
+    private final List<LotteryResult> history = TestDraws.history(20240101L, 240);
+    private final DrawHistoryIndex index = new DrawHistoryIndex(history);
+
+    @Test
+    void frequencyMatchesAnalyzer() {
+        for (int cutoff : new int[]{0, 1, 29, 120, history.size()}) {
+            FrequencyAnalyzer analyzer = new FrequencyAnalyzer(lotteryServiceUpTo(cutoff), config(), null);
+            HistoryView view = view(cutoff);
+            for (NumberZone zone : NumberZone.values()) {
+                for (Integer recent : Arrays.asList(null, 1, 10, HOT_COLD_PERIOD, 1000)) {
+                    assertEquals(analyzer.calculateFrequency(zone, recent), view.calculateFrequency(zone, recent),
+                        "cutoff=" + cutoff + " zone=" + zone + " recent=" + recent);
+                }
+            }
+        }
+    }
+
+    @Test
+    void missingMatchesAnalyzer() {
+        for (int cutoff : new int[]{0, 1, 29, 120, history.size()}) {
+            MissingAnalyzer analyzer = new MissingAnalyzer(lotteryServiceUpTo(cutoff), config(), null);
+            HistoryView view = view(cutoff);
+            for (NumberZone zone : NumberZone.values()) {
+                assertEquals(analyzer.calculateMissing(zone), view.calculateMissing(zone),
+                    "cutoff=" + cutoff + " zone=" + zone);
+            }
+        }
+    }
+
+    @Test
+    void numberSelectionsMatchAnalyzers() {
+        for (int cutoff : new int[]{29, 120, history.size()}) {
+            LotteryService lotteryService = lotteryServiceUpTo(cutoff);
+            FrequencyAnalyzer frequency = new FrequencyAnalyzer(lotteryService, config(), null);
+            MissingAnalyzer missing = new MissingAnalyzer(lotteryService, config(), null);
+            HistoryView view = view(cutoff);
+            for (NumberZone zone : NumberZone.values()) {
+                int count = zone.getCount() * 2;
+                String context = "cutoff=" + cutoff + " zone=" + zone;
+                assertEquals(frequency.getHotNumbers(zone, count), view.getHotNumbers(zone, count), context);
+                assertEquals(frequency.getColdNumbers(zone, count), view.getColdNumbers(zone, count), context);
+                assertEquals(missing.getMissingDueNumbers(zone, count), view.getMissingDueNumbers(zone, count), context);
+                assertEquals(missing.getHighMissingNumbers(zone, count), view.getHighMissingNumbers(zone, count), context);
+
+                Map<Integer, Double> expected = frequency.getNumberScores(zone, missing);
+                Map<Integer, Double> actual = view.getNumberScores(zone);
+                assertEquals(expected.keySet(), actual.keySet(), context);
+                expected.forEach((num, score) -> assertEquals(score, actual.get(num), 1e-9, context + " num=" + num));
+            }
+        }
+    }
+
+    @Test
+    void recentResultsAreNewestFirstAndStopAtCutoff() {
+        HistoryView view = view(100);
+        List<LotteryResult> recent = view.getRecentResults(5);
+
+        assertEquals(5, recent.size());
+        assertEquals(history.get(99).getIssue(), recent.get(0).getIssue());
+        assertEquals(history.get(95).getIssue(), recent.get(4).getIssue());
+        assertEquals(100, view.getRecentResults(1000).size());
+    }
+
+    private HistoryView view(int cutoff) {
+        return new HistoryView(index, cutoff, HOT_COLD_PERIOD, MISSING_PERIOD);
+    }
+
+    private static LotteryConfig config() {
+        LotteryConfig config = new LotteryConfig();
+        config.getAnalysis().setHotColdPeriod(HOT_COLD_PERIOD);
+        config.getAnalysis().setMissingPeriod(MISSING_PERIOD);
+        return config;
+    }
+
+    /**
+     * 只能查到前 cutoff 期的开奖服务（getRecentResults 与数据库一致，按期号倒序）
+     */
+    private LotteryService lotteryServiceUpTo(int cutoff) {
+        List<LotteryResult> visible = history.subList(0, cutoff);
+        LotteryService lotteryService = mock(LotteryService.class);
+        when(lotteryService.getAllResults()).thenAnswer(inv -> new ArrayList<>(visible));
+        when(lotteryService.getRecentResults(anyInt())).thenAnswer(inv -> {
+            int limit = inv.getArgument(0);
+            List<LotteryResult> recent = new ArrayList<>(visible.subList(Math.max(0, cutoff - limit), cutoff));
+            Collections.reverse(recent);
+            return recent;
+        });
+        return lotteryService;
+    }
+}
@@ -0,0 +1,97 @@
+package com.hobart.lottery.service.index;
+
+import com.hobart.lottery.TestDraws;
+import com.hobart.lottery.domain.model.PrizeLevel;
+import com.hobart.lottery.domain.model.TicketMask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预测倒排索引测试：位切片计数器的结果与逐条比较一致
+ */
+class PredictionHitIndexTest {
+
+    private static final String[] METHODS = {"HOT", "MISSING", "BALANCED", "ML", "ADAPTIVE"};
+
+    @Test
+    void findByFrontHitsMatchesLinearScan() {
+        Random random = new Random(7);
+        // 超过 Builder 初始容量，且最后一个字不满 64 位
+        int size = 3000;
+        long[] tickets = new long[size];
+        PredictionHitIndex.Builder builder = new PredictionHitIndex.Builder("24100");
+        for (int i = 0; i < size; i++) {
+            tickets[i] = TicketMask.pack(TestDraws.pick(random, 35, 5), TestDraws.pick(random, 12, 2));
+            builder.add(1000L + i, METHODS[i % METHODS.length], tickets[i]);
+        }
+        PredictionHitIndex index = builder.build();
+        assertEquals(size, index.size());
+        assertEquals("24100", index.getIssue());
+
+        for (int round = 0; round < 20; round++) {
+            long draw = TicketMask.pack(TestDraws.pick(random, 35, 5), TestDraws.pick(random, 12, 2));
+            for (int k = 1; k <= 5; k++) {
+                List<Long> expected = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    if (TicketMask.frontHits(tickets[i], draw) >= k) {
+                        expected.add(1000L + i);
+                    }
+                }
+                List<Long> actual = index.findByFrontHits(draw, k).stream()
+                    .map(PredictionHitIndex.Hit::getId).toList();
+                assertEquals(expected, actual, "k=" + k);
+            }
+        }
+    }
+
+    @Test
+    void hitCarriesExactCountsMethodAndPrize() {
+        long ticket = TicketMask.pack(new int[]{1, 2, 3, 4, 5}, new int[]{1, 2});
+        long other = TicketMask.pack(new int[]{1, 2, 3, 30, 31}, new int[]{11, 12});
+        PredictionHitIndex index = new PredictionHitIndex.Builder("24100")
+            .add(1, "HOT", ticket)
+            .add(2, "ML", other)
+            .build();
+        long draw = TicketMask.pack(new int[]{1, 2, 3, 4, 6}, new int[]{2, 7});
+
+        List<PredictionHitIndex.Hit> hits = index.findByFrontHits(draw, 4);
+        assertEquals(1, hits.size());
+        PredictionHitIndex.Hit hit = hits.get(0);
+        assertEquals(1, hit.getId());
+        assertEquals("HOT", hit.getPredictMethod());
+        assertEquals(4, hit.getFrontHitCount());
+        assertEquals(1, hit.getBackHitCount());
+        assertEquals(PrizeLevel.FOURTH.getDisplayName(), hit.getPrizeLevel());
+
+        List<PredictionHitIndex.Hit> three = index.findByFrontHits(draw, 3);
+        assertEquals(List.of(1L, 2L), three.stream().map(PredictionHitIndex.Hit::getId).toList());
+        assertEquals("ML", three.get(1).getPredictMethod());
+    }
+
+    @Test
+    void minFrontHitsIsClampedToOneThroughFive() {
+        long ticket = TicketMask.pack(new int[]{1, 2, 3, 4, 5}, new int[]{1, 2});
+        long miss = TicketMask.pack(new int[]{6, 7, 8, 9, 10}, new int[]{1, 2});
+        PredictionHitIndex index = new PredictionHitIndex.Builder("24100")
+            .add(1, "HOT", ticket)
+            .add(2, "HOT", miss)
+            .build();
+
+        assertEquals(1, index.findByFrontHits(ticket, 0).size());
+        assertEquals(1, index.findByFrontHits(ticket, 9).size());
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        PredictionHitIndex index = new PredictionHitIndex.Builder("24100").build();
+        long draw = TicketMask.pack(new int[]{1, 2, 3, 4, 5}, new int[]{1, 2});
+
+        assertEquals(0, index.size());
+        assertTrue(index.findByFrontHits(draw, 1).isEmpty());
+    }
+}
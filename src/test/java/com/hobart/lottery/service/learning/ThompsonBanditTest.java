@@ -0,0 +1,148 @@
+package com.hobart.lottery.service.learning;
+
+import com.hobart.lottery.entity.MethodWeight;
+import com.hobart.lottery.mapper.MethodWeightMapper;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Thompson 抽样测试
+ */
+class ThompsonBanditTest {
+
+    private static final int ARMS = PredictMethod.values().length;
+
+    private MethodWeightMapper weightMapper;
+    private ThompsonBandit bandit;
+
+    @BeforeEach
+    void setUp() {
+        weightMapper = mock(MethodWeightMapper.class);
+        bandit = new ThompsonBandit(weightMapper);
+    }
+
+    @Test
+    void posteriorMeansAreNormalized() {
+        bandit.seed(List.of(weight("HOT", 10, 8), weight("MISSING", 10, 2)));
+
+        double[] weights = bandit.posteriorWeights();
+        // 未出现的方法计数为 0，后验均值 1/2
+        double[] means = new double[ARMS];
+        for (int i = 0; i < ARMS; i++) {
+            means[i] = 0.5;
+        }
+        means[PredictMethod.HOT.ordinal()] = 9.0 / 12;
+        means[PredictMethod.MISSING.ordinal()] = 3.0 / 12;
+        double total = 0;
+        for (double mean : means) {
+            total += mean;
+        }
+        for (int i = 0; i < ARMS; i++) {
+            assertEquals(means[i] / total, weights[i], 1e-12);
+        }
+        verify(weightMapper, never()).selectAllOrderByWeight();
+    }
+
+    @Test
+    void recordAddsToSeededCountsAndIgnoresUnknownMethods() {
+        bandit.seed(List.of(weight("HOT", 4, 1)));
+        bandit.record("HOT", 6, 5);
+        bandit.record("UNKNOWN", 100, 100);
+
+        double[] weights = bandit.posteriorWeights();
+        double hot = (1.0 + 6) / (2.0 + 10);
+        double total = hot + 0.5 * (ARMS - 1);
+        assertEquals(hot / total, weights[PredictMethod.HOT.ordinal()], 1e-12);
+    }
+
+    @Test
+    void seedOverwritesInMemoryCounts() {
+        bandit.seed(List.of(weight("ML", 0, 0)));
+        bandit.record("ML", 50, 50);
+        bandit.seed(List.of(weight("ML", 0, 0)));
+
+        double[] weights = bandit.posteriorWeights();
+        assertEquals(1.0 / ARMS, weights[PredictMethod.ML.ordinal()], 1e-12);
+    }
+
+    @Test
+    void countsMatchComparesWithDatabaseTotals() {
+        assertFalse(bandit.countsMatch(List.of()));
+
+        bandit.seed(List.of(weight("HOT", 4, 1)));
+        assertTrue(bandit.countsMatch(List.of(weight("HOT", 4, 1), weight("UNKNOWN", 9, 9))));
+
+        bandit.record("HOT", 2, 1);
+        assertFalse(bandit.countsMatch(List.of(weight("HOT", 4, 1))));
+        assertTrue(bandit.countsMatch(List.of(weight("HOT", 6, 2))));
+    }
+
+    @Test
+    void firstUseLoadsCountsFromDatabase() {
+        when(weightMapper.selectAllOrderByWeight()).thenReturn(List.of(weight("BALANCED", 20, 20)));
+
+        double[] weights = bandit.posteriorWeights();
+        bandit.posteriorWeights();
+
+        verify(weightMapper, times(1)).selectAllOrderByWeight();
+        assertTrue(weights[PredictMethod.BALANCED.ordinal()] > weights[PredictMethod.HOT.ordinal()]);
+    }
+
+    @Test
+    void samplesAreNormalizedAndFavorTheBetterArm() {
+        List<MethodWeight> all = new ArrayList<>();
+        for (PredictMethod method : PredictMethod.values()) {
+            all.add(weight(method.name(), 1000, method == PredictMethod.ADAPTIVE ? 900 : 100));
+        }
+        bandit.seed(all);
+
+        int adaptiveBest = 0;
+        int rounds = 500;
+        for (int round = 0; round < rounds; round++) {
+            WeightSnapshot sample = bandit.sample();
+            double sum = 0;
+            PredictMethod best = null;
+            for (PredictMethod method : PredictMethod.values()) {
+                double w = sample.get(method);
+                assertTrue(w > 0 && w < 1);
+                sum += w;
+                if (best == null || w > sample.get(best)) {
+                    best = method;
+                }
+            }
+            assertEquals(1.0, sum, 1e-9);
+            if (best == PredictMethod.ADAPTIVE) {
+                adaptiveBest++;
+            }
+        }
+        // 后验 Beta(901, 101) 与 Beta(101, 901) 几乎不重叠
+        assertEquals(rounds, adaptiveBest);
+    }
+
+    @Test
+    void samplesVaryBetweenCallsWithoutData() {
+        bandit.seed(List.of());
+
+        double first = bandit.sample().get(PredictMethod.HOT);
+        boolean varied = false;
+        for (int i = 0; i < 20 && !varied; i++) {
+            varied = bandit.sample().get(PredictMethod.HOT) != first;
+        }
+        assertTrue(varied);
+    }
+
+    private static MethodWeight weight(String code, int trials, int hits) {
+        MethodWeight mw = new MethodWeight();
+        mw.setMethodCode(code);
+        mw.setTotalPredictions(trials);
+        mw.setTotalHits(hits);
+        return mw;
+    }
+}
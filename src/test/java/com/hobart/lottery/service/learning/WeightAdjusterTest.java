@@ -0,0 +1,167 @@
+package com.hobart.lottery.service.learning;
+
+import com.hobart.lottery.config.LotteryConfig;
+import com.hobart.lottery.config.LotteryConfig.LearningStrategy;
+import com.hobart.lottery.entity.MethodWeight;
+import com.hobart.lottery.entity.PredictionRecord;
+import com.hobart.lottery.mapper.MethodWeightHistoryMapper;
+import com.hobart.lottery.mapper.MethodWeightMapper;
+import com.hobart.lottery.service.DataVersion;
+import com.hobart.lottery.service.PredictionService.PredictMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 权重学习测试：批量折叠的 EMA 与逐条更新结果一致
+ */
+class WeightAdjusterTest {
+
+    private static final double ALPHA = 0.1;
+
+    private MethodWeightMapper weightMapper;
+    private MethodWeightHistoryMapper historyMapper;
+    private ThompsonBandit thompsonBandit;
+    private WeightAdjuster weightAdjuster;
+
+    @BeforeEach
+    void setUp() {
+        weightMapper = mock(MethodWeightMapper.class);
+        historyMapper = mock(MethodWeightHistoryMapper.class);
+        thompsonBandit = mock(ThompsonBandit.class);
+        when(weightMapper.applyOutcomes(anyString(), anyInt(), anyInt(), anyDouble(), anyDouble())).thenReturn(1);
+
+        LotteryConfig config = new LotteryConfig();
+        config.getLearning().setEmaAlpha(ALPHA);
+        weightAdjuster = new WeightAdjuster(weightMapper, historyMapper, config, thompsonBandit, new DataVersion());
+    }
+
+    @Test
+    void foldedUpdateEqualsSequentialEma() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            reset(weightMapper);
+            when(weightMapper.applyOutcomes(anyString(), anyInt(), anyInt(), anyDouble(), anyDouble())).thenReturn(1);
+
+            int n = 1 + random.nextInt(20);
+            boolean[] hits = new boolean[n];
+            List<PredictionRecord> records = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                hits[i] = random.nextBoolean();
+                records.add(record("HOT", hits[i] ? 3 : 1, 0));
+            }
+            weightAdjuster.adjustWeightsBatch(records);
+
+            ArgumentCaptor<Double> decay = ArgumentCaptor.forClass(Double.class);
+            ArgumentCaptor<Double> contribution = ArgumentCaptor.forClass(Double.class);
+            verify(weightMapper).applyOutcomes(eq("HOT"), eq(n), anyInt(), decay.capture(), contribution.capture());
+
+            // 数据库执行 hit_rate * decay + contribution，应等于从任意初值逐条做 EMA
+            for (double initial : new double[]{0.0, 0.25, 1.0}) {
+                double expected = initial;
+                for (boolean hit : hits) {
+                    expected = ALPHA * (hit ? 1.0 : 0.0) + (1 - ALPHA) * expected;
+                }
+                assertEquals(expected, initial * decay.getValue() + contribution.getValue(), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void batchIsGroupedPerMethodAndSkipsUnverifiedRecords() {
+        PredictionRecord pending = record("ML", 5, 2);
+        pending.setIsVerified(0);
+        List<PredictionRecord> records = List.of(
+            record("HOT", 3, 0),
+            record("MISSING", 0, 0),
+            record("HOT", 0, 1),
+            record("HOT", 2, 0),
+            pending);
+
+        weightAdjuster.adjustWeightsBatch(records);
+
+        verify(weightMapper).lockAll();
+        verify(weightMapper).applyOutcomes(eq("HOT"), eq(3), eq(2), anyDouble(), anyDouble());
+        verify(weightMapper).applyOutcomes(eq("MISSING"), eq(1), eq(0), anyDouble(), anyDouble());
+        verify(weightMapper, never()).applyOutcomes(eq("ML"), anyInt(), anyInt(), anyDouble(), anyDouble());
+        verify(weightMapper).normalizeWeights(anyDouble());
+        verify(historyMapper).snapshotCurrent("24100");
+        // 不在事务中时提交后回调立即执行
+        verify(thompsonBandit).record("HOT", 3, 2);
+        verify(thompsonBandit).record("MISSING", 1, 0);
+    }
+
+    @Test
+    void emptyBatchDoesNotTouchDatabase() {
+        PredictionRecord pending = record("HOT", 5, 2);
+        pending.setIsVerified(0);
+
+        weightAdjuster.adjustWeightsBatch(List.of(pending));
+
+        verifyNoInteractions(weightMapper, historyMapper, thompsonBandit);
+    }
+
+    @Test
+    void syncBanditSkipsWritesWhenCountsAndWeightsAlreadyMatch() {
+        ThompsonBandit bandit = new ThompsonBandit(weightMapper);
+        DataVersion dataVersion = new DataVersion();
+        LotteryConfig config = new LotteryConfig();
+        config.getLearning().setStrategy(LearningStrategy.THOMPSON);
+        WeightAdjuster adjuster = new WeightAdjuster(weightMapper, historyMapper, config, bandit, dataVersion);
+
+        List<MethodWeight> rows = new ArrayList<>();
+        for (PredictMethod method : PredictMethod.values()) {
+            rows.add(weight(method.name(), 10, method.ordinal()));
+        }
+        bandit.seed(rows);
+        double[] posterior = bandit.posteriorWeights();
+        for (MethodWeight mw : rows) {
+            mw.setWeight(BigDecimal.valueOf(posterior[PredictMethod.valueOf(mw.getMethodCode()).ordinal()])
+                .setScale(4, RoundingMode.HALF_UP));
+        }
+        when(weightMapper.selectAllOrderByWeight()).thenReturn(rows);
+        long version = dataVersion.learning();
+
+        adjuster.syncBandit();
+
+        verify(weightMapper, never()).lockAll();
+        verify(weightMapper, never()).updateWeight(anyString(), any());
+        assertEquals(version, dataVersion.learning());
+
+        // 数据库计数变化后重新同步并写入权重
+        rows.get(0).setTotalPredictions(11);
+        adjuster.syncBandit();
+
+        verify(weightMapper).lockAll();
+        verify(weightMapper, times(PredictMethod.values().length)).updateWeight(anyString(), any());
+        assertNotEquals(version, dataVersion.learning());
+    }
+
+    private static MethodWeight weight(String method, int total, int hits) {
+        MethodWeight mw = new MethodWeight();
+        mw.setMethodCode(method);
+        mw.setTotalPredictions(total);
+        mw.setTotalHits(hits);
+        return mw;
+    }
+
+    private static PredictionRecord record(String method, int frontHit, int backHit) {
+        PredictionRecord record = new PredictionRecord();
+        record.setTargetIssue("24100");
+        record.setPredictMethod(method);
+        record.setIsVerified(1);
+        record.setFrontHitCount(frontHit);
+        record.setBackHitCount(backHit);
+        return record;
+    }
+}